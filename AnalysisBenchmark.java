@@ -0,0 +1,245 @@
+//AnalysisBenchmark.java
+
+
+/******************************************************************************
+ *  Compilation:  javac AnalysisBenchmark.java
+ *  Execution:    java -Xmx4g AnalysisBenchmark [-t topology] [-b benchmark] [V ...]
+ *
+ *  Times every analysis of EdgeWeightedGraph, with allocation per operation,
+ *  on synthetic topologies of several families and sizes.
+ *
+ *  % java AnalysisBenchmark -t grid 10000
+ *  topology            V         E  benchmark                                            ns/op           B/op
+ *  grid            10000     19800  load                              7112277.3 +-    2466102.8      3615656.0
+ *  grid            10000     19800  addEdge                                59.4 +-          1.7           65.3
+ *  grid            10000     19800  lowestLatencyPath                 1070314.3 +-      37775.9       284292.2
+ *  grid            10000     19800  lowestLatencySpanningTree         1930056.3 +-     238051.2      1804712.0
+ *  grid            10000     19800  remainConnected                    376812.6 +-      53520.5       210192.0
+ *  grid            10000     19800  survivesTwoFailures               1112848.7 +-     163288.2       210216.0
+ *  grid            10000     19800  copperOnly                             62.0 +-          1.4            0.0
+ *
+ ******************************************************************************/
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ *  The {@code AnalysisBenchmark} class is a command-line driver that times the
+ *  public operations of {@link EdgeWeightedGraph}: loading a topology file,
+ *  {@code addEdge}, {@code lowestLatencyPath}, the same restricted by an
+ *  {@link EdgeFilter} to links of at least 100 Mbps avoiding vertex 0
+ *  ({@code constrainedPath}), {@code widestPath}, the
+ *  {@link MaxBandwidthTree} {@code bottleneck} query,
+ *  {@code lowestLatencySpanningTree}, {@code remainConnected} and
+ *  {@code copperOnly}. Each runs on topologies from every
+ *  {@link TopologyGenerator} family ({@code random}, {@code geometric},
+ *  {@code scale-free}, {@code grid} and the copper and optical {@code tiered}
+ *  network) with 1,000, 10,000 and 100,000 vertices unless other sizes are
+ *  given. The {@code -t} and {@code -b} options pick topologies and
+ *  benchmarks whose names match a regular expression.
+ *  <p>
+ *  The measurements follow the method of JMH: a benchmark is run repeatedly
+ *  for a fixed time per iteration, first for {@value #WARMUP_ITERATIONS}
+ *  warm-up iterations, whose results are thrown away while the JIT compiler
+ *  settles, then for {@value #MEASUREMENT_ITERATIONS} measured ones. Every
+ *  result is consumed so the compiler cannot remove the work. The report
+ *  gives the mean time per operation with its standard deviation over the
+ *  measured iterations, and the bytes allocated per operation by the
+ *  benchmark thread, the figure JMH's allocation profiler reports as
+ *  {@code gc.alloc.rate.norm}. For {@code addEdge} an operation is one edge
+ *  added to an empty graph of the same size; for {@code load} it is reading
+ *  the whole file.
+ *  <p>
+ *  {@code remainConnected} times the linear-time search for articulation
+ *  points; {@code survivesTwoFailures} adds the search for separation pairs,
+ *  which on a network with no articulation point takes time proportional to
+ *  <em>V</em>(<em>E</em> + <em>V</em>), so it is only run on topologies with
+ *  at most {@value #QUADRATIC_LIMIT} vertices.
+ *  <p>
+ *  The {@code jmh} module of the Maven build runs the same operations under
+ *  JMH itself ({@code network.jmh.AnalysisBenchmarks}); this driver needs
+ *  nothing but the JDK.
+ */
+public class AnalysisBenchmark {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 250_000_000L;
+    private static final String[] TOPOLOGIES = { "random", "geometric", "scale-free", "grid", "tiered" };
+    private static final int[] SIZES = { 1000, 10000, 100000 };
+    private static final int PAIRS = 1024;
+    private static final int QUADRATIC_LIMIT = 10000;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+    private static volatile double sink;        // consumes every result
+
+    // one benchmark: runs the operation once and returns something that depends on its result
+    private interface Operation {
+        double run(int i) throws IOException;
+    }
+
+    // This class should not be instantiated.
+    private AnalysisBenchmark() { }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    /**
+     * Returns a topology of the named family with about {@code V} vertices.
+     *
+     * @param  family {@code random}, {@code geometric}, {@code scale-free}, {@code grid} or {@code tiered}
+     * @param  V the number of vertices
+     * @param  seed the seed for the random number generator
+     * @return the topology
+     * @throws IllegalArgumentException if the family is unknown
+     */
+    public static EdgeWeightedGraph topology(String family, int V, long seed) {
+        switch (family) {
+            case "random":     return TopologyGenerator.random(V, 3 * V, seed);
+            case "geometric":  return TopologyGenerator.geometric(V, 6, seed);
+            case "scale-free": return TopologyGenerator.scaleFree(V, 3, seed);
+            case "grid":       int rows = (int) Math.sqrt(V);
+                               return TopologyGenerator.grid(rows, V / rows, seed);
+            case "tiered":     return TopologyGenerator.tiered(V, seed);
+            default: throw new IllegalArgumentException("Unknown topology " + family);
+        }
+    }
+
+    /**
+     * Runs the benchmarks selected by the command-line arguments.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if a temporary topology file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String topologies = ".*";
+        String benchmarks = ".*";
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-t")) topologies = args[++i];
+            else if (args[i].equals("-b")) benchmarks = args[++i];
+            else sizes.add(Integer.parseInt(args[i]));
+        }
+        if (sizes.isEmpty()) for (int V : SIZES) sizes.add(V);
+
+        System.out.printf("%-11s %9s %9s  %-26s %31s %14s%n", "topology", "V", "E", "benchmark", "ns/op", "B/op");
+        for (String family : TOPOLOGIES) {
+            if (!family.matches(topologies)) continue;
+            for (int V : sizes) {
+                EdgeWeightedGraph G = topology(family, V, 42);
+                run(family, G, benchmarks);
+            }
+        }
+    }
+
+    // every selected benchmark on one topology
+    private static void run(String family, EdgeWeightedGraph G, String benchmarks) throws IOException {
+        int V = G.V();
+        List<Edge> edges = new ArrayList<Edge>(G.E());
+        for (Edge e : G.edges()) edges.add(e);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] from = new int[PAIRS];
+        int[] to = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = random.nextInt(V);
+            to[i] = random.nextInt(V);
+        }
+
+        File file = File.createTempFile("topology", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            TopologyGenerator.write(G, out);
+        }
+        String path = file.getPath();
+
+        if ("load".matches(benchmarks))
+            report(family, G, "load", measure(i -> MappedTopologyReader.read(path).buildGraph().E(), 1));
+        if ("addEdge".matches(benchmarks))
+            report(family, G, "addEdge", measure(i -> {
+                EdgeWeightedGraph H = new EdgeWeightedGraph(V);
+                for (Edge e : edges) H.addEdge(e);
+                return H.E();
+            }, edges.size()));
+        if ("lowestLatencyPath".matches(benchmarks))
+            report(family, G, "lowestLatencyPath", measure(i -> {
+                int k = i & (PAIRS - 1);
+                return G.lowestLatencyPath(from[k], to[k]).latency();
+            }, 1));
+        if ("constrainedPath".matches(benchmarks)) {
+            EdgeFilter filter = G.filter().minBandwidth(100).excluding(0);
+            report(family, G, "constrainedPath", measure(i -> {
+                int k = i & (PAIRS - 1);
+                return G.lowestLatencyPath(from[k], to[k], filter).latency();
+            }, 1));
+        }
+        if ("widestPath".matches(benchmarks))
+            report(family, G, "widestPath", measure(i -> {
+                int k = i & (PAIRS - 1);
+                return G.widestPath(from[k], to[k]).bandwidth();
+            }, 1));
+        if ("bottleneck".matches(benchmarks))
+            report(family, G, "bottleneck", measure(i -> {
+                int k = i & (PAIRS - 1);
+                return G.maxBandwidthTree().bandwidth(from[k], to[k]);
+            }, 1));
+        if ("lowestLatencySpanningTree".matches(benchmarks))
+            report(family, G, "lowestLatencySpanningTree", measure(i -> G.lowestLatencySpanningTree().weight(), 1));
+        if ("remainConnected".matches(benchmarks))
+            report(family, G, "remainConnected", measure(i -> G.remainConnected().articulationPoints().length, 1));
+        if ("survivesTwoFailures".matches(benchmarks) && V <= QUADRATIC_LIMIT)
+            report(family, G, "survivesTwoFailures", measure(i -> G.remainConnected().survivesTwoFailures() ? 1 : 0, 1));
+        if ("copperOnly".matches(benchmarks))
+            report(family, G, "copperOnly", measure(i -> G.copperOnly() ? 1 : 0, 1));
+        file.delete();
+    }
+
+    private static void report(String family, EdgeWeightedGraph G, String benchmark, double[] result) {
+        System.out.printf("%-11s %9d %9d  %-26s %16.1f +- %12.1f %14.1f%n",
+                          family, G.V(), G.E(), benchmark, result[0], result[1], result[2]);
+    }
+
+    // mean and standard deviation of ns per unit, and bytes allocated per unit, over the measured iterations
+    private static double[] measure(Operation operation, int units) throws IOException {
+        double[] nanos = new double[MEASUREMENT_ITERATIONS];
+        double bytes = 0;
+        int i = 0;
+        for (int iteration = -WARMUP_ITERATIONS; iteration < MEASUREMENT_ITERATIONS; iteration++) {
+            long calls = 0;
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += operation.run(i++);
+                calls++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_NANOS);
+            allocated = allocatedBytes() - allocated;
+            if (iteration < 0) continue;
+            nanos[iteration] = elapsed / (double) (calls * units);
+            bytes += allocated / (double) (calls * units);
+        }
+
+        double mean = 0;
+        for (double t : nanos) mean += t / MEASUREMENT_ITERATIONS;
+        double variance = 0;
+        for (double t : nanos) variance += (t - mean) * (t - mean) / (MEASUREMENT_ITERATIONS - 1);
+        double allocation = THREADS == null ? Double.NaN : bytes / MEASUREMENT_ITERATIONS;
+        return new double[] { mean, Math.sqrt(variance), allocation };
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
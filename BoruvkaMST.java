@@ -0,0 +1,202 @@
+//BoruvkaMST.java
+
+
+/******************************************************************************
+ *  Compilation:  javac BoruvkaMST.java
+ *  Execution:    java NetworkBenchmark boruvka V E
+ *
+ *  Compute a minimum spanning forest using a parallel version of
+ *  Boruvka's algorithm.
+ *
+ ******************************************************************************/
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *  The {@code BoruvkaMST} class computes a minimum spanning tree (or forest)
+ *  of a {@link CSRGraph} using Borůvka's algorithm, run in parallel on a
+ *  {@link ForkJoinPool}. Each phase
+ *  <ol>
+ *  <li>scans the edges in parallel ranges and records, for every component,
+ *      the cheapest edge leaving it, with a compare-and-set loop on an
+ *      {@link AtomicIntegerArray} indexed by component root; and
+ *  <li>adds every recorded edge to the tree in parallel, contracting the
+ *      components it joins with a lock-free {@link ConcurrentUF}.
+ *  </ol>
+ *  Each phase at least halves the number of components, so there are at most
+ *  log <em>V</em> phases and the algorithm takes time proportional to
+ *  <em>E</em> log <em>V</em> divided by the number of cores.
+ *  <p>
+ *  Edges are compared by latency and then by id, the same order in which
+ *  {@link KruskalMST} takes them, so the two produce exactly the same tree
+ *  (and the same average latency) even when latencies tie.
+ */
+public class BoruvkaMST implements SpanningTree {
+    private static final int GRAIN = 1 << 14;     // edges or vertices per leaf task
+
+    private final CSRGraph G;
+    private final int[] mst;
+    private final double weight;
+
+    /**
+     * Compute a minimum spanning tree (or forest) of an edge-weighted graph
+     * on the common fork-join pool.
+     *
+     * @param  G the edge-weighted graph
+     */
+    public BoruvkaMST(CSRGraph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute a minimum spanning tree (or forest) of an edge-weighted graph
+     * on the given pool.
+     *
+     * @param  G the edge-weighted graph
+     * @param  pool the pool that runs the phases
+     */
+    public BoruvkaMST(CSRGraph G, ForkJoinPool pool) {
+        this.G = G;
+        int V = G.V();
+        ConcurrentUF uf = new ConcurrentUF(V);
+        AtomicIntegerArray cheapest = new AtomicIntegerArray(V);
+        boolean[] inTree = new boolean[G.E()];
+        for (int v = 0; v < V; v++) cheapest.set(v, -1);
+
+        int count = 0;
+        while (true) {
+            pool.invoke(new FindCheapest(uf, cheapest, 0, G.E()));
+            int added = pool.invoke(new Contract(uf, cheapest, inTree, 0, V));
+            if (added == 0) break;
+            count += added;
+        }
+
+        int[] ids = new int[count];
+        int n = 0;
+        for (int e = 0; e < inTree.length; e++) {
+            if (inTree[e]) ids[n++] = e;
+        }
+        mst = KruskalMST.sortByLatency(G, ids);
+        double total = 0;
+        for (int e : mst) total += G.latency(e);
+        weight = total;
+    }
+
+    // is edge e cheaper than edge f in the (latency, id) order?
+    private boolean less(int e, int f) {
+        double a = G.latency(e);
+        double b = G.latency(f);
+        return a < b || (a == b && e < f);
+    }
+
+    // records e as the cheapest edge leaving the component rooted at root, if it is
+    private void offer(AtomicIntegerArray cheapest, int root, int e) {
+        while (true) {
+            int current = cheapest.get(root);
+            if (current != -1 && !less(e, current)) return;
+            if (cheapest.compareAndSet(root, current, e)) return;
+        }
+    }
+
+    // phase step 1: cheapest edge leaving each component, over edges lo .. hi-1
+    private class FindCheapest extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final ConcurrentUF uf;
+        private final AtomicIntegerArray cheapest;
+        private final int lo;
+        private final int hi;
+
+        private FindCheapest(ConcurrentUF uf, AtomicIntegerArray cheapest, int lo, int hi) {
+            this.uf = uf;
+            this.cheapest = cheapest;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new FindCheapest(uf, cheapest, lo, mid), new FindCheapest(uf, cheapest, mid, hi));
+                return;
+            }
+            for (int e = lo; e < hi; e++) {
+                int v = G.either(e);
+                int rootV = uf.find(v);
+                int rootW = uf.find(G.other(e, v));
+                if (rootV == rootW) continue;
+                offer(cheapest, rootV, e);
+                offer(cheapest, rootW, e);
+            }
+        }
+    }
+
+    // phase step 2: add the cheapest edges of components rooted at lo .. hi-1 and merge them;
+    // returns the number of edges added
+    private class Contract extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final ConcurrentUF uf;
+        private final AtomicIntegerArray cheapest;
+        private final boolean[] inTree;
+        private final int lo;
+        private final int hi;
+
+        private Contract(ConcurrentUF uf, AtomicIntegerArray cheapest, boolean[] inTree, int lo, int hi) {
+            this.uf = uf;
+            this.cheapest = cheapest;
+            this.inTree = inTree;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                Contract left = new Contract(uf, cheapest, inTree, lo, mid);
+                left.fork();
+                int right = new Contract(uf, cheapest, inTree, mid, hi).compute();
+                return left.join() + right;
+            }
+            int added = 0;
+            for (int root = lo; root < hi; root++) {
+                int e = cheapest.get(root);
+                if (e == -1) continue;
+                cheapest.set(root, -1);
+                int v = G.either(e);
+                // two components may pick the same edge; only one union succeeds
+                if (uf.union(v, G.other(e, v))) {
+                    inTree[e] = true;
+                    added++;
+                }
+            }
+            return added;
+        }
+    }
+
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the ids of the edges in a minimum spanning tree (or forest),
+     * in ascending order of latency.
+     *
+     * @return the edge ids of a minimum spanning tree (or forest)
+     */
+    public int[] edges() {
+        return mst.clone();
+    }
+
+    /**
+     * Returns the sum of the edge latencies in a minimum spanning tree (or forest).
+     *
+     * @return the sum of the edge latencies in a minimum spanning tree (or forest)
+     */
+    public double weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,598 @@
+//CSRGraph.java
+
+
+/******************************************************************************
+ *  Compilation:  javac CSRGraph.java
+ *  Execution:    java NetworkBenchmark csr V E
+ *
+ *  Immutable edge-weighted graph stored in compressed-sparse-row form.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *  The {@code CSRGraph} class is an immutable, array-backed version of an
+ *  {@link EdgeWeightedGraph}. Instead of a chain of {@link EdgeNode} objects per
+ *  vertex, the edges incident to vertex <em>v</em> occupy the contiguous
+ *  <em>slots</em> {@code begin(v)} through {@code end(v) - 1} of a handful of
+ *  primitive arrays, so a traversal walks memory sequentially.
+ *  <p>
+ *  Every edge is named by an integer id from 0 to <em>E</em> – 1, assigned in
+ *  the order the edges were added. Each slot records the neighbor, the id of
+ *  the edge leading to it and a copy of that edge's latency (the hot field of
+ *  every search). The remaining attributes (endpoints, length, bandwidth and
+ *  cable type) are kept once per edge id. A self-loop occupies two slots of
+ *  its vertex, just as it appears twice in the adjacency list of an
+ *  {@code EdgeWeightedGraph}.
+ *  <p>
+ *  All operations take constant time except the analyses, which take the same
+ *  time as their {@code EdgeWeightedGraph} counterparts. Construction takes
+ *  time proportional to <em>E</em> + <em>V</em>.
+ */
+public class CSRGraph {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final int V;
+    private final int E;
+    private long version;               // of the EdgeWeightedGraph copied, set once by the constructor
+
+    // adjacency of v is slots offset[v] .. offset[v+1]-1
+    private final int[] offset;
+    private final int[] adj;            // neighbor at each slot
+    private final int[] adjEdge;        // edge id at each slot
+    private final double[] adjLatency;  // latency of the edge at each slot
+
+    // attributes indexed by edge id
+    private final int[] either;
+    private final int[] other;
+    private final double[] length;
+    private final double[] latency;
+    private final int[] bandwidth;
+    private final boolean[] copper;
+    private volatile long[][] cableBits;    // bitsets of the copper and the optical edges, built on first use
+
+    /**
+     * Initializes a CSR graph with the same vertices, edges and adjacency
+     * order as the given graph.
+     *
+     * @param  G the edge-weighted graph to copy
+     */
+    public CSRGraph(EdgeWeightedGraph G) {
+        this(G.V(), G.E(), edgeArrays(G));
+        this.version = G.version();
+    }
+
+    /**
+     * Initializes a CSR graph from parallel arrays of edge attributes.
+     * Edge {@code e} joins {@code either[e]} and {@code other[e]}; the
+     * arrays are owned by the new graph and must not be modified afterwards.
+     *
+     * @param  V the number of vertices
+     * @param  E the number of edges (a prefix of each array)
+     * @param  either the first endpoint of each edge
+     * @param  other the second endpoint of each edge
+     * @param  length the length of each edge
+     * @param  bandwidth the bandwidth of each edge
+     * @param  copper whether each edge is a copper cable
+     * @throws IllegalArgumentException if an endpoint is not between {@code 0} and {@code V-1}
+     */
+    public CSRGraph(int V, int E, int[] either, int[] other, double[] length, int[] bandwidth, boolean[] copper) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        if (E < 0) throw new IllegalArgumentException("Number of edges must be nonnegative");
+        this.V = V;
+        this.E = E;
+        this.either = either;
+        this.other = other;
+        this.length = length;
+        this.bandwidth = bandwidth;
+        this.copper = copper;
+        this.latency = new double[E];
+        for (int e = 0; e < E; e++) {
+            latency[e] = length[e] / (double) (copper[e] ? Edge.COPPER_SPEED : Edge.OPTICAL_SPEED);
+        }
+
+        // count degrees, then place each edge in both endpoint ranges in id order
+        offset = new int[V + 1];
+        for (int e = 0; e < E; e++) {
+            validateVertex(either[e]);
+            validateVertex(other[e]);
+            offset[either[e] + 1]++;
+            offset[other[e] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            offset[v + 1] += offset[v];
+        }
+        adj = new int[2 * E];
+        adjEdge = new int[2 * E];
+        adjLatency = new double[2 * E];
+        int[] next = new int[V];
+        System.arraycopy(offset, 0, next, 0, V);
+        for (int e = 0; e < E; e++) {
+            int v = either[e];
+            int w = other[e];
+            place(next[v]++, w, e);
+            place(next[w]++, v, e);
+        }
+    }
+
+    // takes ownership of complete, consistent arrays, as stored in a snapshot
+    CSRGraph(int V, int E, int[] offset, int[] adj, int[] adjEdge, double[] adjLatency,
+             int[] either, int[] other, double[] length, double[] latency, int[] bandwidth, boolean[] copper) {
+        this.V = V;
+        this.E = E;
+        this.offset = offset;
+        this.adj = adj;
+        this.adjEdge = adjEdge;
+        this.adjLatency = adjLatency;
+        this.either = either;
+        this.other = other;
+        this.length = length;
+        this.latency = latency;
+        this.bandwidth = bandwidth;
+        this.copper = copper;
+    }
+
+    private CSRGraph(int V, int E, Object[] arrays) {
+        this(V, E, (int[]) arrays[0], (int[]) arrays[1], (double[]) arrays[2],
+             (int[]) arrays[3], (boolean[]) arrays[4]);
+    }
+
+    // unpacks the edges of G into parallel arrays, in insertion order
+    private static Object[] edgeArrays(EdgeWeightedGraph G) {
+        int E = G.E();
+        int[] either = new int[E];
+        int[] other = new int[E];
+        double[] length = new double[E];
+        int[] bandwidth = new int[E];
+        boolean[] copper = new boolean[E];
+        int e = 0;
+        for (Edge edge : G.edges()) {
+            either[e] = edge.either();
+            other[e] = edge.other(either[e]);
+            length[e] = edge.length();
+            bandwidth[e] = edge.bandwidth();
+            copper[e] = edge.isCopper();
+            e++;
+        }
+        return new Object[] { either, other, length, bandwidth, copper };
+    }
+
+    private void place(int slot, int neighbor, int e) {
+        adj[slot] = neighbor;
+        adjEdge[slot] = e;
+        adjLatency[slot] = latency[e];
+    }
+
+    /**
+     * Returns the {@link EdgeWeightedGraph#version() version} of the
+     * {@code EdgeWeightedGraph} this graph was copied from.
+     *
+     * @return the version copied, or 0 if this graph was not copied from an {@code EdgeWeightedGraph}
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in this graph.
+     *
+     * @return the number of edges in this graph
+     */
+    public int E() {
+        return E;
+    }
+
+    /**
+     * Returns the first adjacency slot of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the first slot of {@code v}
+     */
+    public int begin(int v) {
+        return offset[v];
+    }
+
+    /**
+     * Returns one past the last adjacency slot of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return one past the last slot of {@code v}
+     */
+    public int end(int v) {
+        return offset[v + 1];
+    }
+
+    /**
+     * Returns the vertex at the far end of adjacency slot {@code slot}.
+     *
+     * @param  slot the adjacency slot
+     * @return the neighbor stored in that slot
+     */
+    public int neighbor(int slot) {
+        return adj[slot];
+    }
+
+    /**
+     * Returns the id of the edge stored in adjacency slot {@code slot}.
+     *
+     * @param  slot the adjacency slot
+     * @return the edge id stored in that slot
+     */
+    public int edgeAt(int slot) {
+        return adjEdge[slot];
+    }
+
+    /**
+     * Returns the latency of the edge stored in adjacency slot {@code slot}.
+     *
+     * @param  slot the adjacency slot
+     * @return the latency of the edge in that slot
+     */
+    public double slotLatency(int slot) {
+        return adjLatency[slot];
+    }
+
+    /**
+     * Returns the first endpoint of edge {@code e}.
+     *
+     * @param  e the edge id
+     * @return the first endpoint of {@code e}
+     */
+    public int either(int e) {
+        return either[e];
+    }
+
+    /**
+     * Returns the endpoint of edge {@code e} that is different from {@code vertex}.
+     *
+     * @param  e the edge id
+     * @param  vertex one endpoint of {@code e}
+     * @return the other endpoint of {@code e}
+     * @throws IllegalArgumentException if the vertex is not an endpoint of {@code e}
+     */
+    public int other(int e, int vertex) {
+        if      (vertex == either[e]) return other[e];
+        else if (vertex == other[e])  return either[e];
+        else throw new IllegalArgumentException("Illegal endpoint");
+    }
+
+    /**
+     * Returns the latency of edge {@code e}.
+     *
+     * @param  e the edge id
+     * @return the latency of {@code e}
+     */
+    public double latency(int e) {
+        return latency[e];
+    }
+
+    /**
+     * Returns the length of edge {@code e}.
+     *
+     * @param  e the edge id
+     * @return the length of {@code e}
+     */
+    public double length(int e) {
+        return length[e];
+    }
+
+    /**
+     * Returns the bandwidth of edge {@code e}.
+     *
+     * @param  e the edge id
+     * @return the bandwidth of {@code e}
+     */
+    public int bandwidth(int e) {
+        return bandwidth[e];
+    }
+
+    /**
+     * Returns true if edge {@code e} is a copper cable.
+     *
+     * @param  e the edge id
+     * @return {@code true} if {@code e} is copper, {@code false} if it is optical
+     */
+    public boolean isCopper(int e) {
+        return copper[e];
+    }
+
+    /**
+     * Returns a new {@link Edge} object equal to edge {@code e}.
+     *
+     * @param  e the edge id
+     * @return the edge with id {@code e}
+     */
+    public Edge edge(int e) {
+        return new Edge(either[e], other[e], length[e], copper[e] ? "copper" : "optical", bandwidth[e]);
+    }
+
+    /**
+     * Returns the degree of vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the degree of vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int degree(int v) {
+        validateVertex(v);
+        return offset[v + 1] - offset[v];
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the arrays of this graph.
+     *
+     * @return the approximate size of this graph in bytes
+     */
+    public long memoryBytes() {
+        long slots = 2L * E;
+        return 4L * (V + 1)            // offset
+             + slots * (4 + 4 + 8)     // adj, adjEdge, adjLatency
+             + (long) E * (4 + 4 + 8 + 8 + 4 + 1);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    // the bitset of the copper edges, or of the optical ones, shared by every EdgeFilter of this graph
+    long[] cableBits(boolean copper) {
+        long[][] bits = cableBits;
+        if (bits == null) {
+            bits = new long[2][(E + 63) >>> 6];
+            for (int e = 0; e < E; e++) bits[this.copper[e] ? 0 : 1][e >>> 6] |= 1L << e;
+            cableBits = bits;
+        }
+        return bits[copper ? 0 : 1];
+    }
+
+    // throw an IllegalArgumentException unless the filter selects edges of this graph
+    private void validateFilter(EdgeFilter filter) {
+        if (filter.graph() != this)
+            throw new IllegalArgumentException("the filter belongs to another graph");
+    }
+
+    /**
+     *Determines whether the graph would stay connected if any two vertices in the graph fail,
+     *and if not, which articulation points and separation pairs are responsible
+     *@return the survivability of the graph
+    */
+    public Survivability remainConnected(){
+        return new Survivability(this);
+    }
+
+    /**
+     * Returns the minimum spanning tree, computed with Kruskal's algorithm
+     * @return the tree edges and their average latency
+     */
+    public LatencySpanningTree lowestLatencySpanningTree(){
+        return lowestLatencySpanningTree("kruskal");
+    }
+
+    /**
+     * Returns the minimum spanning tree
+     * @param algorithm the spanning tree algorithm to use, {@code "kruskal"}, {@code "prim"} or {@code "boruvka"}
+     * @return the tree edges and their average latency
+     * @throws IllegalArgumentException if the algorithm is unknown
+     */
+    public LatencySpanningTree lowestLatencySpanningTree(String algorithm){
+        return new LatencySpanningTree(SpanningTree.of(this, algorithm));
+    }
+
+    /**
+     * Determines whether or not the graph is copper only connected
+     * @return {@code true} if every edge is a copper cable
+     */
+    public boolean copperOnly(){
+        for (int e = 0; e < E; e++) {
+            if (!copper[e]) return false;
+        }
+        return true;
+    }
+
+    /**
+     *Finds the lowest total latency path between two vertices,
+     *using Dijkstra's algorithm with an {@link IndexMinPQ}
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@return the path, its latency and its bandwidth
+     */
+    public LatencyPath lowestLatencyPath(int v, int w){
+        validateVertex(v);
+        validateVertex(w);
+        return lowestLatencyPath(v, w, 0, null, null);
+    }
+
+    /**
+     *Finds the lowest total latency path between two vertices that uses only
+     *the edges and vertices the filter allows, for instance the lowest latency
+     *route carrying at least some bandwidth. The filter is tested as each edge
+     *is relaxed, so no subgraph is built
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@param filter the edges and vertices the path may use
+     *@return the path, its latency and its bandwidth; there is no path if v or w is excluded
+     *@throws IllegalArgumentException if the filter belongs to another graph
+     */
+    public LatencyPath lowestLatencyPath(int v, int w, EdgeFilter filter){
+        validateVertex(v);
+        validateVertex(w);
+        validateFilter(filter);
+        if (!filter.allowsVertex(v) || !filter.allowsVertex(w))
+            return new LatencyPath(this, v, w, null, Double.POSITIVE_INFINITY);
+        return lowestLatencyPath(v, w, filter.minBandwidthValue(), filter.cableBits(), filter.vertexBits());
+    }
+
+    // Dijkstra's algorithm from v, stopping at w, over the edges with at least the given
+    // bandwidth whose bits are set in cableBits, and the vertices set in vertexBits (either if not null).
+    // A settled vertex is never reached again, so a link of negative length cannot keep the search going
+    private LatencyPath lowestLatencyPath(int v, int w, int minBandwidth, long[] cableBits, long[] vertexBits){
+        double[] distance = new double[V];
+        int[] via = new int[V];
+        boolean[] settled = new boolean[V];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        IndexMinPQ pq = new IndexMinPQ(V);
+        distance[v] = 0;
+        pq.insert(v, 0);
+        while (!pq.isEmpty()) {
+            int current = pq.delMin();
+            if (current == w) break;
+            settled[current] = true;
+            for (int k = offset[current]; k < offset[current + 1]; k++) {
+                int e = adjEdge[k];
+                int x = adj[k];
+                if (settled[x]) continue;
+                if (minBandwidth > 0 && bandwidth[e] < minBandwidth) continue;
+                if (!allowed(cableBits, vertexBits, e, x)) continue;
+                double distanceTo = distance[current] + adjLatency[k];
+                if (distanceTo < distance[x]) {
+                    distance[x] = distanceTo;
+                    via[x] = e;
+                    pq.insertOrDecrease(x, distanceTo);
+                }
+            }
+        }
+        if (distance[w] == Double.POSITIVE_INFINITY) return new LatencyPath(this, v, w, null, distance[w]);
+
+        int count = 0;
+        for (int current = w; current != v; current = other(via[current], current)) count++;
+        int[] path = new int[count];
+        for (int current = w; current != v; current = other(via[current], current)) path[--count] = via[current];
+        return new LatencyPath(this, v, w, path, distance[w]);
+    }
+
+    // may a search take edge e to vertex x?
+    private static boolean allowed(long[] cableBits, long[] vertexBits, int e, int x) {
+        return (cableBits == null || (cableBits[e >>> 6] & (1L << e)) != 0)
+            && (vertexBits == null || (vertexBits[x >>> 6] & (1L << x)) != 0);
+    }
+
+    /**
+     *Finds a widest path between two vertices: of the paths whose narrowest edge
+     *has the largest bandwidth, the one with the lowest total latency.
+     *A first search, Dijkstra's algorithm with an {@link IndexMinPQ} keyed on the
+     *negated bottleneck bandwidth, finds that bandwidth; a second finds the lowest
+     *latency path over the edges at least that wide. Both stop as soon as w is settled.
+     *For many queries on one graph, a {@link MaxBandwidthTree} answers the bandwidth faster
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@return the path, its latency and its bandwidth
+     */
+    public LatencyPath widestPath(int v, int w){
+        validateVertex(v);
+        validateVertex(w);
+        return widestPath(v, w, 0, null, null);
+    }
+
+    /**
+     *Finds a widest path between two vertices that uses only the edges and
+     *vertices the filter allows, breaking ties in bandwidth by latency
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@param filter the edges and vertices the path may use
+     *@return the path, its latency and its bandwidth; there is no path if v or w is excluded
+     *@throws IllegalArgumentException if the filter belongs to another graph
+     */
+    public LatencyPath widestPath(int v, int w, EdgeFilter filter){
+        validateVertex(v);
+        validateVertex(w);
+        validateFilter(filter);
+        if (!filter.allowsVertex(v) || !filter.allowsVertex(w))
+            return new LatencyPath(this, v, w, null, Double.POSITIVE_INFINITY);
+        return widestPath(v, w, filter.minBandwidthValue(), filter.cableBits(), filter.vertexBits());
+    }
+
+    private LatencyPath widestPath(int v, int w, int minBandwidth, long[] cableBits, long[] vertexBits){
+        int[] width = new int[V];           // width[x] = largest bottleneck of a path found from v to x, or -1
+        Arrays.fill(width, -1);
+        IndexMinPQ pq = new IndexMinPQ(V);
+        width[v] = Integer.MAX_VALUE;
+        pq.insert(v, -width[v]);
+        while (!pq.isEmpty()) {
+            int current = pq.delMin();
+            if (current == w) break;
+            for (int k = offset[current]; k < offset[current + 1]; k++) {
+                int e = adjEdge[k];
+                int x = adj[k];
+                if (minBandwidth > 0 && bandwidth[e] < minBandwidth) continue;
+                if (!allowed(cableBits, vertexBits, e, x)) continue;
+                int widthTo = Math.min(width[current], bandwidth[e]);
+                if (widthTo > width[x]) {
+                    width[x] = widthTo;
+                    pq.insertOrDecrease(x, -widthTo);
+                }
+            }
+        }
+        if (width[w] == -1) return new LatencyPath(this, v, w, null, Double.POSITIVE_INFINITY);
+        return lowestLatencyPath(v, w, width[w], cableBits, vertexBits);
+    }
+
+    /**
+     * Returns an index answering widest-path queries between any two vertices.
+     *
+     * @return the maximum bandwidth spanning forest of this graph
+     */
+    public MaxBandwidthTree maxBandwidthTree(){
+        return new MaxBandwidthTree(this);
+    }
+
+    /**
+     * Returns an index answering lowest latency queries between any two vertices.
+     *
+     * @return the contraction hierarchy of this graph
+     */
+    public ContractionHierarchy contractionHierarchy(){
+        return new ContractionHierarchy(this);
+    }
+
+    /**
+     *Finds the K lowest latency loopless paths between two vertices, for
+     *planning backup routes, with the spur searches on the common fork-join pool
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@param K the number of paths wanted
+     *@return the paths, in order of latency, with their bandwidths
+     *@throws IllegalArgumentException unless {@code K >= 1}
+     */
+    public List<LatencyPath> kShortestPaths(int v, int w, int K){
+        validateVertex(v);
+        validateVertex(w);
+        return new KShortestPaths(this, v, w, K).paths();
+    }
+
+    /**
+     * Returns a string representation of this graph, in the same format
+     * as {@link EdgeWeightedGraph#toString()}.
+     * This method takes time proportional to <em>E</em> + <em>V</em>.
+     *
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *         followed by the <em>V</em> adjacency lists of edges
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V).append(' ').append(E).append(NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v).append(": ");
+            for (int k = offset[v]; k < offset[v + 1]; k++) {
+                int e = adjEdge[k];
+                s.append(either[e]).append('-').append(other[e]).append(' ')
+                 .append(latency[e]).append("  ");
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+}
@@ -0,0 +1,260 @@
+//ChangeLogTailer.java
+
+
+/******************************************************************************
+ *  Compilation:  javac ChangeLogTailer.java
+ *  Execution:    java ChangeLogTailer network_data2.txt changes.log
+ *
+ *  Follows an append-only log of link changes and applies them to a live
+ *  EdgeWeightedGraph in batches.
+ *
+ *  % cat changes.log
+ *  # link 3-5 goes down, a new optical link comes up, 6-8 is rerouted
+ *  remove 3 5
+ *  add 3 4 optical 1000 30
+ *  update 6 8 55
+ *
+ *  % java ChangeLogTailer network_data2.txt changes.log
+ *  version 13: 13 edges
+ *  version 16: 3 changes applied, 0 rejected, 13 edges
+ *
+ ******************************************************************************/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  The {@code ChangeLogTailer} class keeps an {@link EdgeWeightedGraph} in
+ *  step with an append-only text file of link changes, one record per line:
+ *  <ul>
+ *  <li>{@code add v w cable bandwidth length} adds a link, with the fields of
+ *      the topology file format;
+ *  <li>{@code remove v w} removes a link between <em>v</em> and <em>w</em>;
+ *  <li>{@code update v w length} changes the length, and so the latency, of
+ *      a link between <em>v</em> and <em>w</em>.
+ *  </ul>
+ *  Blank lines and lines starting with {@code #} are ignored.
+ *  <p>
+ *  Each call to {@link #poll} reads everything appended to the log since the
+ *  previous call and applies the complete records, in order, as one batch; a
+ *  record still being written (without its newline) waits for the next poll.
+ *  Between polls the graph does not change, so every analysis run between
+ *  two polls sees one consistent topology, identified by the graph's
+ *  {@link EdgeWeightedGraph#version() version}, which only ever increases.
+ *  The tailer is the graph's single writer: after each batch it publishes
+ *  the new version as the graph's {@link EdgeWeightedGraph#snapshot()
+ *  snapshot}, and readers on other threads move to it with their next
+ *  query. Results cached against a snapshot, such as a
+ *  {@link ShortestPathCache}, are dropped as soon as a newer one is published.
+ *  <p>
+ *  A record that cannot be applied, because it is malformed, names a vertex
+ *  that does not exist or a link that is not there, is skipped and counted
+ *  as rejected, and the reason is kept in {@link #lastError}. A poll takes
+ *  time proportional to the number of bytes appended plus the cost of the
+ *  changes themselves.
+ */
+public class ChangeLogTailer implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final EdgeWeightedGraph G;
+    private final Path log;
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private long position;          // offset of the first byte not yet applied
+    private long line = 1;          // line number of that byte
+    private long applied;
+    private long rejected;
+    private String lastError;
+
+    /**
+     * Opens the change log {@code log} for {@code G}, starting at its first record.
+     *
+     * @param  G the graph to keep up to date
+     * @param  log the change log
+     * @throws IOException if the log cannot be opened
+     */
+    public ChangeLogTailer(EdgeWeightedGraph G, Path log) throws IOException {
+        this.G = G;
+        this.log = log;
+        this.channel = FileChannel.open(log, StandardOpenOption.READ);
+    }
+
+    /**
+     * Applies every complete record appended to the log since the last call,
+     * as one batch.
+     *
+     * @return the number of records applied
+     * @throws IOException if the log cannot be read
+     * @throws IllegalStateException if the log has become shorter than the part already applied
+     */
+    public int poll() throws IOException {
+        long size = channel.size();
+        if (size < position)
+            throw new IllegalStateException("change log " + log + " was truncated below offset " + position);
+        int count = 0;
+        // hold the writer's lock for the whole batch, so no snapshot of half of it is published
+        G.writeLock().lock();
+        try {
+            count = applyUpTo(size);
+            if (count > 0) G.toCSR();      // publish the new version, so readers do not have to build it
+        }
+        finally {
+            G.writeLock().unlock();
+        }
+        return count;
+    }
+
+    // applies the complete records before offset size, returning how many changed the graph
+    private int applyUpTo(long size) throws IOException {
+        int count = 0;
+        while (position < size) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), size - position));
+            int n = channel.read(buffer, position);
+            if (n <= 0) break;
+            byte[] bytes = buffer.array();
+            int start = 0;
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] != '\n') continue;
+                if (apply(new String(bytes, start, i - start, StandardCharsets.US_ASCII))) count++;
+                line++;
+                start = i + 1;
+            }
+            if (start == 0) {
+                if (n < buffer.capacity()) break;                          // the last record is not finished yet
+                buffer = ByteBuffer.allocate(2 * buffer.capacity());     // a record longer than the buffer
+                continue;
+            }
+            position += start;
+        }
+        return count;
+    }
+
+    // applies one record, returning true if it changed the graph
+    private boolean apply(String record) {
+        String[] field = record.trim().split("\\s+");
+        if (field[0].isEmpty() || field[0].startsWith("#")) return false;
+        try {
+            boolean changed;
+            switch (field[0]) {
+                case "add":
+                    expectFields(field, 6);
+                    G.addEdge(new Edge(Integer.parseInt(field[1]), Integer.parseInt(field[2]), Double.parseDouble(field[5]),
+                                       field[3], Integer.parseInt(field[4])));
+                    changed = true;
+                    break;
+                case "remove":
+                    expectFields(field, 3);
+                    changed = G.removeEdge(Integer.parseInt(field[1]), Integer.parseInt(field[2])) != null;
+                    break;
+                case "update":
+                    expectFields(field, 4);
+                    changed = G.updateEdge(Integer.parseInt(field[1]), Integer.parseInt(field[2]), Double.parseDouble(field[3])) != null;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown record type " + field[0]);
+            }
+            if (!changed) throw new IllegalArgumentException("no link between " + field[1] + " and " + field[2]);
+            applied++;
+            return true;
+        }
+        catch (IllegalArgumentException e) {
+            rejected++;
+            lastError = "line " + line + ": " + e.getMessage();
+            return false;
+        }
+    }
+
+    private static void expectFields(String[] field, int n) {
+        if (field.length != n)
+            throw new IllegalArgumentException(field[0] + " takes " + (n - 1) + " fields, not " + (field.length - 1));
+    }
+
+    /**
+     * Returns the version of the graph, which increases with every change applied.
+     *
+     * @return the version of the graph
+     */
+    public long version() {
+        return G.version();
+    }
+
+    /**
+     * Returns the offset in the log of the first byte not yet applied.
+     *
+     * @return the number of bytes of the log consumed
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of records applied so far.
+     *
+     * @return the number of records applied
+     */
+    public long applied() {
+        return applied;
+    }
+
+    /**
+     * Returns the number of records skipped so far because they could not be applied.
+     *
+     * @return the number of records rejected
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns why the most recently rejected record was skipped.
+     *
+     * @return the line number and reason, or {@code null} if no record has been rejected
+     */
+    public String lastError() {
+        return lastError;
+    }
+
+    /**
+     * Closes the change log.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the network in the file named by the first argument and follows
+     * the change log named by the second, printing a line for every batch.
+     * Runs until interrupted.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if a file cannot be read
+     * @throws InterruptedException if interrupted while waiting for changes
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        NetworkAnalysis.readGraphFile(args[0]);
+        EdgeWeightedGraph G = NetworkAnalysis.graph;
+        System.out.println("version " + G.version() + ": " + G.E() + " edges");
+        try (ChangeLogTailer tailer = new ChangeLogTailer(G, Paths.get(args[1]))) {
+            long rejected = 0;
+            while (true) {
+                int n = tailer.poll();
+                if (n > 0 || tailer.rejected() > rejected) {
+                    System.out.println("version " + tailer.version() + ": " + n + " changes applied, "
+                                       + (tailer.rejected() - rejected) + " rejected, " + G.E() + " edges");
+                    if (tailer.rejected() > rejected) System.out.println("  " + tailer.lastError());
+                    rejected = tailer.rejected();
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+}
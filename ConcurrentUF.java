@@ -0,0 +1,88 @@
+//ConcurrentUF.java
+
+
+/******************************************************************************
+ *  Compilation:  javac ConcurrentUF.java
+ *  Execution:    none
+ *
+ *  Lock-free union-find for use by many threads at once.
+ *
+ ******************************************************************************/
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *  The {@code ConcurrentUF} class is a <em>union–find data type</em> that
+ *  many threads can update at the same time without locks. The parent links
+ *  live in an {@link AtomicIntegerArray}: <em>find</em> compresses paths by
+ *  halving with compare-and-set (a failed update is harmless, since it only
+ *  shortens a path), and <em>union</em> links one root under the other with a
+ *  compare-and-set that fails, and is retried, if the root has meanwhile been
+ *  linked by another thread.
+ *  <p>
+ *  A root is always linked under a root with a smaller index, so concurrent
+ *  unions can never create a cycle. <em>union</em> returns {@code true} for
+ *  exactly one of any group of racing calls that merge the same two sets.
+ *  Operations take nearly constant amortized time when uncontended.
+ */
+public class ConcurrentUF {
+
+    private final AtomicIntegerArray parent;
+
+    /**
+     * Initializes a union–find data structure with {@code n} elements
+     * {@code 0} through {@code n-1}, each in its own set.
+     *
+     * @param  n the number of elements
+     * @throws IllegalArgumentException if {@code n < 0}
+     */
+    public ConcurrentUF(int n) {
+        if (n < 0) throw new IllegalArgumentException();
+        parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the canonical element of the set containing element {@code p}.
+     * The answer is exact unless another thread is merging that set.
+     *
+     * @param  p an element
+     * @return the canonical element of the set containing {@code p}
+     */
+    public int find(int p) {
+        while (true) {
+            int q = parent.get(p);
+            if (q == p) return p;
+            int r = parent.get(q);
+            if (r == q) return q;
+            parent.compareAndSet(p, q, r);    // path compression by halving
+            p = r;
+        }
+    }
+
+    /**
+     * Merges the set containing element {@code p} with the set
+     * containing element {@code q}.
+     *
+     * @param  p one element
+     * @param  q the other element
+     * @return {@code true} if this call merged the sets, {@code false} if
+     *         they were already the same set
+     */
+    public boolean union(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ) return false;
+            if (rootP < rootQ) {
+                int swap = rootP;
+                rootP = rootQ;
+                rootQ = swap;
+            }
+            // link the larger root under the smaller, if it is still a root
+            if (parent.compareAndSet(rootP, rootP, rootQ)) return true;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+//DoubleMinPQ.java
+
+
+/******************************************************************************
+ *  Compilation:  javac DoubleMinPQ.java
+ *  Execution:    java DoubleMinPQ
+ *
+ *  Minimum-oriented priority queue of int values with primitive double
+ *  priorities, implemented with a 4-ary heap in parallel arrays.
+ *
+ *  % java DoubleMinPQ
+ *  3 0.125
+ *  1 0.25
+ *  0 0.5
+ *  4 0.625
+ *  2 0.75
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ *  The {@code DoubleMinPQ} class represents a priority queue of {@code int}
+ *  values, typically edge or vertex ids, each with a {@code double} priority,
+ *  typically a latency. Unlike an {@link IndexMinPQ} it places no bound on
+ *  the values and may hold the same value more than once, so it suits lazy
+ *  algorithms that insert an entry per edge and skip stale ones, and unlike
+ *  a {@link MinPQ} it stores no objects and makes no comparator calls.
+ *  It supports the usual <em>insert</em> and <em>delete-the-minimum</em>
+ *  operations, along with building the queue from arrays in one step.
+ *  <p>
+ *  This implementation uses a 4-ary heap stored in a {@code double[]} of
+ *  priorities and an {@code int[]} of values. The <em>insert</em> and
+ *  <em>delete-the-minimum</em> operations take logarithmic amortized time;
+ *  the arrays double when full and never shrink, so a queue reused with
+ *  {@link #clear()} stops allocating once it has reached its peak size.
+ *  Building the queue from arrays with {@link #DoubleMinPQ(double[], int[])}
+ *  takes linear time. The <em>min-key</em>, <em>min-value</em>,
+ *  <em>size</em> and <em>is-empty</em> operations take constant time.
+ */
+public class DoubleMinPQ {
+    private double[] keys;      // keys[k] = priority of the entry at heap position k
+    private int[] values;       // values[k] = value of the entry at heap position k
+    private int n;              // number of entries on the queue
+
+    /**
+     * Initializes an empty priority queue.
+     */
+    public DoubleMinPQ() {
+        this(16);
+    }
+
+    /**
+     * Initializes an empty priority queue with the given initial capacity.
+     *
+     * @param  initCapacity the initial capacity of this priority queue
+     * @throws IllegalArgumentException if {@code initCapacity < 0}
+     */
+    public DoubleMinPQ(int initCapacity) {
+        if (initCapacity < 0) throw new IllegalArgumentException("capacity is negative: " + initCapacity);
+        keys = new double[Math.max(initCapacity, 1)];
+        values = new int[keys.length];
+    }
+
+    /**
+     * Initializes a priority queue holding {@code values[i]} with priority
+     * {@code keys[i]} for every {@code i}, using bottom-up heap construction.
+     * The arrays are copied. Takes time proportional to their length.
+     *
+     * @param  keys the priorities
+     * @param  values the values
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public DoubleMinPQ(double[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("keys and values differ in length");
+        n = keys.length;
+        this.keys = Arrays.copyOf(keys, Math.max(n, 1));
+        this.values = Arrays.copyOf(values, this.keys.length);
+        for (int k = (n - 2) >>> 2; n > 1 && k >= 0; k--) {
+            sink(k, this.keys[k], this.values[k]);
+        }
+    }
+
+    /**
+     * Returns true if this priority queue is empty.
+     *
+     * @return {@code true} if this priority queue is empty;
+     *         {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Returns the number of entries on this priority queue.
+     *
+     * @return the number of entries on this priority queue
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Adds {@code value} with priority {@code key} to this priority queue.
+     *
+     * @param  value the value
+     * @param  key the priority of the value
+     */
+    public void insert(int value, double key) {
+        if (n == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * n);
+            values = Arrays.copyOf(values, 2 * n);
+        }
+        swim(n++, key, value);
+    }
+
+    /**
+     * Returns a smallest priority on this priority queue.
+     *
+     * @return a smallest priority
+     * @throws NoSuchElementException if this priority queue is empty
+     */
+    public double minKey() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        return keys[0];
+    }
+
+    /**
+     * Returns the value of an entry with the smallest priority.
+     *
+     * @return a value with the smallest priority
+     * @throws NoSuchElementException if this priority queue is empty
+     */
+    public int minValue() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        return values[0];
+    }
+
+    /**
+     * Removes an entry with the smallest priority and returns its value.
+     *
+     * @return a value with the smallest priority
+     * @throws NoSuchElementException if this priority queue is empty
+     */
+    public int delMin() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        int min = values[0];
+        if (--n > 0) sink(0, keys[n], values[n]);
+        return min;
+    }
+
+    /**
+     * Removes every entry from this priority queue, keeping its arrays for reuse.
+     */
+    public void clear() {
+        n = 0;
+    }
+
+   /***************************************************************************
+    * Heap helper functions.
+    ***************************************************************************/
+
+    // move the entry (key, value) up from position k, shifting larger parents down into the hole
+    private void swim(int k, double key, int value) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 2;
+            if (keys[parent] <= key) break;
+            keys[k] = keys[parent];
+            values[k] = values[parent];
+            k = parent;
+        }
+        keys[k] = key;
+        values[k] = value;
+    }
+
+    // move the entry (key, value) down from position k, shifting the smallest child up into the hole
+    private void sink(int k, double key, int value) {
+        while (true) {
+            int first = 4*k + 1;
+            if (first >= n) break;
+            int last = Math.min(first + 4, n);
+            int j = first;
+            double min = keys[first];
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < min) {
+                    min = keys[c];
+                    j = c;
+                }
+            }
+            if (key <= min) break;
+            keys[k] = min;
+            values[k] = values[j];
+            k = j;
+        }
+        keys[k] = key;
+        values[k] = value;
+    }
+
+
+    /**
+     * Unit tests the {@code DoubleMinPQ} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        double[] priorities = { 0.5, 0.25, 0.75, 0.125 };
+        DoubleMinPQ pq = new DoubleMinPQ(priorities, new int[] { 0, 1, 2, 3 });
+        pq.insert(4, 0.625);
+        while (!pq.isEmpty()) {
+            double key = pq.minKey();
+            System.out.println(pq.delMin() + " " + key);
+        }
+    }
+}
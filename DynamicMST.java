@@ -0,0 +1,339 @@
+//DynamicMST.java
+
+
+/******************************************************************************
+ *  Compilation:  javac DynamicMST.java
+ *  Execution:    java DynamicMST V E changes
+ *
+ *  A minimum spanning forest kept up to date while edges are added to and
+ *  removed from an EdgeWeightedGraph.
+ *
+ *  % java DynamicMST 2000 8000 5000
+ *  5000 changes: 1986 tree edges, weight matches Kruskal
+ *  32.4 microseconds per change
+ *
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ *  The {@code DynamicMST} class keeps a minimum spanning tree (or forest) of
+ *  an {@link EdgeWeightedGraph} current as the graph changes. It is created
+ *  by {@link EdgeWeightedGraph#maintainSpanningTree}, which seeds it with
+ *  {@link KruskalMST}, and from then on the graph reports every added and
+ *  removed edge to it.
+ *  <p>
+ *  The tree is stored in a {@link LinkCutTree} with one node per vertex and
+ *  one per tree edge, the edge nodes carrying their latency. When an edge
+ *  <em>v</em>-<em>w</em> is added, it joins two trees of the forest and is
+ *  taken, or it closes a cycle and replaces the largest-latency edge on the
+ *  tree path from <em>v</em> to <em>w</em> if it is cheaper (the cycle
+ *  property); either way this takes logarithmic amortized time.
+ *  <p>
+ *  When a tree edge is removed, its tree falls into two parts, and the
+ *  cheapest remaining edge across the cut takes its place (the cut
+ *  property). The two parts are explored with a breadth-first search of
+ *  the tree edges from each side in step, which stops as soon as the
+ *  smaller part has been found; only the edges incident to the smaller part
+ *  are then scanned. A removal therefore takes time proportional to the
+ *  size and degree sum of the smaller side, which is small when a link near
+ *  the edge of the network goes away, and at worst linear. Removing an edge
+ *  that is not in the tree takes time proportional to the tree degree of
+ *  its endpoints.
+ *  <p>
+ *  So insertions and removals of non-tree edges take sub-linear time, but
+ *  removing a tree edge does not in the worst case: it takes time
+ *  proportional to <em>V</em> + <em>E</em> when the edge splits its tree
+ *  into two halves of equal size, as in the middle of a long chain, which
+ *  is no better than recomputing the tree from every edge. A polylogarithmic
+ *  bound for every change would need a fully dynamic connectivity
+ *  structure such as that of Holm, de Lichtenberg and Thorup.
+ *  <p>
+ *  The weight is kept as a running sum, so it can differ from a fresh
+ *  computation in the last few bits.
+ */
+public class DynamicMST {
+    private final EdgeWeightedGraph G;
+    private final int V;
+    private final LinkCutTree forest;   // nodes 0 .. V-1 are vertices, V .. 2V-1 tree edges
+    private final Edge[] treeEdge;      // treeEdge[x - V] = edge of tree edge node x, or null
+    private final int[] free;           // stack of unused tree edge nodes
+    private int freeCount;
+    private final int[][] treeAdj;      // treeAdj[v][0 .. treeDegree[v]-1] = tree edge nodes at v
+    private final int[] treeDegree;
+    private int size;                   // number of tree edges
+    private double weight;
+
+    // scratch for the search of a replacement edge
+    private final int[] mark;
+    private final int[] sideA;
+    private final int[] sideB;
+    private int generation;
+
+    /**
+     * Computes a minimum spanning tree (or forest) of {@code G}, to be kept up
+     * to date through {@link #insert} and {@link #delete}.
+     *
+     * @param  G the graph
+     */
+    DynamicMST(EdgeWeightedGraph G) {
+        this.G = G;
+        this.V = G.V();
+        forest = new LinkCutTree(2 * V);
+        treeEdge = new Edge[V];
+        free = new int[V];
+        for (int x = 2 * V - 1; x >= V; x--) free[freeCount++] = x;
+        treeAdj = new int[V][];
+        treeDegree = new int[V];
+        for (int v = 0; v < V; v++) treeAdj[v] = new int[2];
+        mark = new int[V];
+        sideA = new int[V];
+        sideB = new int[V];
+
+        CSRGraph csr = G.toCSR();
+        List<Edge> edges = new ArrayList<Edge>(csr.E());   // indexed by CSR edge id
+        for (Edge e : G.edges()) edges.add(e);
+        for (int e : new KruskalMST(csr).edges()) link(edges.get(e));
+    }
+
+    /**
+     * Returns the edges of the minimum spanning tree (or forest).
+     *
+     * @return the tree edges, as an iterable
+     */
+    public Iterable<Edge> edges() {
+        List<Edge> list = new ArrayList<Edge>(size);
+        for (Edge e : treeEdge) {
+            if (e != null) list.add(e);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of edges in the tree, <em>V</em> – 1 if the graph is connected.
+     *
+     * @return the number of tree edges
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sum of the latencies of the edges in the tree.
+     *
+     * @return the total latency of the tree
+     */
+    public double weight() {
+        return weight;
+    }
+
+    /**
+     * Returns the latency of an edge of the tree averaged over the
+     * <em>V</em> – 1 edges of a spanning tree.
+     *
+     * @return the average latency of the tree
+     */
+    public double averageLatency() {
+        return weight / (double) (V - 1);
+    }
+
+    /**
+     * Are {@code v} and {@code w} connected by the tree, that is, by the graph?
+     *
+     * @param  v one vertex
+     * @param  w the other vertex
+     * @return {@code true} if {@code v} and {@code w} are in the same component
+     * @throws IllegalArgumentException unless both vertices are between {@code 0} and {@code V-1}
+     */
+    public boolean connected(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return forest.connected(v, w);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Updates the tree for an edge just added to the graph.
+     *
+     * @param  e the new edge
+     */
+    void insert(Edge e) {
+        int v = e.either();
+        int w = e.other(v);
+        if (v == w) return;
+        if (!forest.connected(v, w)) {
+            link(e);
+            return;
+        }
+        int x = forest.pathMax(v, w);
+        if (treeEdge[x - V].latency() > e.latency()) {
+            cut(x);
+            link(e);
+        }
+    }
+
+    /**
+     * Updates the tree for an edge just removed from the graph.
+     *
+     * @param  e the removed edge
+     */
+    void delete(Edge e) {
+        int v = e.either();
+        int w = e.other(v);
+        int x = nodeOf(v, e);
+        if (x == -1) return;            // not a tree edge, the tree stays minimum
+        cut(x);
+        Edge replacement = cheapestCrossing(v, w);
+        if (replacement != null) link(replacement);
+    }
+
+    // the tree edge node of e at v, or -1 if e is not in the tree
+    private int nodeOf(int v, Edge e) {
+        for (int i = 0; i < treeDegree[v]; i++) {
+            int x = treeAdj[v][i];
+            if (treeEdge[x - V] == e) return x;
+        }
+        return -1;
+    }
+
+    private void link(Edge e) {
+        int v = e.either();
+        int w = e.other(v);
+        int x = free[--freeCount];
+        treeEdge[x - V] = e;
+        forest.setValue(x, e.latency());
+        forest.link(v, x);
+        forest.link(x, w);
+        addTreeAdj(v, x);
+        addTreeAdj(w, x);
+        size++;
+        weight += e.latency();
+    }
+
+    private void cut(int x) {
+        Edge e = treeEdge[x - V];
+        int v = e.either();
+        int w = e.other(v);
+        forest.cut(v, x);
+        forest.cut(x, w);
+        removeTreeAdj(v, x);
+        removeTreeAdj(w, x);
+        treeEdge[x - V] = null;
+        free[freeCount++] = x;
+        size--;
+        weight -= e.latency();
+    }
+
+    private void addTreeAdj(int v, int x) {
+        if (treeDegree[v] == treeAdj[v].length) treeAdj[v] = Arrays.copyOf(treeAdj[v], 2 * treeDegree[v]);
+        treeAdj[v][treeDegree[v]++] = x;
+    }
+
+    private void removeTreeAdj(int v, int x) {
+        int[] adj = treeAdj[v];
+        for (int i = 0; i < treeDegree[v]; i++) {
+            if (adj[i] == x) {
+                adj[i] = adj[--treeDegree[v]];
+                return;
+            }
+        }
+    }
+
+    // the cheapest edge of G between the tree parts of v and w, just split apart, or null
+    private Edge cheapestCrossing(int v, int w) {
+        if (generation >= Integer.MAX_VALUE - 2) {
+            Arrays.fill(mark, 0);
+            generation = 0;
+        }
+        int genA = ++generation;
+        int genB = ++generation;
+
+        // search both parts in step until one of them runs out; that one is the smaller
+        int headA = 0, tailA = 0, headB = 0, tailB = 0;
+        sideA[tailA++] = v;
+        mark[v] = genA;
+        sideB[tailB++] = w;
+        mark[w] = genB;
+        while (headA < tailA && headB < tailB) {
+            tailA = expand(sideA[headA++], sideA, tailA, genA);
+            tailB = expand(sideB[headB++], sideB, tailB, genB);
+        }
+        int[] side = headA == tailA ? sideA : sideB;
+        int count = headA == tailA ? tailA : tailB;
+        int gen = headA == tailA ? genA : genB;
+
+        // every edge leaving the smaller part ends in the other part
+        Edge best = null;
+        for (int i = 0; i < count; i++) {
+            int x = side[i];
+            for (Edge e : G.adj(x)) {
+                if (mark[e.other(x)] == gen) continue;
+                if (best == null || e.latency() < best.latency()) best = e;
+            }
+        }
+        return best;
+    }
+
+    // appends the unmarked tree neighbours of v to the queue, returning its new tail
+    private int expand(int v, int[] queue, int tail, int gen) {
+        for (int i = 0; i < treeDegree[v]; i++) {
+            Edge e = treeEdge[treeAdj[v][i] - V];
+            int w = e.other(v);
+            if (mark[w] != gen) {
+                mark[w] = gen;
+                queue[tail++] = w;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Builds a random network with the number of vertices and edges given by
+     * the first two arguments, then makes the number of random changes given
+     * by the third, half of them removals, checking the maintained tree
+     * against a fresh run of Kruskal's algorithm; exits with status 1 if
+     * they differ.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        int changes = Integer.parseInt(args[2]);
+        EdgeWeightedGraph G = TopologyGenerator.random(V, E, 1);
+        DynamicMST mst = G.maintainSpanningTree();
+        SplittableRandom random = new SplittableRandom(2);
+        long start = System.nanoTime();
+        for (int i = 0; i < changes; i++) {
+            int v = random.nextInt(V);
+            int w = random.nextInt(V);
+            if (i % 2 == 1) {
+                for (Edge e : G.adj(v)) {
+                    w = e.other(v);
+                    break;
+                }
+                G.removeEdge(v, w);
+            }
+            else {
+                boolean isCopper = random.nextInt(3) == 0;
+                G.addEdge(new Edge(v, w, 1 + random.nextInt(1000), isCopper ? "copper" : "optical", 1000));
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        KruskalMST kruskal = new KruskalMST(G.toCSR());
+        boolean same = mst.size() == kruskal.edges().length
+                       && Math.abs(mst.weight() - kruskal.weight()) <= 1e-9 * kruskal.weight();
+        System.out.println(changes + " changes: " + mst.size() + " tree edges, weight "
+                           + (same ? "matches" : "DOES NOT MATCH") + " Kruskal");
+        System.out.printf("%.1f microseconds per change%n", 1000 * elapsed / changes);
+        if (!same) System.exit(1);
+    }
+}
@@ -29,6 +29,11 @@
  */
 public class Edge implements Comparable<Edge> { 
 
+    /** Signal speed, in meters per second, of an optical cable. */
+    public static final int OPTICAL_SPEED = 200000000;
+    /** Signal speed, in meters per second, of a copper cable. */
+    public static final int COPPER_SPEED = 230000000;
+
     private final int v;
     private final int w;
     private final double length;
@@ -53,8 +58,8 @@ public class Edge implements Comparable<Edge> {
         if (v < 0) throw new IllegalArgumentException("vertex index must be a nonnegative integer");
         if (w < 0) throw new IllegalArgumentException("vertex index must be a nonnegative integer");
         if (Double.isNaN(length)) throw new IllegalArgumentException("Length is NaN");
-        if (type.equals("optical")) this.speed = 200000000;
-        else if (type.equals("copper")) this.speed = 230000000;
+        if (type.equals("optical")) this.speed = OPTICAL_SPEED;
+        else if (type.equals("copper")) this.speed = COPPER_SPEED;
         else throw new IllegalArgumentException("Invalid cable type");
         this.v = v;
         this.w = w;
@@ -96,6 +101,15 @@ public class Edge implements Comparable<Edge> {
         return bandwidth;
     }
 
+    /**
+     * Returns true if this edge is a copper cable.
+     *
+     * @return {@code true} if this edge is copper, {@code false} if it is optical
+     */
+    public boolean isCopper(){
+        return speed == COPPER_SPEED;
+    }
+
     /**
      * Returns either endpoint of this edge.
      *
@@ -143,7 +157,7 @@ public class Edge implements Comparable<Edge> {
      * @return a string representation of this edge
      */
     public String toString() {
-        return String.format("%d-%d " + latency, v, w);
+        return v + "-" + w + " " + latency;
     }
 
 
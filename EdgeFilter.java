@@ -0,0 +1,205 @@
+//EdgeFilter.java
+
+
+/******************************************************************************
+ *  Compilation:  javac EdgeFilter.java
+ *  Execution:    java EdgeFilter network_data2.txt v w minBandwidth
+ *
+ *  Constraints on the edges and vertices a search may use: a least
+ *  bandwidth, the types of cable allowed, and a bitset of the vertices
+ *  of one CSRGraph a search may visit.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/**
+ *  The {@code EdgeFilter} class restricts the searches of a {@link CSRGraph},
+ *  such as {@link CSRGraph#lowestLatencyPath(int, int, EdgeFilter)}, to some
+ *  of its edges and vertices without building a subgraph: for instance the
+ *  links that carry at least a given bandwidth, only copper (or only optical)
+ *  links, or routes avoiding some routers.
+ *  <p>
+ *  A filter belongs to one graph. It holds the least bandwidth of a usable
+ *  edge, the types of cable allowed, and one bit per vertex, set if the
+ *  search may visit that vertex; a search tests the bandwidth of an edge
+ *  directly and its cable against a bitset the graph computes once, so it
+ *  allocates nothing for the filter. Filters are immutable:
+ *  {@link #minBandwidth}, {@link #copperOnly}, {@link #opticalOnly} and
+ *  {@link #excluding} each return a new filter allowing only what this one
+ *  allows and the new constraint permits, so a filter can be built once and
+ *  shared by any number of searches and threads. The first three take
+ *  constant time once the graph has its cable bitsets, which the first
+ *  {@link #copperOnly} or {@link #opticalOnly} on a graph computes in time
+ *  proportional to <em>E</em>; {@link #excluding} copies the vertex bitset,
+ *  in time proportional to <em>V</em>/64 plus the number of vertices excluded.
+ */
+public final class EdgeFilter {
+    private final CSRGraph G;
+    private final int minBandwidth;     // least bandwidth of a usable edge
+    private final long[] cable;         // bit e is set if edge e is of the cable allowed, or null for both
+    private final long[] vertices;      // bit v is set if vertex v may be visited, or null for every vertex
+
+    /**
+     * Initializes a filter of {@code G} that allows every edge and vertex.
+     *
+     * @param  G the graph
+     */
+    public EdgeFilter(CSRGraph G) {
+        this(G, 0, null, null);
+    }
+
+    private EdgeFilter(CSRGraph G, int minBandwidth, long[] cable, long[] vertices) {
+        this.G = G;
+        this.minBandwidth = minBandwidth;
+        this.cable = cable;
+        this.vertices = vertices;
+    }
+
+    // a bitset of n bits, all set
+    private static long[] allSet(int n) {
+        long[] bits = new long[(n + 63) >>> 6];
+        Arrays.fill(bits, -1L);
+        if ((n & 63) != 0) bits[bits.length - 1] = -1L >>> (64 - (n & 63));
+        return bits;
+    }
+
+    /**
+     * Returns the graph whose edges this filter selects.
+     *
+     * @return the graph
+     */
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns a filter that also requires every edge to carry at least
+     * {@code bandwidth}.
+     *
+     * @param  bandwidth the least bandwidth of a usable edge
+     * @return the new filter
+     */
+    public EdgeFilter minBandwidth(int bandwidth) {
+        return new EdgeFilter(G, Math.max(minBandwidth, bandwidth), cable, vertices);
+    }
+
+    /**
+     * Returns a filter that also requires every edge to be a copper cable.
+     *
+     * @return the new filter
+     */
+    public EdgeFilter copperOnly() {
+        return cable(true);
+    }
+
+    /**
+     * Returns a filter that also requires every edge to be an optical cable.
+     *
+     * @return the new filter
+     */
+    public EdgeFilter opticalOnly() {
+        return cable(false);
+    }
+
+    // the bitsets of copper and optical edges are computed once by the graph;
+    // asking for both types of cable leaves no edge at all
+    private EdgeFilter cable(boolean copper) {
+        long[] bits = G.cableBits(copper);
+        if (cable != null && cable != bits) bits = new long[bits.length];
+        return new EdgeFilter(G, minBandwidth, bits, vertices);
+    }
+
+    /**
+     * Returns a filter that also keeps searches away from the given vertices.
+     * A path that starts or ends at an excluded vertex does not exist.
+     *
+     * @param  excluded the vertices to avoid
+     * @return the new filter
+     * @throws IllegalArgumentException unless every vertex is between 0 and {@code V - 1}
+     */
+    public EdgeFilter excluding(int... excluded) {
+        long[] bits = vertices == null ? allSet(G.V()) : vertices.clone();
+        for (int v : excluded) {
+            validateVertex(v);
+            bits[v >>> 6] &= ~(1L << v);
+        }
+        return new EdgeFilter(G, minBandwidth, cable, bits);
+    }
+
+    /**
+     * May a search use edge {@code e}? Its endpoints are checked separately.
+     *
+     * @param  e the edge id
+     * @return {@code true} if the edge meets the constraints on edges
+     */
+    public boolean allowsEdge(int e) {
+        return G.bandwidth(e) >= minBandwidth && (cable == null || (cable[e >>> 6] & (1L << e)) != 0);
+    }
+
+    /**
+     * May a search visit vertex {@code v}?
+     *
+     * @param  v the vertex
+     * @return {@code true} if the vertex is not excluded
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public boolean allowsVertex(int v) {
+        validateVertex(v);
+        return vertices == null || (vertices[v >>> 6] & (1L << v)) != 0;
+    }
+
+    /**
+     * Returns the number of edges that meet the constraints on edges,
+     * in time proportional to <em>E</em>.
+     *
+     * @return the number of usable edges
+     */
+    public int edgeCount() {
+        int count = 0;
+        for (int e = 0; e < G.E(); e++) {
+            if (allowsEdge(e)) count++;
+        }
+        return count;
+    }
+
+    // the constraints, read directly by the searches of CSRGraph
+    int minBandwidthValue() {
+        return minBandwidth;
+    }
+
+    long[] cableBits() {
+        return cable;
+    }
+
+    long[] vertexBits() {
+        return vertices;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V())
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (G.V()-1));
+    }
+
+    /**
+     * Reads a network from the file named by the first argument and prints
+     * the lowest latency path between the vertices named by the next two,
+     * over the links carrying at least the bandwidth named by the fourth,
+     * then over copper links only.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        NetworkAnalysis.readGraphFile(args[0]);
+        CSRGraph G = NetworkAnalysis.graph.toCSR();
+        int v = Integer.parseInt(args[1]);
+        int w = Integer.parseInt(args[2]);
+        EdgeFilter wide = new EdgeFilter(G).minBandwidth(Integer.parseInt(args[3]));
+        System.out.println(wide.edgeCount() + " of " + G.E() + " links carry at least " + args[3]);
+        System.out.println(G.lowestLatencyPath(v, w, wide));
+        EdgeFilter copper = new EdgeFilter(G).copperOnly();
+        System.out.println(copper.edgeCount() + " of " + G.E() + " links are copper");
+        System.out.println(G.lowestLatencyPath(v, w, copper));
+    }
+}
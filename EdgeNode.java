@@ -4,6 +4,7 @@ public class EdgeNode{
 	
 	private EdgeNode nextNode;
 	private Edge data;
+	private int index;	//position of data in the edge array of the graph
 
 	public EdgeNode(){
 		data = null;
@@ -31,4 +32,12 @@ public class EdgeNode{
 		return data;
 	}
 
+	public void setIndex(int index){
+		this.index = index;
+	}
+
+	public int getIndex(){
+		return index;
+	}
+
 }
@@ -5,6 +5,8 @@
 
 import java.util.*;
 import java.io.*;    
+import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -20,10 +22,38 @@ import java.io.*;
  *  of <em>v</em>.
  *  <p>
  *  This implementation uses an adjacency-lists representation, which 
- *  is a vertex-indexed array of {@link Bag} objects.
- *  All operations take constant time (in the worst case) except
- *  iterating over the edges incident to a given vertex, which takes
- *  time proportional to the number of such edges.
+ *  is a vertex-indexed array of linked lists of {@link EdgeNode} objects.
+ *  Adding an edge takes constant amortized time, since each list keeps a
+ *  pointer to its last node. Removing an edge, iterating over the edges
+ *  incident to a given vertex, and computing its degree, take time
+ *  proportional to the number of such edges. To load a large graph, or to
+ *  drop parallel edges, use a {@link GraphBuilder}.
+ *  <p>
+ *  The analyses print nothing: they return a {@link LatencyPath}, a
+ *  {@link LatencySpanningTree}, a {@link Survivability} or a boolean, which
+ *  callers can keep, compare or render as they wish ({@link NetworkAnalysis}
+ *  prints them for the menu).
+ *  <p>
+ *  After {@link #maintainSpanningTree} the graph also keeps a
+ *  {@link DynamicMST} up to date through every change, so the minimum
+ *  spanning tree is not rebuilt from all of the edges each time it is asked for.
+ *  <p>
+ *  A graph can be saved with {@link #writeSnapshot} and loaded again with
+ *  {@link #readSnapshot}, which maps the binary {@link GraphSnapshot} file
+ *  into a {@link CSRGraph} without parsing. A graph built from a
+ *  {@code CSRGraph} answers the analyses from it directly, and builds its
+ *  adjacency lists only when an operation first needs them.
+ *  <p>
+ *  The graph has a single writer and any number of concurrent readers.
+ *  Changes ({@link #addEdge}, {@link #removeEdge}, {@link #updateEdge}) are
+ *  serialized by a lock. Readers never take it: {@link #snapshot} returns
+ *  the most recently published immutable {@link CSRGraph}, which stays
+ *  valid however the graph changes afterwards, and every analysis runs on
+ *  one. A new snapshot is published, by whichever thread first asks for
+ *  one while the writer is idle, only after the edges have changed, so a
+ *  batch of changes costs one copy of the graph rather than one per change.
+ *  The adjacency-list views ({@link #adj}, {@link #edges}, {@link #degree},
+ *  {@link #toString}) read the live lists and belong to the writer's thread.
  *  <p>
  *  For additional documentation,
  *  see <a href="https://algs4.cs.princeton.edu/43mst">Section 4.3</a> of
@@ -37,7 +67,16 @@ public class EdgeWeightedGraph {
 
     private final int V;
     private int E;
-    private EdgeNode[] graph;
+    private volatile long version;  // bumped by every change to the edges
+    private EdgeNode[] graph;       // null until built, for a graph created from a CSRGraph
+    private EdgeNode[] last;        // tail of each adjacency list, for constant-time appends
+    private Edge[] edges;           // every edge once, in insertion order, null where one was removed
+    private int slots;              // edges[0 .. slots-1] is in use
+    private volatile CSRGraph csr;  // latest published snapshot, older than the lists after a change
+    private DynamicMST spanningTree; // kept up to date by every change, or null
+    private volatile MaxBandwidthTree bandwidthIndex;   // widest-path index of some snapshot, or null
+    private volatile ContractionHierarchy hierarchy;    // lowest latency index of some snapshot, or null
+    private final ReentrantLock writer = new ReentrantLock();   // held by every change
     
     /**
      * Initializes an empty edge-weighted graph with {@code V} vertices and 0 edges.
@@ -51,205 +90,246 @@ public class EdgeWeightedGraph {
         this.E = 0;
         //Here is where I will need to change it so that it uses  an adjacency list instead of a bag
         graph = new EdgeNode[V];
+        last = new EdgeNode[V];
+        edges = new Edge[1];
 
     }
 
+    /**
+     * Initializes an edge-weighted graph with the same vertices, edges and
+     * adjacency order as {@code G}. Takes constant time: the adjacency lists
+     * are built from {@code G} the first time they are needed, and until then
+     * {@link #toCSR} returns {@code G} itself.
+     *
+     * @param  G the graph to copy
+     */
+    public EdgeWeightedGraph(CSRGraph G) {
+        this.V = G.V();
+        this.E = G.E();
+        this.version = G.version();
+        this.csr = G;
+    }
 
     /**
-     *Determines whether the graph would stay connected if any two vertices in the graph fail
-    */
-    public void remainConnected(){
-       for(int v = 0; v < V; v++){
-            for(int w = 0; w < V; w++){
-                boolean[] marked = new boolean[V];
-                marked[v] = true;
-                marked[w] = true;
-                for(int i = 0; i < V; i++){
-                    if(i == v || i == w) continue;
-                    EdgeNode current = graph[i];
-                    while(current != null){
-                        if(current.getData().other(i) != v && current.getData().other(i) != w){
-                            marked[current.getData().other(i)] = true;
-                            marked[i] = true;
-                            //System.out.println(i + "  " + current.getData().other(i));
-                        }
-                        current = current.nextNode();
-                    }
-                }
+     * Reads a graph from a binary snapshot file written by {@link #writeSnapshot}.
+     *
+     * @param  fileName the name of the snapshot file
+     * @return the graph
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid snapshot
+     */
+    public static EdgeWeightedGraph readSnapshot(String fileName) throws IOException {
+        return new EdgeWeightedGraph(GraphSnapshot.read(Paths.get(fileName)));
+    }
 
-                for(int i = 0; i < V; i ++){
-                    if(marked[i] == false){
-                        System.out.println("The network would not remain connected");
-                        return;
-                    }
-                }
-            }
-        }
-        System.out.println("The network survived the failures of any two vertices");
+    /**
+     * Writes this graph to a binary snapshot file, which {@link #readSnapshot}
+     * loads much faster than the text format.
+     *
+     * @param  fileName the name of the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(String fileName) throws IOException {
+        GraphSnapshot.write(snapshot(), Paths.get(fileName));
+    }
+
+
+    /**
+     *Determines whether the graph would stay connected if any two vertices in the graph fail,
+     *and if not, which articulation points and separation pairs are responsible
+     *@return the survivability of the latest {@link #snapshot}
+    */
+    public Survivability remainConnected(){
+        return new Survivability(snapshot());
     }
 
 
     
     /**
-     * Prints the edges that comprise the graph with the minimum spanning tree
+     * Returns the minimum spanning tree, the maintained one if there is one and
+     * otherwise computed with Kruskal's algorithm
+     * @return the tree edges and their average latency
      */
-    public void lowestLatencySpanningTree(){
-        double weight = 0;
-        EdgeWeightedGraph mst = new EdgeWeightedGraph(V);
-        MinPQ<Edge> pq = new MinPQ<Edge>();
-         for(int i = 0; i < V; i++){
-            EdgeNode current = graph[i];
-            while(current != null){
-                pq.insert(current.getData());
-                current = current.nextNode();
-            }
-        }
-
-        // run greedy algorithm
-       // UF uf = new UF(G.V());
-       int[] connectivity = new int[V];
-       for(int i = 0; i < V; i ++){
-            connectivity[i] = i;
-       } 
-       int count = 0;
-        while (!pq.isEmpty() && count < V - 1) {
-            Edge e = pq.delMin();
-            int v = e.either();
-            int w = e.other(v);
-            //If the components are not connected
-            if (connectivity[v] != connectivity[w]) { // v-w does not create a cycle
-                connect(v, w, connectivity);  // merge v and w components
-                mst.addEdge(e);  // add edge e to mst
-                weight += e.latency();
-                count ++;
+    public LatencySpanningTree lowestLatencySpanningTree(){
+        //The maintained tree changes with the graph, so it is copied out under the writer's lock
+        writer.lock();
+        try{
+            if(spanningTree != null){
+                return new LatencySpanningTree(V, spanningTree.edges(), spanningTree.weight(), spanningTree.averageLatency());
             }
+        }finally{
+            writer.unlock();
         }
-
-        System.out.println(mst);
-        System.out.println("There is an average latency of " +(weight/(double)(V-1)));
-
+        return lowestLatencySpanningTree("kruskal");
     }
 
-    //Connects components within the given array
     /**
-     *Connects components v and w if they are not already connected
-     *@param v the first vertex to connect
-     *@param w the second vertex to connect
-     *@param connected an array used to determine what vertices are connected in the graph
+     * Returns the minimum spanning tree
+     * @param algorithm the spanning tree algorithm to use, {@code "kruskal"}, {@code "prim"} or {@code "boruvka"}
+     * @return the tree edges and their average latency
+     * @throws IllegalArgumentException if the algorithm is unknown
      */
-    public void connect(int v, int w, int[] connected){
-        int vCon = connected[v];
-        int wCon = connected[w];
+    public LatencySpanningTree lowestLatencySpanningTree(String algorithm){
+        return snapshot().lowestLatencySpanningTree(algorithm);
+    }
 
-        for(int i = 0; i < V; i++){
-            if(connected[i] == vCon){
-                connected[i] = wCon;
-            }
+    /**
+     * Starts keeping a minimum spanning tree of this graph up to date through
+     * every later {@link #addEdge} and {@link #removeEdge}, from then on used
+     * by {@link #lowestLatencySpanningTree()}. Does nothing if it is already kept.
+     *
+     * @return the maintained minimum spanning tree (or forest)
+     */
+    public DynamicMST maintainSpanningTree(){
+        writer.lock();
+        try{
+            if(spanningTree == null) spanningTree = new DynamicMST(this);
+            return spanningTree;
+        }finally{
+            writer.unlock();
         }
+    }
 
+    /**
+     * Returns the minimum spanning tree kept up to date by {@link #maintainSpanningTree},
+     * or null if it is not being kept.
+     *
+     * @return the maintained minimum spanning tree (or forest), or {@code null}
+     */
+    public DynamicMST spanningTree(){
+        return spanningTree;
     }
 
     
     /**
-     * Prints whether or not the graph is copper only connected
+     * Determines whether or not the graph is copper only connected
+     * @return {@code true} if every edge is a copper cable
      */
-    public void copperOnly(){
-        boolean copper = true;
-        for(int i = 0; i < V; i++){
-            EdgeNode current = graph[i];
-            while(current != null){
-                if(current.getData().speed() == 200000000) {
-                    copper = false;
-                    break;
-                }
-                current = current.nextNode();
-            }
+    public boolean copperOnly(){
+        return snapshot().copperOnly();
+    }
 
-        }
+    //This will use Dijkstra's Algorithm to find the lowest latency path between the two points
+    /**
+     *Finds the lowest total latency path between two vertices.
+     *The search runs on the latest {@link #snapshot}, so it is safe while the graph is being changed.
+     *The frontier is an {@link IndexMinPQ} keyed by vertex on the tentative distance,
+     *so it never holds more than V entries and the search stops as soon as w is settled.
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@return the path, its latency and its bandwidth
+     */
+    public LatencyPath lowestLatencyPath(int v, int w){
+        validateVertex(v);
+        validateVertex(w);
+        return snapshot().lowestLatencyPath(v, w);
+    }
 
-        if(copper) {
-            System.out.println("The graph is copper only connected");
-        }else{
-            System.out.println("The graph is not copper only connected");
-        }
+    /**
+     * Returns a filter of the latest {@link #snapshot} that allows every edge
+     * and vertex, to be narrowed down with its methods and passed to
+     * {@link #lowestLatencyPath(int, int, EdgeFilter)} or
+     * {@link #widestPath(int, int, EdgeFilter)}.
+     *
+     * @return a filter allowing all of the latest snapshot
+     */
+    public EdgeFilter filter(){
+        return new EdgeFilter(snapshot());
+    }
 
+    /**
+     *Finds the lowest total latency path between two vertices using only the
+     *edges and vertices the filter allows, such as the lowest latency route
+     *carrying at least some bandwidth. The search runs on the snapshot the
+     *filter was made from, so repeated queries with one filter see one version of the graph
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@param filter the edges and vertices the path may use, from {@link #filter}
+     *@return the path, its latency and its bandwidth
+     */
+    public LatencyPath lowestLatencyPath(int v, int w, EdgeFilter filter){
+        validateVertex(v);
+        validateVertex(w);
+        return filter.graph().lowestLatencyPath(v, w, filter);
     }
 
-    //This will use Dijkstra's Algorithm to find the lowest latency path between the two points
-    //It will then print the edges it used to get there
     /**
-     *Finds the lowest total latency path between two vertices
+     *Finds a widest path between two vertices: of the paths whose narrowest edge
+     *has the largest bandwidth, the one with the lowest total latency.
+     *The search runs on the latest {@link #snapshot}
      *@param v the starting vertex
-     *@param w the edning vertex
+     *@param w the ending vertex
+     *@return the path, its latency and its bandwidth
      */
-    public void lowestLatencyPath(int v, int w){
+    public LatencyPath widestPath(int v, int w){
         validateVertex(v);
         validateVertex(w);
-        boolean[] marked = new boolean[V];
-        double[] distance = new double[V];
-        Edge[] via = new Edge[V];
-        //Create an array of distances to contain the values of 
-        for(int i = 0; i < V; i++){
-            distance[i] = Integer.MAX_VALUE;
-        }
-        //Create a priority queue to contain the edges 
-        MinPQ edges = new MinPQ<Edge>();
-        int current = v;
-        distance[v] = 0;
-        marked[v] = true;
-        via[v] = null;
-        //Run through the current nodes neighboring vertices until you see w
-        while(current != w){
-            EdgeNode currNode = graph[current];
-            marked[current] = true;
-            while(currNode != null){  
-                //calculate the distance to this vertex through the current node
-                double distanceTo = distance[current] + currNode.getData().latency();
-
-                //If the new distance is shorter than the previous one and the node has not already been visited update the distance 
-                //and add the edge to the PQ
-                if(distanceTo < distance[currNode.getData().other(current)] && (marked[currNode.getData().other(current)] == false )){
-                    distance[currNode.getData().other(current)] = distanceTo;
-                    //Update the via array to be from the current vertex
-                    via[currNode.getData().other(current)] = currNode.getData();
-                    //If this edge is a quicker route to the new vertex 
-                    edges.insert(currNode.getData());
-                } 
-                //Get the next edge
-                currNode = currNode.nextNode();               
-            }
-            //Remove the lowest latency edge in the PQ that does not connect vertices already visited and visit the next vertex
-            boolean mark = false;
-            while(!mark){
-                Edge nextEdge = (Edge)edges.delMin();
-                current = nextEdge.either();
-                if(marked[current] == true){
-                    current = nextEdge.other(current);
-                }
-                if(marked[current] == false){
-                    mark = true;
-                }
-            }
-        }
+        return snapshot().widestPath(v, w);
+    }
 
-        //When it gets here the next node will be the target Node
-        int minBand = Integer.MAX_VALUE;       
-        current = w;
-        int count = 0;
-        Edge[] path = new Edge[V];
-        while(current != v){
-            minBand = Math.min(minBand, via[current].bandwidth());
-            //System.out.println(via[current]);
-            path[count] = via[current];
-            count++;
-            current = via[current].other(current);
-        }
+    /**
+     *Finds a widest path between two vertices using only the edges and vertices
+     *the filter allows, on the snapshot the filter was made from
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@param filter the edges and vertices the path may use, from {@link #filter}
+     *@return the path, its latency and its bandwidth
+     */
+    public LatencyPath widestPath(int v, int w, EdgeFilter filter){
+        validateVertex(v);
+        validateVertex(w);
+        return filter.graph().widestPath(v, w, filter);
+    }
 
-        for(int i = count; i >= 0; i--){
-            if(path[i] != null) System.out.println(path[i]);
+    /**
+     *Finds the K lowest latency loopless paths between two vertices, such as a
+     *route and its backups, each with its bandwidth. The search runs on the latest {@link #snapshot}
+     *@param v the starting vertex
+     *@param w the ending vertex
+     *@param K the number of paths wanted
+     *@return the paths, in order of latency; fewer than K if there are no more
+     *@throws IllegalArgumentException unless {@code K >= 1}
+     */
+    public List<LatencyPath> kShortestPaths(int v, int w, int K){
+        validateVertex(v);
+        validateVertex(w);
+        return snapshot().kShortestPaths(v, w, K);
+    }
+
+    /**
+     * Returns the widest-path index of the latest {@link #snapshot}, which
+     * answers the bottleneck bandwidth between any two vertices in
+     * logarithmic time. It is built on first use after each change and
+     * then shared by every caller.
+     *
+     * @return the maximum bandwidth spanning forest of the latest snapshot
+     */
+    public MaxBandwidthTree maxBandwidthTree(){
+        CSRGraph current = snapshot();
+        MaxBandwidthTree index = bandwidthIndex;
+        if(index == null || index.graph() != current){
+            index = new MaxBandwidthTree(current);
+            bandwidthIndex = index;
         }
-        System.out.println("The bandwidth along this path is " + minBand);
+        return index;
+    }
 
+    /**
+     * Returns the contraction hierarchy of the latest {@link #snapshot},
+     * which answers lowest latency queries while settling a few hundred
+     * vertices. It is built on first use after each change, which takes
+     * seconds on large networks, and then shared by every caller.
+     *
+     * @return the contraction hierarchy of the latest snapshot
+     */
+    public ContractionHierarchy contractionHierarchy(){
+        CSRGraph current = snapshot();
+        ContractionHierarchy index = hierarchy;
+        if(index == null || index.graph() != current){
+            index = new ContractionHierarchy(current);
+            hierarchy = index;
+        }
+        return index;
     }
 
 
@@ -271,6 +351,17 @@ public class EdgeWeightedGraph {
         return E;
     }
 
+    /**
+     * Returns the version of this graph, a counter that increases every time
+     * an edge is added, removed or updated. Results computed from the graph
+     * are stale once the version has changed.
+     *
+     * @return the version of this edge-weighted graph
+     */
+    public long version() {
+        return version;
+    }
+
     // throw an IllegalArgumentException unless {@code 0 <= v < V}
     private void validateVertex(int v) {
         if (v < 0 || v >= V)
@@ -288,37 +379,290 @@ public class EdgeWeightedGraph {
         int w = e.other(v);
         validateVertex(v);
         validateVertex(w);
-        //Tbe lastNode of each vertex so that this edge can be added to the list
-        EdgeNode lastNodeV = findLastLink(v, w);
-        EdgeNode lastNodeW = findLastLink(w, v); 
-        //adds the edge to the list
-        lastNodeV.setData(e);
-        lastNodeW.setData(e);
-        //adj[v].add(e);
-        //adj[w].add(e);
+        writer.lock();
+        try {
+            materialize();
+            insert(e);
+            version++;
+            if (spanningTree != null) spanningTree.insert(e);
+        }
+        finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Removes an edge between {@code v} and {@code w} from this edge-weighted
+     * graph, the earliest added if there are parallel edges.
+     * Takes time proportional to the degrees of {@code v} and {@code w}.
+     *
+     * @param  v one endpoint
+     * @param  w the other endpoint
+     * @return the removed edge, or {@code null} if there is no edge between {@code v} and {@code w}
+     * @throws IllegalArgumentException unless both endpoints are between {@code 0} and {@code V-1}
+     */
+    public Edge removeEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        writer.lock();
+        try {
+            materialize();
+            EdgeNode node = graph[v];
+            while (node != null && node.getData().other(v) != w) node = node.nextNode();
+            if (node == null) return null;
+            Edge e = node.getData();
+            edges[node.getIndex()] = null;
+            unlink(v, e);
+            unlink(w, e);
+            E--;
+            version++;
+            if (spanningTree != null) spanningTree.delete(e);
+            return e;
+        }
+        finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Changes the length, and so the latency, of an edge between {@code v}
+     * and {@code w}, the earliest added if there are parallel edges. The edge
+     * keeps its place in the adjacency lists; since edges are immutable, it is
+     * replaced by a new {@link Edge} with the same endpoints, cable type and
+     * bandwidth. Takes time proportional to the degrees of {@code v} and {@code w}.
+     *
+     * @param  v one endpoint
+     * @param  w the other endpoint
+     * @param  length the new length of the edge
+     * @return the edge that was replaced, or {@code null} if there is no edge between {@code v} and {@code w}
+     * @throws IllegalArgumentException unless both endpoints are between {@code 0} and {@code V-1}
+     * @throws IllegalArgumentException if {@code length} is {@code NaN}
+     */
+    public Edge updateEdge(int v, int w, double length) {
+        validateVertex(v);
+        validateVertex(w);
+        writer.lock();
+        try {
+            materialize();
+            EdgeNode node = graph[v];
+            while (node != null && node.getData().other(v) != w) node = node.nextNode();
+            if (node == null) return null;
+            Edge old = node.getData();
+            int x = old.either();
+            Edge e = new Edge(x, old.other(x), length, old.isCopper() ? "copper" : "optical", old.bandwidth());
+            edges[node.getIndex()] = e;
+            replace(v, old, e);
+            replace(w, old, e);
+            version++;
+            if (spanningTree != null) {
+                spanningTree.delete(old);
+                spanningTree.insert(e);
+            }
+            return old;
+        }
+        finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Returns the edges incident on vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @return the edges incident on vertex {@code v} as an Iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public Iterable<Edge> adj(int v) {
+        validateVertex(v);
+        materialize();
+        return () -> new Iterator<Edge>() {
+            private EdgeNode current = graph[v];
+
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            public Edge next() {
+                if (current == null) throw new NoSuchElementException();
+                Edge e = current.getData();
+                current = current.nextNode();
+                return e;
+            }
+        };
+    }
+
+    /**
+     * Returns all edges in this edge-weighted graph, in the order they were added.
+     * Each edge (including a self-loop) is returned exactly once.
+     *
+     * @return all edges in this edge-weighted graph, as a read-only iterable
+     */
+    public Iterable<Edge> edges() {
+        materialize();
+        if (slots > E) compact();
+        return Collections.unmodifiableList(Arrays.asList(edges).subList(0, E));
+    }
+
+    /**
+     * Returns an immutable compressed-sparse-row copy of the current version
+     * of this graph, waiting for a change in progress to finish if needed.
+     * The adjacency order of every vertex matches this graph, so every
+     * analysis gives the same answer on either form.
+     * The copy is published as the graph's {@link #snapshot} and reused until
+     * the next change to the edges, so building it takes time proportional
+     * to <em>E</em> + <em>V</em> only once per change.
+     *
+     * @return a {@link CSRGraph} with the same vertices and edges
+     */
+    public CSRGraph toCSR() {
+        CSRGraph published = csr;
+        if (published != null && published.version() == version) return published;
+        writer.lock();
+        try {
+            return publish();
+        }
+        finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Returns an immutable compressed-sparse-row snapshot of this graph
+     * without ever waiting for the writer. If the edges have changed since
+     * the last snapshot was published and no change is in progress, the
+     * current version is published first; otherwise the last published
+     * snapshot is returned, which may be behind the changes being made.
+     * Its {@link CSRGraph#version() version} tells which version it is.
+     *
+     * @return the latest published {@link CSRGraph} snapshot of this graph
+     */
+    public CSRGraph snapshot() {
+        CSRGraph published = csr;
+        if (published != null && published.version() == version) return published;
+        if (published == null) return toCSR();
+        if (!writer.tryLock()) return published;
+        try {
+            return publish();
+        }
+        finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Returns the lock held by every change to the edges. A writer applying a
+     * batch of changes holds it for the whole batch, so that no snapshot of
+     * part of the batch is published.
+     *
+     * @return the writer's lock
+     */
+    ReentrantLock writeLock() {
+        return writer;
+    }
+
+    //Copies the current version into a new snapshot, if the last one is out of date; called holding the writer's lock
+    private CSRGraph publish(){
+        CSRGraph published = csr;
+        if(published == null || published.version() != version){
+            published = new CSRGraph(this);
+            csr = published;
+        }
+        return published;
+    }
+
+    /**
+     * Returns the tree of lowest latency paths from {@code s} to every vertex.
+     *
+     * @param  s the source vertex
+     * @return the shortest-path tree rooted at {@code s}
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public ShortestPathTree shortestPathTree(int s) {
+        validateVertex(s);
+        return new ShortestPathTree(snapshot(), s);
+    }
+
+    /**
+     * Returns the lowest latency between every pair of vertices, computed
+     * with one shortest-path tree per vertex spread over all cores.
+     *
+     * @return the all-pairs latency matrix
+     */
+    public LatencyMatrix latencyMatrix() {
+        return new LatencyMatrix(snapshot());
+    }
+
+    //Stores e at the end of the edge array and of the lists of both endpoints
+    private void insert(Edge e){
+        int v = e.either();
+        int w = e.other(v);
+        if (slots == edges.length) {
+            if (2 * (slots - E) >= slots) compact();   // at least half of the slots are gaps
+            else edges = Arrays.copyOf(edges, 2 * slots);
+        }
+        append(v, e, slots);
+        append(w, e, slots);
+        edges[slots++] = e;
         E++;
     }
 
-    //Traverses to the end of the list of edges of each node, and returns the next open spot to insert a node.
-    //Returns null if the edge is already in the list
-    
-    public EdgeNode findLastLink(int v, int w){
-        EdgeNode currNode = graph[v];
-        if(currNode == null){
-            currNode = new EdgeNode();
-            graph[v] = currNode;
-            return currNode;
+    //Builds the adjacency lists of a graph created from a CSRGraph, the first time they are needed
+    private void materialize(){
+        if(graph != null) return;
+        graph = new EdgeNode[V];
+        last = new EdgeNode[V];
+        edges = new Edge[Math.max(E, 1)];
+        E = 0;
+        for(int e = 0; e < csr.E(); e++){
+            insert(csr.edge(e));
         }
-        //System.out.println("Making it here");
-        while(currNode.nextNode() != null){
-            //If the edge is already in the list return null
-            if(currNode.getData().other(v) == w) return null;
-            
-            currNode = currNode.nextNode();
+    }
+
+    //Links a new node holding e after the last node of v's list, so each list keeps insertion order
+    private void append(int v, Edge e, int index){
+        EdgeNode node = new EdgeNode(null, e);
+        node.setIndex(index);
+        if(graph[v] == null) graph[v] = node;
+        else last[v].setNext(node);
+        last[v] = node;
+    }
+
+    //Unlinks the first node holding e from v's list, moving the tail pointer back if it was the last node
+    private void unlink(int v, Edge e){
+        EdgeNode previous = null;
+        EdgeNode current = graph[v];
+        while(current.getData() != e){
+            previous = current;
+            current = current.nextNode();
         }
+        if(previous == null) graph[v] = current.nextNode();
+        else previous.setNext(current.nextNode());
+        if(last[v] == current) last[v] = previous;
+    }
 
-        currNode.setNext(new EdgeNode());
-        return currNode.nextNode();
+    //Puts e in place of the first node still holding old in v's list
+    private void replace(int v, Edge old, Edge e){
+        EdgeNode current = graph[v];
+        while(current.getData() != old) current = current.nextNode();
+        current.setData(e);
+    }
+
+    //Closes the gaps left by removed edges, keeping the insertion order, and renumbers the list nodes
+    private void compact(){
+        int[] moved = new int[slots];
+        int live = 0;
+        for(int i = 0; i < slots; i++){
+            if(edges[i] == null) continue;
+            moved[i] = live;
+            edges[live++] = edges[i];
+        }
+        Arrays.fill(edges, live, slots, null);
+        slots = live;
+        for(int v = 0; v < V; v++){
+            for(EdgeNode node = graph[v]; node != null; node = node.nextNode()){
+                node.setIndex(moved[node.getIndex()]);
+            }
+        }
     }
 
 
@@ -332,6 +676,7 @@ public class EdgeWeightedGraph {
      */
     public int degree(int v) {
         validateVertex(v);
+        materialize();
         EdgeNode currNode = graph[v];
         int count = 0;
         while(currNode != null){
@@ -351,14 +696,15 @@ public class EdgeWeightedGraph {
      *         followed by the <em>V</em> adjacency lists of edges
      */
     public String toString() {
+        materialize();
         StringBuilder s = new StringBuilder();
-        s.append(V + " " + E + NEWLINE);
+        s.append(V).append(' ').append(E).append(NEWLINE);
         for (int v = 0; v < V; v++) {
-            s.append(v + ": ");
+            s.append(v).append(": ");
             //for (int i = 0; i < V; i++) {
                 EdgeNode currNode = graph[v];
                 while(currNode != null){
-                    s.append(currNode.getData() + "  ");
+                    s.append(currNode.getData()).append("  ");
                     currNode = currNode.nextNode();
                 }
             //}
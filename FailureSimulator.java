@@ -0,0 +1,262 @@
+//FailureSimulator.java
+
+
+/******************************************************************************
+ *  Compilation:  javac FailureSimulator.java
+ *  Execution:    java FailureSimulator network_data2.txt [v w ...]
+ *
+ *  Simulates router failures and reports how the network splits apart.
+ *
+ *  % java FailureSimulator network_data2.txt 0 5
+ *  Failing [0, 5] leaves components of sizes [6, 1]
+ *
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ *  The {@code FailureSimulator} class answers "what-if" questions about
+ *  router failures by brute force: it removes a set of vertices and measures
+ *  the components of what is left with a breadth-first search.
+ *  <p>
+ *  {@link #partitioningPairs()} simulates the failure of every pair of
+ *  vertices and reports each pair that splits the network, together with
+ *  the sizes of the resulting islands. The <em>V</em>(<em>V</em> – 1)/2
+ *  pairs are divided into ranges of rows and spread over a
+ *  {@link ForkJoinPool}; each simulation takes time proportional to
+ *  <em>E</em> + <em>V</em> and the pairs are independent, so the work scales
+ *  with the number of cores. Every worker thread keeps its own scratch arrays
+ *  and clears its visited marks by bumping a generation stamp, so a
+ *  simulation allocates nothing unless it finds a partition.
+ *  <p>
+ *  For the exact two-failure answer without the island sizes, use
+ *  {@link Survivability}, which is much faster.
+ */
+public class FailureSimulator {
+
+    private final CSRGraph G;
+    private final int V;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * The outcome of one failure that splits the network.
+     */
+    public static class Partition {
+        private final int[] failed;
+        private final int[] sizes;
+
+        private Partition(int[] failed, int[] sizes) {
+            this.failed = failed;
+            this.sizes = sizes;
+        }
+
+        /**
+         * Returns the failed vertices.
+         *
+         * @return the failed vertices
+         */
+        public int[] failed() {
+            return failed.clone();
+        }
+
+        /**
+         * Returns the sizes of the surviving components, largest first.
+         *
+         * @return the component sizes in descending order
+         */
+        public int[] componentSizes() {
+            return sizes.clone();
+        }
+
+        /**
+         * Returns a string representation of this partition.
+         *
+         * @return the failed vertices followed by the component sizes
+         */
+        public String toString() {
+            return "Failing " + Arrays.toString(failed) + " leaves components of sizes " + Arrays.toString(sizes);
+        }
+    }
+
+    // per-thread search state; mark[x] == generation means x was visited in the current simulation
+    private static class Scratch {
+        private final int[] mark;
+        private final int[] queue;
+        private final int[] sizes;
+        private int generation;
+
+        private Scratch(int V) {
+            mark = new int[V];
+            queue = new int[V];
+            sizes = new int[V];
+        }
+    }
+
+    /**
+     * Initializes a simulator for {@code G} that uses the common fork-join pool.
+     *
+     * @param  G the graph
+     */
+    public FailureSimulator(CSRGraph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes a simulator for {@code G} that runs on the given pool.
+     *
+     * @param  G the graph
+     * @param  pool the pool that runs the pairwise simulation
+     */
+    public FailureSimulator(CSRGraph G, ForkJoinPool pool) {
+        this.G = G;
+        this.V = G.V();
+        this.pool = pool;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(V));
+    }
+
+    /**
+     * Simulates the failure of the given vertices.
+     *
+     * @param  failed the vertices that fail
+     * @return the sizes of the surviving components, largest first
+     * @throws IllegalArgumentException unless every vertex is between {@code 0} and {@code V-1}
+     */
+    public int[] simulate(int... failed) {
+        for (int v : failed) validateVertex(v);
+        Scratch s = scratch.get();
+        return Arrays.copyOf(s.sizes, components(s, failed));
+    }
+
+    /**
+     * Simulates the failure of every pair of distinct vertices, in parallel.
+     *
+     * @return the pairs whose failure leaves more than one component, ordered by first and then second vertex
+     */
+    public List<Partition> partitioningPairs() {
+        if (V < 2) return new ArrayList<Partition>();
+        long pairs = (long) V * (V - 1) / 2;
+        long grain = Math.max(1, pairs / (8L * pool.getParallelism()));
+        return pool.invoke(new PairTask(0, V - 1, grain));
+    }
+
+    // the pairs (v, w) with lo <= v < hi and v < w
+    private class PairTask extends RecursiveTask<List<Partition>> {
+        private static final long serialVersionUID = 1L;
+        private final int lo;
+        private final int hi;
+        private final long grain;
+
+        private PairTask(int lo, int hi, long grain) {
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected List<Partition> compute() {
+            if (hi - lo > 1 && pairsBefore(hi) - pairsBefore(lo) > grain) {
+                // split where half of the pairs in the range lie on each side
+                long half = (pairsBefore(lo) + pairsBefore(hi)) / 2;
+                int mid = lo + 1;
+                while (mid < hi - 1 && pairsBefore(mid + 1) <= half) mid++;
+                PairTask left = new PairTask(lo, mid, grain);
+                left.fork();
+                List<Partition> right = new PairTask(mid, hi, grain).compute();
+                List<Partition> result = left.join();
+                result.addAll(right);
+                return result;
+            }
+            List<Partition> result = new ArrayList<Partition>();
+            Scratch s = scratch.get();
+            int[] failed = new int[2];
+            for (int v = lo; v < hi; v++) {
+                for (int w = v + 1; w < V; w++) {
+                    failed[0] = v;
+                    failed[1] = w;
+                    int n = components(s, failed);
+                    if (n > 1) result.add(new Partition(new int[] { v, w }, Arrays.copyOf(s.sizes, n)));
+                }
+            }
+            return result;
+        }
+    }
+
+    // number of pairs (v, w) with v < row
+    private long pairsBefore(int row) {
+        return (long) row * (V - 1) - (long) row * (row - 1) / 2;
+    }
+
+    // breadth-first search of G minus the failed vertices; leaves the sizes, descending, in s.sizes
+    private int components(Scratch s, int[] failed) {
+        int gen = ++s.generation;
+        if (gen == Integer.MAX_VALUE) {
+            Arrays.fill(s.mark, 0);
+            s.generation = gen = 1;
+        }
+        int[] mark = s.mark;
+        int[] queue = s.queue;
+        for (int v : failed) mark[v] = gen;
+
+        int n = 0;
+        for (int root = 0; root < V; root++) {
+            if (mark[root] == gen) continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = root;
+            mark[root] = gen;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int k = G.begin(v); k < G.end(v); k++) {
+                    int w = G.neighbor(k);
+                    if (mark[w] != gen) {
+                        mark[w] = gen;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+            s.sizes[n++] = tail;
+        }
+
+        // sort the sizes into descending order
+        Arrays.sort(s.sizes, 0, n);
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            int swap = s.sizes[i];
+            s.sizes[i] = s.sizes[j];
+            s.sizes[j] = swap;
+        }
+        return n;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Reads a network from the file named by the first argument. Simulates the
+     * failure of the vertices given by the remaining arguments or, if there are
+     * none, of every pair of vertices.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        NetworkAnalysis.readGraphFile(args[0]);
+        FailureSimulator simulator = new FailureSimulator(NetworkAnalysis.graph.toCSR());
+        if (args.length > 1) {
+            int[] failed = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) failed[i - 1] = Integer.parseInt(args[i]);
+            System.out.println("Failing " + Arrays.toString(failed) + " leaves components of sizes "
+                               + Arrays.toString(simulator.simulate(failed)));
+            return;
+        }
+        List<Partition> partitions = simulator.partitioningPairs();
+        for (Partition p : partitions) System.out.println(p);
+        System.out.println(partitions.size() + " of the vertex pairs partition the network");
+    }
+}
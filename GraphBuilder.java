@@ -0,0 +1,249 @@
+//GraphBuilder.java
+
+
+/******************************************************************************
+ *  Compilation:  javac GraphBuilder.java
+ *  Execution:    java NetworkBenchmark load E1 E2 ...
+ *
+ *  Streaming bulk loader for edge-weighted graphs.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/**
+ *  The {@code GraphBuilder} class collects the edges of a network one at a
+ *  time and then builds either an {@link EdgeWeightedGraph} or a
+ *  {@link CSRGraph} from them. Edges are buffered in growable primitive
+ *  arrays, so adding an edge takes constant amortized time and allocates
+ *  no objects.
+ *  <p>
+ *  Parallel edges (two edges joining the same pair of vertices, in either
+ *  direction) are dropped when the graph is built, keeping the first one
+ *  added. Duplicates are found with a counting sort on the smaller endpoint
+ *  followed by a stamp array over the larger one, so de-duplication takes
+ *  time proportional to <em>E</em> + <em>V</em> rather than a scan of an
+ *  adjacency list per insertion.
+ */
+public class GraphBuilder {
+
+    private final int V;
+    private int n;                  // number of buffered edges
+    private int[] either;
+    private int[] other;
+    private double[] length;
+    private int[] bandwidth;
+    private boolean[] copper;
+
+    /**
+     * Initializes an empty builder for a graph with {@code V} vertices.
+     *
+     * @param  V the number of vertices
+     * @throws IllegalArgumentException if {@code V < 0}
+     */
+    public GraphBuilder(int V) {
+        this(V, 16);
+    }
+
+    /**
+     * Initializes an empty builder for a graph with {@code V} vertices
+     * and room for {@code capacity} edges before it needs to grow.
+     *
+     * @param  V the number of vertices
+     * @param  capacity the expected number of edges
+     * @throws IllegalArgumentException if {@code V < 0}
+     */
+    public GraphBuilder(int V, int capacity) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        this.V = V;
+        capacity = Math.max(capacity, 1);
+        either = new int[capacity];
+        other = new int[capacity];
+        length = new double[capacity];
+        bandwidth = new int[capacity];
+        copper = new boolean[capacity];
+    }
+
+    /**
+     * Returns the number of vertices of the graph being built.
+     *
+     * @return the number of vertices
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges buffered so far.
+     *
+     * @return the number of edges buffered so far
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Adds an edge between {@code v} and {@code w}.
+     *
+     * @param  v one vertex
+     * @param  w the other vertex
+     * @param  isCopper {@code true} for a copper cable, {@code false} for an optical one
+     * @param  bw the bandwidth of the edge
+     * @param  len the length of the edge
+     * @throws IllegalArgumentException unless both endpoints are between {@code 0} and {@code V-1}
+     * @throws IllegalArgumentException if {@code len} is {@code NaN}
+     */
+    public void addEdge(int v, int w, boolean isCopper, int bw, double len) {
+        validateVertex(v);
+        validateVertex(w);
+        if (Double.isNaN(len)) throw new IllegalArgumentException("Length is NaN");
+        if (n == either.length) resize(2 * n);
+        either[n] = v;
+        other[n] = w;
+        copper[n] = isCopper;
+        bandwidth[n] = bw;
+        length[n] = len;
+        n++;
+    }
+
+    /**
+     * Adds an edge between {@code v} and {@code w} with the given cable type.
+     *
+     * @param  v one vertex
+     * @param  w the other vertex
+     * @param  type the cable type, either {@code "copper"} or {@code "optical"}
+     * @param  bw the bandwidth of the edge
+     * @param  len the length of the edge
+     * @throws IllegalArgumentException if the cable type is not valid
+     */
+    public void addEdge(int v, int w, String type, int bw, double len) {
+        if (type.equals("copper")) addEdge(v, w, true, bw, len);
+        else if (type.equals("optical")) addEdge(v, w, false, bw, len);
+        else throw new IllegalArgumentException("Invalid cable type");
+    }
+
+    /**
+     * Adds the edge {@code e}.
+     *
+     * @param  e the edge
+     * @throws IllegalArgumentException unless both endpoints are between {@code 0} and {@code V-1}
+     */
+    public void addEdge(Edge e) {
+        int v = e.either();
+        addEdge(v, e.other(v), e.isCopper(), e.bandwidth(), e.length());
+    }
+
+    /**
+     * Appends every edge buffered in {@code that}, in order, after the edges of this builder.
+     * Takes time proportional to the number of edges appended.
+     *
+     * @param  that a builder for a graph with the same number of vertices
+     * @throws IllegalArgumentException if the two builders have different numbers of vertices
+     */
+    public void addAll(GraphBuilder that) {
+        if (that.V != V) throw new IllegalArgumentException("Builders have different numbers of vertices");
+        int m = that.n;
+        if (n + m > either.length) resize(Math.max(n + m, 2 * n));
+        System.arraycopy(that.either, 0, either, n, m);
+        System.arraycopy(that.other, 0, other, n, m);
+        System.arraycopy(that.length, 0, length, n, m);
+        System.arraycopy(that.bandwidth, 0, bandwidth, n, m);
+        System.arraycopy(that.copper, 0, copper, n, m);
+        n += m;
+    }
+
+    // helper function to resize the edge arrays
+    private void resize(int capacity) {
+        either = Arrays.copyOf(either, capacity);
+        other = Arrays.copyOf(other, capacity);
+        length = Arrays.copyOf(length, capacity);
+        bandwidth = Arrays.copyOf(bandwidth, capacity);
+        copper = Arrays.copyOf(copper, capacity);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Drops every edge that joins the same pair of vertices as an earlier
+     * edge, keeping the remaining edges in the order they were added.
+     * This method takes time proportional to <em>E</em> + <em>V</em>.
+     *
+     * @return the number of edges dropped
+     */
+    public int removeParallelEdges() {
+        // counting sort of the edge ids by smaller endpoint, stable in id order
+        int[] start = new int[V + 1];
+        for (int e = 0; e < n; e++) {
+            start[Math.min(either[e], other[e]) + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] order = new int[n];
+        int[] next = Arrays.copyOf(start, V);
+        for (int e = 0; e < n; e++) {
+            order[next[Math.min(either[e], other[e])]++] = e;
+        }
+
+        // within each bucket, an edge is parallel if its larger endpoint was already stamped
+        boolean[] parallel = new boolean[n];
+        int[] stamp = new int[V];
+        Arrays.fill(stamp, -1);
+        for (int v = 0; v < V; v++) {
+            for (int i = start[v]; i < start[v + 1]; i++) {
+                int e = order[i];
+                int w = Math.max(either[e], other[e]);
+                if (stamp[w] == v) parallel[e] = true;
+                else stamp[w] = v;
+            }
+        }
+
+        // compact the survivors in place
+        int kept = 0;
+        for (int e = 0; e < n; e++) {
+            if (parallel[e]) continue;
+            either[kept] = either[e];
+            other[kept] = other[e];
+            length[kept] = length[e];
+            bandwidth[kept] = bandwidth[e];
+            copper[kept] = copper[e];
+            kept++;
+        }
+        int dropped = n - kept;
+        n = kept;
+        return dropped;
+    }
+
+    /**
+     * Returns a new {@link EdgeWeightedGraph} containing the buffered edges,
+     * without parallel edges, in the order they were added.
+     *
+     * @return the graph
+     */
+    public EdgeWeightedGraph buildGraph() {
+        removeParallelEdges();
+        EdgeWeightedGraph G = new EdgeWeightedGraph(V);
+        for (int e = 0; e < n; e++) {
+            G.addEdge(new Edge(either[e], other[e], length[e], copper[e] ? "copper" : "optical", bandwidth[e]));
+        }
+        return G;
+    }
+
+    /**
+     * Returns a new {@link CSRGraph} containing the buffered edges, without
+     * parallel edges, numbered in the order they were added. No {@link Edge}
+     * objects are created.
+     *
+     * @return the graph
+     */
+    public CSRGraph buildCSR() {
+        removeParallelEdges();
+        return new CSRGraph(V, n, Arrays.copyOf(either, n), Arrays.copyOf(other, n),
+                            Arrays.copyOf(length, n), Arrays.copyOf(bandwidth, n), Arrays.copyOf(copper, n));
+    }
+
+}
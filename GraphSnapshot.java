@@ -0,0 +1,297 @@
+//GraphSnapshot.java
+
+
+/******************************************************************************
+ *  Compilation:  javac GraphSnapshot.java
+ *  Execution:    java GraphSnapshot network_data2.txt network_data2.snapshot
+ *
+ *  Versioned binary snapshots of a network, loaded by memory-mapping the
+ *  file instead of parsing text.
+ *
+ *  % java GraphSnapshot network_data2.txt network_data2.snapshot
+ *  text: 9 vertices, 13 edges read in 32.3 ms
+ *  snapshot: 857 bytes written in 11.0 ms, read in 1.8 ms
+ *  round trip OK
+ *
+ ******************************************************************************/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ *  The {@code GraphSnapshot} class writes a {@link CSRGraph} to a binary file
+ *  and reads it back. A snapshot holds every array of the graph as it is laid
+ *  out in memory, so loading one is a sequence of bulk copies out of a
+ *  memory-mapped file: no text is parsed and the adjacency is not rebuilt.
+ *  <p>
+ *  The file starts with a 24-byte header: the magic number {@code "NETS"},
+ *  the format version, <em>V</em>, <em>E</em> and the CRC-32C checksum of
+ *  the rest of the file. Then come the arrays, little-endian and without
+ *  padding: the doubles (length and latency per edge, latency per
+ *  adjacency slot), then the ints (the <em>V</em> + 1 slot offsets, both
+ *  endpoints and the bandwidth per edge, neighbor and edge id per slot),
+ *  then one byte per edge for the cable type. A snapshot with the wrong
+ *  magic number, an unknown version, the wrong length or a bad checksum is
+ *  rejected.
+ *  <p>
+ *  Writing and reading take time proportional to <em>E</em> + <em>V</em>,
+ *  dominated by copying memory and computing the checksum.
+ */
+public class GraphSnapshot {
+    private static final int MAGIC = 0x5354454E;        // "NETS" in little-endian order
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int WINDOW = 1 << 30;          // bytes mapped at a time
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int ANALYSIS_LIMIT = 5000;     // largest V whose analyses main() compares
+
+    // This class should not be instantiated.
+    private GraphSnapshot() { }
+
+    /**
+     * Writes {@code G} to a snapshot file, replacing the file only once the
+     * snapshot is complete.
+     *
+     * @param  G the graph
+     * @param  path the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CSRGraph G, Path path) throws IOException {
+        int V = G.V();
+        int E = G.E();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel, HEADER_BYTES);
+            for (int e = 0; e < E; e++) out.putDouble(G.length(e));
+            for (int e = 0; e < E; e++) out.putDouble(G.latency(e));
+            for (int k = 0; k < 2 * E; k++) out.putDouble(G.slotLatency(k));
+            for (int v = 0; v < V; v++) out.putInt(G.begin(v));
+            out.putInt(2 * E);
+            for (int e = 0; e < E; e++) out.putInt(G.either(e));
+            for (int e = 0; e < E; e++) out.putInt(G.other(e, G.either(e)));
+            for (int e = 0; e < E; e++) out.putInt(G.bandwidth(e));
+            for (int k = 0; k < 2 * E; k++) out.putInt(G.neighbor(k));
+            for (int k = 0; k < 2 * E; k++) out.putInt(G.edgeAt(k));
+            for (int e = 0; e < E; e++) out.putByte(G.isCopper(e) ? (byte) 1 : (byte) 0);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(V).putInt(E).putLong(out.crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // buffered little-endian output that checksums everything it writes; also used by LandmarkIndex
+    static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32C crc = new CRC32C();
+        private long position;
+
+        Output(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void putDouble(double x) throws IOException {
+            if (buffer.remaining() < 8) flush();
+            buffer.putDouble(x);
+        }
+
+        void putInt(int x) throws IOException {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(x);
+        }
+
+        private void putByte(byte x) throws IOException {
+            if (!buffer.hasRemaining()) flush();
+            buffer.put(x);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) position += channel.write(buffer, position);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Is the given file a graph snapshot? Checks the magic number only.
+     *
+     * @param  path the file
+     * @return {@code true} if the file starts with the snapshot magic number
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) { }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Reads a graph from a snapshot file, verifying its checksum.
+     *
+     * @param  path the snapshot file
+     * @return the graph
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid snapshot
+     */
+    public static CSRGraph read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) { }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC)
+                throw new IllegalArgumentException(path + " is not a graph snapshot");
+            int version = header.getInt(4);
+            if (version != FORMAT_VERSION)
+                throw new IllegalArgumentException("unsupported snapshot version " + version + " in " + path);
+            int V = header.getInt(8);
+            int E = header.getInt(12);
+            long checksum = header.getLong(16);
+            if (V < 0 || E < 0 || E > (Integer.MAX_VALUE - 8) / 2)
+                throw new IllegalArgumentException("corrupt snapshot header in " + path);
+            long expected = HEADER_BYTES + 8L * (2L * E + 2L * E) + 4L * (V + 1 + 3L * E + 4L * E) + E;
+            if (channel.size() != expected)
+                throw new IllegalArgumentException("snapshot " + path + " has " + channel.size() + " bytes, expected " + expected);
+
+            CRC32C crc = new CRC32C();
+            long position = HEADER_BYTES;
+            double[] length = new double[E];
+            double[] latency = new double[E];
+            double[] adjLatency = new double[2 * E];
+            position = readDoubles(channel, position, length, crc);
+            position = readDoubles(channel, position, latency, crc);
+            position = readDoubles(channel, position, adjLatency, crc);
+            int[] offset = new int[V + 1];
+            int[] either = new int[E];
+            int[] other = new int[E];
+            int[] bandwidth = new int[E];
+            int[] adj = new int[2 * E];
+            int[] adjEdge = new int[2 * E];
+            position = readInts(channel, position, offset, crc);
+            position = readInts(channel, position, either, crc);
+            position = readInts(channel, position, other, crc);
+            position = readInts(channel, position, bandwidth, crc);
+            position = readInts(channel, position, adj, crc);
+            position = readInts(channel, position, adjEdge, crc);
+            boolean[] copper = readBooleans(channel, position, E, crc);
+            if (crc.getValue() != checksum)
+                throw new IllegalArgumentException("checksum mismatch in snapshot " + path);
+            if (offset[0] != 0 || offset[V] != 2 * E)
+                throw new IllegalArgumentException("corrupt adjacency offsets in snapshot " + path);
+
+            return new CSRGraph(V, E, offset, adj, adjEdge, adjLatency, either, other, length, latency, bandwidth, copper);
+        }
+    }
+
+    // copies doubles out of the file starting at position, returning the position after them
+    static long readDoubles(FileChannel channel, long position, double[] a, CRC32C crc) throws IOException {
+        for (int done = 0; done < a.length; ) {
+            int n = Math.min(a.length - done, WINDOW / 8);
+            MappedByteBuffer buffer = map(channel, position, 8L * n, crc);
+            buffer.asDoubleBuffer().get(a, done, n);
+            position += 8L * n;
+            done += n;
+        }
+        return position;
+    }
+
+    static long readInts(FileChannel channel, long position, int[] a, CRC32C crc) throws IOException {
+        for (int done = 0; done < a.length; ) {
+            int n = Math.min(a.length - done, WINDOW / 4);
+            MappedByteBuffer buffer = map(channel, position, 4L * n, crc);
+            buffer.asIntBuffer().get(a, done, n);
+            position += 4L * n;
+            done += n;
+        }
+        return position;
+    }
+
+    private static boolean[] readBooleans(FileChannel channel, long position, int n, CRC32C crc) throws IOException {
+        boolean[] a = new boolean[n];
+        for (int done = 0; done < n; ) {
+            int m = Math.min(n - done, WINDOW);
+            MappedByteBuffer buffer = map(channel, position, m, crc);
+            for (int i = 0; i < m; i++) a[done + i] = buffer.get(i) != 0;
+            position += m;
+            done += m;
+        }
+        return a;
+    }
+
+    // maps a little-endian window of the file and adds it to the checksum
+    private static MappedByteBuffer map(FileChannel channel, long position, long size, CRC32C crc) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        crc.update(buffer.duplicate());
+        return buffer;
+    }
+
+    /**
+     * Reads the network in the text file named by the first argument, writes
+     * it to the snapshot file named by the second, reads the snapshot back
+     * and checks that it describes the same graph and, for a small graph,
+     * that it gives the same answers; exits with status 1 if not.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        Path text = Paths.get(args[0]);
+        Path snapshot = Paths.get(args[1]);
+        long start = System.nanoTime();
+        CSRGraph G = MappedTopologyReader.readParallel(args[0]).buildCSR();
+        System.out.printf("text: %d vertices, %d edges read in %.1f ms%n", G.V(), G.E(), (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        write(G, snapshot);
+        double written = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        CSRGraph H = read(snapshot);
+        double read = (System.nanoTime() - start) / 1e6;
+        System.out.printf("snapshot: %d bytes written in %.1f ms, read in %.1f ms%n", Files.size(snapshot), written, read);
+
+        boolean same = G.V() == H.V() && G.E() == H.E() && G.toString().equals(H.toString());
+        for (int e = 0; same && e < G.E(); e++) {
+            int v = G.either(e);
+            same = v == H.either(e) && G.other(e, v) == H.other(e, v) && G.length(e) == H.length(e)
+                   && G.latency(e) == H.latency(e) && G.bandwidth(e) == H.bandwidth(e) && G.isCopper(e) == H.isCopper(e);
+        }
+        for (int k = 0; same && k < 2 * G.E(); k++) {
+            same = G.neighbor(k) == H.neighbor(k) && G.edgeAt(k) == H.edgeAt(k) && G.slotLatency(k) == H.slotLatency(k);
+        }
+        if (G.V() <= ANALYSIS_LIMIT) same = same && analyses(G).equals(analyses(H));
+        System.out.println(same ? "round trip OK" : "ROUND TRIP MISMATCH");
+        if (!same) System.exit(1);
+    }
+
+    // the answers of the analyses, for comparison
+    private static String analyses(CSRGraph G) {
+        StringBuilder s = new StringBuilder();
+        s.append(G.copperOnly()).append('\n');
+        s.append(G.lowestLatencySpanningTree()).append('\n');
+        if (G.V() > 0) s.append(G.lowestLatencyPath(0, G.V() - 1)).append('\n');
+        Survivability survivability = G.remainConnected();
+        s.append(survivability.survivesTwoFailures()).append(' ').append(survivability.isConnected()).append(' ');
+        s.append(Arrays.toString(survivability.articulationPoints()));
+        for (int[] pair : survivability.separationPairs()) s.append(' ').append(pair[0]).append('-').append(pair[1]);
+        return s.toString();
+    }
+}
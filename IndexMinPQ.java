@@ -0,0 +1,291 @@
+//IndexMinPQ.java
+
+
+/******************************************************************************
+ *  Compilation:  javac IndexMinPQ.java
+ *  Execution:    java IndexMinPQ
+ *
+ *  Minimum-oriented indexed priority queue with primitive double priorities,
+ *  implemented with a 4-ary heap.
+ *
+ *  The heap is zero-based: the children of position k are 4k+1 through 4k+4.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ *  The {@code IndexMinPQ} class represents an indexed priority queue of
+ *  {@code double} priorities. Each priority is associated with an integer
+ *  index between 0 and <em>maxN</em> – 1, typically a vertex, and a client
+ *  can change the priority of an index already on the queue. It supports
+ *  the usual <em>insert</em> and <em>delete-the-minimum</em> operations,
+ *  along with <em>decrease-key</em>, <em>change-key</em> and <em>contains</em>.
+ *  <p>
+ *  This implementation uses a 4-ary heap of indices along with arrays that
+ *  map each index to its heap position and its priority, so the queue never
+ *  holds more than <em>maxN</em> entries and stores no objects. A 4-ary heap
+ *  is half as deep as a binary one, and the four children of a node are
+ *  next to each other in memory, so <em>insert</em> and
+ *  <em>decrease-key</em>, the operations Dijkstra's and Prim's algorithms
+ *  call most, take half as many steps, and <em>delete-the-minimum</em> reads a
+ *  cache line of children per level instead of two scattered ones. Entries
+ *  are moved into a hole rather than exchanged.
+ *  The <em>insert</em>, <em>delete-the-minimum</em>, <em>decrease-key</em>
+ *  and <em>change-key</em> operations take logarithmic time. The <em>is-empty</em>, <em>size</em>,
+ *  <em>min-index</em>, <em>min-key</em>, <em>contains</em> and
+ *  <em>key-of</em> operations take constant time.
+ *  Construction takes time proportional to <em>maxN</em>.
+ */
+public class IndexMinPQ {
+    private final int maxN;     // maximum number of elements on PQ
+    private int n;              // number of elements on PQ
+    private final int[] pq;     // 4-ary heap using 0-based indexing
+    private final int[] qp;     // inverse of pq - qp[pq[i]] = pq[qp[i]] = i
+    private final double[] keys; // keys[i] = priority of i
+
+    /**
+     * Initializes an empty indexed priority queue with indices between
+     * {@code 0} and {@code maxN - 1}.
+     *
+     * @param  maxN the indices on this priority queue are 0 through {@code maxN - 1}
+     * @throws IllegalArgumentException if {@code maxN < 0}
+     */
+    public IndexMinPQ(int maxN) {
+        if (maxN < 0) throw new IllegalArgumentException();
+        this.maxN = maxN;
+        n = 0;
+        keys = new double[maxN];
+        pq = new int[maxN];
+        qp = new int[maxN];
+        Arrays.fill(qp, -1);
+    }
+
+    /**
+     * Returns true if this priority queue is empty.
+     *
+     * @return {@code true} if this priority queue is empty;
+     *         {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Is {@code i} an index on this priority queue?
+     *
+     * @param  i an index
+     * @return {@code true} if {@code i} is an index on this priority queue;
+     *         {@code false} otherwise
+     * @throws IllegalArgumentException unless {@code 0 <= i < maxN}
+     */
+    public boolean contains(int i) {
+        validateIndex(i);
+        return qp[i] != -1;
+    }
+
+    /**
+     * Returns the number of keys on this priority queue.
+     *
+     * @return the number of keys on this priority queue
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Associates priority {@code key} with index {@code i}.
+     *
+     * @param  i an index
+     * @param  key the priority to associate with index {@code i}
+     * @throws IllegalArgumentException unless {@code 0 <= i < maxN}
+     * @throws IllegalArgumentException if there already is an item associated
+     *         with index {@code i}
+     */
+    public void insert(int i, double key) {
+        validateIndex(i);
+        if (contains(i)) throw new IllegalArgumentException("index is already in the priority queue");
+        keys[i] = key;
+        swim(n++, i);
+    }
+
+    /**
+     * Returns an index associated with a minimum priority.
+     *
+     * @return an index associated with a minimum priority
+     * @throws NoSuchElementException if this priority queue is empty
+     */
+    public int minIndex() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        return pq[0];
+    }
+
+    /**
+     * Returns a minimum priority.
+     *
+     * @return a minimum priority
+     * @throws NoSuchElementException if this priority queue is empty
+     */
+    public double minKey() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        return keys[pq[0]];
+    }
+
+    /**
+     * Removes a minimum priority and returns its associated index.
+     *
+     * @return an index associated with a minimum priority
+     * @throws NoSuchElementException if this priority queue is empty
+     */
+    public int delMin() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        int min = pq[0];
+        qp[min] = -1;        // delete
+        if (--n > 0) sink(0, pq[n]);
+        return min;
+    }
+
+    /**
+     * Returns the priority associated with index {@code i}.
+     *
+     * @param  i the index of the priority to return
+     * @return the priority associated with index {@code i}
+     * @throws IllegalArgumentException unless {@code 0 <= i < maxN}
+     * @throws NoSuchElementException no priority is associated with index {@code i}
+     */
+    public double keyOf(int i) {
+        validateIndex(i);
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        return keys[i];
+    }
+
+    /**
+     * Decrease the priority associated with index {@code i} to the specified value.
+     *
+     * @param  i the index of the priority to decrease
+     * @param  key decrease the priority associated with index {@code i} to this value
+     * @throws IllegalArgumentException unless {@code 0 <= i < maxN}
+     * @throws IllegalArgumentException if {@code key >= keyOf(i)}
+     * @throws NoSuchElementException no priority is associated with index {@code i}
+     */
+    public void decreaseKey(int i, double key) {
+        validateIndex(i);
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] <= key)
+            throw new IllegalArgumentException("Calling decreaseKey() with a key no smaller than the key in the priority queue");
+        keys[i] = key;
+        swim(qp[i], i);
+    }
+
+    /**
+     * Inserts index {@code i} with priority {@code key}, or lowers its priority
+     * to {@code key} if it is already on the queue with a larger one.
+     *
+     * @param  i an index
+     * @param  key the priority for index {@code i}
+     * @throws IllegalArgumentException unless {@code 0 <= i < maxN}
+     */
+    public void insertOrDecrease(int i, double key) {
+        if (!contains(i)) insert(i, key);
+        else if (key < keys[i]) decreaseKey(i, key);
+    }
+
+    /**
+     * Changes the priority associated with index {@code i} to the specified
+     * value, which may be larger or smaller than the current one.
+     *
+     * @param  i the index of the priority to change
+     * @param  key change the priority associated with index {@code i} to this value
+     * @throws IllegalArgumentException unless {@code 0 <= i < maxN}
+     * @throws NoSuchElementException no priority is associated with index {@code i}
+     */
+    public void changeKey(int i, double key) {
+        validateIndex(i);
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        keys[i] = key;
+        swim(qp[i], i);
+        sink(qp[i], i);
+    }
+
+    /**
+     * Removes every index from this priority queue. Takes time proportional
+     * to the number of indices on the queue, so a client can reuse one queue
+     * for many searches.
+     */
+    public void clear() {
+        for (int k = 0; k < n; k++) {
+            qp[pq[k]] = -1;
+        }
+        n = 0;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= i < maxN}
+    private void validateIndex(int i) {
+        if (i < 0) throw new IllegalArgumentException("index is negative: " + i);
+        if (i >= maxN) throw new IllegalArgumentException("index >= capacity: " + i);
+    }
+
+   /***************************************************************************
+    * Heap helper functions.
+    ***************************************************************************/
+
+    // move index i up from position k, shifting larger parents down into the hole
+    private void swim(int k, int i) {
+        double key = keys[i];
+        while (k > 0) {
+            int parent = (k - 1) >>> 2;
+            int p = pq[parent];
+            if (keys[p] <= key) break;
+            pq[k] = p;
+            qp[p] = k;
+            k = parent;
+        }
+        pq[k] = i;
+        qp[i] = k;
+    }
+
+    // move index i down from position k, shifting the smallest child up into the hole
+    private void sink(int k, int i) {
+        double key = keys[i];
+        while (true) {
+            int first = 4*k + 1;
+            if (first >= n) break;
+            int last = Math.min(first + 4, n);
+            int j = first;
+            double min = keys[pq[first]];
+            for (int c = first + 1; c < last; c++) {
+                double d = keys[pq[c]];
+                if (d < min) {
+                    min = d;
+                    j = c;
+                }
+            }
+            if (key <= min) break;
+            pq[k] = pq[j];
+            qp[pq[k]] = k;
+            k = j;
+        }
+        pq[k] = i;
+        qp[i] = k;
+    }
+
+
+    /**
+     * Unit tests the {@code IndexMinPQ} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        double[] priorities = { 0.5, 0.25, 0.75, 0.125, 1.0 };
+        IndexMinPQ pq = new IndexMinPQ(priorities.length);
+        for (int i = 0; i < priorities.length; i++) {
+            pq.insert(i, priorities[i]);
+        }
+        pq.decreaseKey(4, 0.0625);
+        while (!pq.isEmpty()) {
+            double key = pq.minKey();
+            System.out.println(pq.delMin() + " " + key);
+        }
+    }
+}
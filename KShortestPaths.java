@@ -0,0 +1,476 @@
+//KShortestPaths.java
+
+
+/******************************************************************************
+ *  Compilation:  javac KShortestPaths.java
+ *  Execution:    java KShortestPaths network_data2.txt v w K
+ *
+ *  The K lowest latency loopless paths between two routers, by Yen's
+ *  algorithm, for planning redundant routes.
+ *
+ *  % java KShortestPaths network_data2.txt 0 8 4
+ *  1: latency 4.782608695652174E-7, bandwidth 100, vertices [0, 2, 5, 8]
+ *  2: latency 5.217391304347826E-7, bandwidth 100, vertices [0, 2, 5, 6, 8]
+ *  3: latency 5.217391304347826E-7, bandwidth 10, vertices [0, 6, 8]
+ *  4: latency 6.521739130434783E-7, bandwidth 10, vertices [0, 6, 5, 8]
+ *
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  The {@code KShortestPaths} class finds the <em>K</em> lowest latency
+ *  loopless paths from a source <em>s</em> to a target <em>t</em> of a
+ *  {@link CSRGraph}, in order of latency, each with its bottleneck
+ *  bandwidth: the backup routes to try when the best one fails or is full.
+ *  <p>
+ *  It uses Yen's algorithm. Each path after the first leaves an earlier
+ *  path at some <em>spur</em> vertex: it follows that path's
+ *  <em>root</em> from <em>s</em> to the spur vertex and then takes the
+ *  lowest latency <em>spur path</em> to <em>t</em> that avoids the root and
+ *  the next edge of every path found so far with the same root. The spur
+ *  paths of the last path found become candidates, and the lowest latency
+ *  candidate not yet taken is the next path. Only the spur vertices from
+ *  the one where the last path left its parent onwards can give new
+ *  candidates (Lawler's refinement), so the others are skipped.
+ *  <p>
+ *  Every spur search reuses one shortest-path tree towards <em>t</em>,
+ *  grown by Dijkstra's algorithm from <em>t</em> until it reaches
+ *  <em>s</em>, which also gives the first path. Its latencies are lower
+ *  bounds on the latency to <em>t</em> with part of the graph removed (and
+ *  the radius of the tree bounds those of the vertices it did not reach),
+ *  so the spur searches are A* searches that settle little more than the
+ *  vertices along the spur path. Only the best <em>K</em> candidates less
+ *  those already taken are kept, and a spur search gives up as soon as its
+ *  path would be longer than all of them. The spur searches of one path
+ *  are independent, so they run in parallel on a {@link ForkJoinPool},
+ *  each worker thread reusing one set of stamped search arrays.
+ *  <p>
+ *  All of the work is done in the constructor; it takes time proportional
+ *  to <em>E</em> log <em>V</em> for the tree, plus one A* search per spur
+ *  vertex of each path. The paths are then returned in constant time.
+ */
+public class KShortestPaths {
+    // candidates in order of latency, ties broken by edge ids so the order does not depend on the threads
+    private static final Comparator<Candidate> BY_LATENCY = (a, b) -> {
+        int order = Double.compare(a.latency, b.latency);
+        return order != 0 ? order : Arrays.compare(a.ids, b.ids);
+    };
+
+    private final CSRGraph G;
+    private final int s;
+    private final int t;
+    private final LatencyPath[] paths;  // in order of latency
+    private int spurs;                  // spur paths looked for
+    private long settled;               // vertices settled by the spur searches
+
+    /**
+     * Finds up to {@code K} lowest latency loopless paths from {@code s} to
+     * {@code t} in {@code G}, running the spur searches on the common
+     * fork-join pool.
+     *
+     * @param  G the graph
+     * @param  s the source vertex
+     * @param  t the target vertex
+     * @param  K the number of paths wanted
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1} and {@code K >= 1}
+     */
+    public KShortestPaths(CSRGraph G, int s, int t, int K) {
+        this(G, s, t, K, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds up to {@code K} lowest latency loopless paths from {@code s} to
+     * {@code t} in {@code G}, running the spur searches on the given pool.
+     *
+     * @param  G the graph
+     * @param  s the source vertex
+     * @param  t the target vertex
+     * @param  K the number of paths wanted
+     * @param  pool the pool that runs the spur searches
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1} and {@code K >= 1}
+     */
+    public KShortestPaths(CSRGraph G, int s, int t, int K, ForkJoinPool pool) {
+        this.G = G;
+        this.s = s;
+        this.t = t;
+        validateVertex(s);
+        validateVertex(t);
+        validateK(K);
+        paths = toArray(reverseSearch(pool).run(K));
+    }
+
+    // the paths to the root of a complete shortest-path tree, which may be shared, for instance
+    // from a ShortestPathCache
+    KShortestPaths(ShortestPathTree toTarget, int s, int K, ForkJoinPool pool) {
+        this.G = toTarget.graph();
+        this.s = s;
+        this.t = toTarget.source();
+        validateVertex(s);
+        validateK(K);
+        paths = toArray(new Yen(toTarget, pool).run(K));
+    }
+
+    private static LatencyPath[] toArray(List<LatencyPath> paths) {
+        return paths.toArray(new LatencyPath[0]);
+    }
+
+    // Dijkstra's algorithm from t, stopped once s is settled: the vertices it settled have their
+    // exact latency to t, and the others are at least as far as the frontier
+    private Yen reverseSearch(ForkJoinPool pool) {
+        int V = G.V();
+        double[] distance = new double[V];
+        int[] edgeTo = new int[V];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[t] = 0;
+        edgeTo[t] = -1;
+        IndexMinPQ pq = new IndexMinPQ(V);
+        pq.insert(t, 0);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            if (v == s) break;
+            for (int k = G.begin(v); k < G.end(v); k++) {
+                int w = G.neighbor(k);
+                double d = distance[v] + G.slotLatency(k);
+                if (d < distance[w]) {
+                    distance[w] = d;
+                    edgeTo[w] = G.edgeAt(k);
+                    pq.insertOrDecrease(w, d);
+                }
+            }
+        }
+        double radius = pq.isEmpty() ? Double.POSITIVE_INFINITY : pq.minKey();
+        return new Yen(distance, edgeTo, radius, pool);
+    }
+
+    // a path from s to t, and the index of the vertex where it left the path it was found from
+    private static final class Candidate {
+        private final int[] ids;
+        private final double latency;
+        private final int deviation;
+
+        private Candidate(CSRGraph G, int[] ids, int deviation) {
+            this.ids = ids;
+            this.deviation = deviation;
+            double sum = 0;
+            for (int e : ids) sum += G.latency(e);     // in path order, so equal paths have equal latencies
+            latency = sum;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Candidate && Arrays.equals(ids, ((Candidate) other).ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(ids);
+        }
+    }
+
+    // the arrays of one spur search, reused by one thread: nothing is cleared between searches,
+    // every entry is stamped with the search that wrote it
+    private static final class Search {
+        private final double[] distance;
+        private final int[] via;
+        private final int[] reached;        // reached[v] == query if distance[v] and via[v] are current
+        private final int[] blocked;        // blocked[v] == query if v is on the root
+        private final IndexMinPQ pq;
+        private int[] blockedEdges = new int[8];
+        private int blockedCount;
+        private int query;
+        private int settled;                // vertices settled by the last A* search
+
+        private Search(int V) {
+            distance = new double[V];
+            via = new int[V];
+            reached = new int[V];
+            blocked = new int[V];
+            pq = new IndexMinPQ(V);
+        }
+
+        private void start() {
+            if (++query == Integer.MAX_VALUE) {
+                query = 1;
+                Arrays.fill(reached, 0);
+                Arrays.fill(blocked, 0);
+            }
+            pq.clear();
+            blockedCount = 0;
+        }
+
+        private void blockEdge(int e) {
+            if (blockedCount == blockedEdges.length) blockedEdges = Arrays.copyOf(blockedEdges, 2 * blockedCount);
+            blockedEdges[blockedCount++] = e;
+        }
+
+        private boolean isBlockedEdge(int e) {
+            for (int i = 0; i < blockedCount; i++) {
+                if (blockedEdges[i] == e) return true;
+            }
+            return false;
+        }
+
+        private double distanceTo(int v) {
+            return reached[v] == query ? distance[v] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    // Yen's algorithm, with the state shared by the spur searches of one run
+    private final class Yen {
+        private final double[] toTarget;    // latency from each vertex the tree settled to t
+        private final int[] next;           // next[v] = id of the first edge on the tree path from v to t
+        private final double radius;        // every vertex the tree did not settle is at least this far from t
+        private final ForkJoinPool pool;
+        private final ThreadLocal<Search> searches;
+        private final List<Candidate> accepted = new ArrayList<Candidate>();
+        private Candidate[] spurPaths;      // spurPaths[i] = the candidate leaving the last path at its vertex i
+        private int[] spurSettled;          // and the vertices its search settled
+        private double limit;               // latency beyond which a candidate cannot be among the K paths
+
+        // the tree of a ShortestPathTree, complete
+        private Yen(ShortestPathTree tree, ForkJoinPool pool) {
+            this(tree.distanceArray(), tree.edgeArray(), Double.POSITIVE_INFINITY, pool);
+        }
+
+        private Yen(double[] toTarget, int[] next, double radius, ForkJoinPool pool) {
+            this.toTarget = toTarget;
+            this.next = next;
+            this.radius = radius;
+            this.pool = pool;
+            int V = G.V();
+            searches = ThreadLocal.withInitial(() -> new Search(V));
+        }
+
+        private List<LatencyPath> run(int K) {
+            List<LatencyPath> found = new ArrayList<LatencyPath>();
+            if (toTarget[s] == Double.POSITIVE_INFINITY) return found;
+            Candidate last = new Candidate(G, treePath(s), 0);
+            Set<Candidate> seen = new HashSet<Candidate>();
+            seen.add(last);
+            // only the best K - accepted.size() candidates can still be taken, so no more are kept
+            TreeSet<Candidate> candidates = new TreeSet<Candidate>(BY_LATENCY);
+            while (true) {
+                accepted.add(last);
+                found.add(new LatencyPath(G, s, t, last.ids, last.latency));
+                int wanted = K - accepted.size();
+                if (wanted == 0) break;
+                while (candidates.size() > wanted) candidates.pollLast();
+
+                int hops = last.ids.length;
+                if (last.deviation < hops) {
+                    spurPaths = new Candidate[hops];
+                    spurSettled = new int[hops];
+                    limit = candidates.size() == wanted ? candidates.last().latency : Double.POSITIVE_INFINITY;
+                    pool.invoke(new SpurTask(last, last.deviation, hops));
+                    for (int i = last.deviation; i < hops; i++) {
+                        spurs++;
+                        settled += spurSettled[i];
+                        if (spurPaths[i] != null && seen.add(spurPaths[i])) candidates.add(spurPaths[i]);
+                    }
+                }
+                if (candidates.isEmpty()) break;
+                last = candidates.pollFirst();
+            }
+            return found;
+        }
+
+        // looks for the spur paths leaving last at its vertices lo .. hi-1
+        private final class SpurTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final Candidate last;
+            private final int lo;
+            private final int hi;
+
+            private SpurTask(Candidate last, int lo, int hi) {
+                this.last = last;
+                this.lo = lo;
+                this.hi = hi;
+            }
+
+            @Override
+            protected void compute() {
+                if (hi - lo > 1) {
+                    int mid = (lo + hi) >>> 1;
+                    invokeAll(new SpurTask(last, lo, mid), new SpurTask(last, mid, hi));
+                    return;
+                }
+                spur(last, lo, searches.get());
+            }
+        }
+
+        // the candidate that follows last to its vertex i, then takes the lowest latency path
+        // to t avoiding the root and the edge after it of every accepted path with the same root
+        private void spur(Candidate last, int i, Search search) {
+            int[] ids = last.ids;
+            search.start();
+            int u = s;
+            double root = 0;
+            for (int j = 0; j < i; j++) {
+                search.blocked[u] = search.query;
+                root += G.latency(ids[j]);
+                u = G.other(ids[j], u);
+            }
+            for (Candidate path : accepted) {
+                if (path.ids.length > i && Arrays.equals(path.ids, 0, i, ids, 0, i)) search.blockEdge(path.ids[i]);
+            }
+
+            int[] spur = aStar(u, limit - root, search);
+            spurSettled[i] = search.settled;
+            if (spur == null) return;
+            int[] path = Arrays.copyOf(ids, i + spur.length);
+            System.arraycopy(spur, 0, path, i, spur.length);
+            spurPaths[i] = new Candidate(G, path, i);
+        }
+
+        // the edge ids of the tree path from u to t
+        private int[] treePath(int u) {
+            int count = 0;
+            for (int x = u; x != t; x = G.other(next[x], x)) count++;
+            int[] path = new int[count];
+            for (int x = u, i = 0; x != t; x = G.other(next[x], x)) path[i++] = next[x];
+            return path;
+        }
+
+        // A* search from u to t, ordered by the latency from u plus the tree's lower bound on the
+        // latency to t, skipping the blocked vertices and edges and giving up on paths longer
+        // than limit; the edge ids of the path found, or null
+        private int[] aStar(int u, double limit, Search search) {
+            int count = 0;
+            boolean found = false;
+            reach(search, u, 0, -1);
+            while (!search.pq.isEmpty()) {
+                if (search.pq.minKey() > limit) break;
+                int x = search.pq.delMin();
+                count++;
+                if (x == t) {
+                    found = true;
+                    break;
+                }
+                for (int k = G.begin(x); k < G.end(x); k++) {
+                    int y = G.neighbor(k);
+                    if (search.blocked[y] == search.query) continue;
+                    int e = G.edgeAt(k);
+                    if (x == u && search.isBlockedEdge(e)) continue;
+                    double d = search.distance[x] + G.slotLatency(k);
+                    // if rounding in the bounds settled y too early, this puts it back on the frontier
+                    if (d < search.distanceTo(y)) reach(search, y, d, e);
+                }
+            }
+            search.settled = count;
+            if (!found) return null;
+            int hops = 0;
+            for (int x = t; x != u; x = G.other(search.via[x], x)) hops++;
+            int[] path = new int[hops];
+            for (int x = t; x != u; x = G.other(search.via[x], x)) path[--hops] = search.via[x];
+            return path;
+        }
+
+        private void reach(Search search, int y, double d, int e) {
+            search.distance[y] = d;
+            search.via[y] = e;
+            search.reached[y] = search.query;
+            search.pq.insertOrDecrease(y, d + Math.min(toTarget[y], radius));
+        }
+    }
+
+    /**
+     * Returns the graph the paths were found in.
+     *
+     * @return the graph
+     */
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the number of paths found: {@code K}, or fewer if there are
+     * not that many loopless paths from the source to the target.
+     *
+     * @return the number of paths
+     */
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * Returns the path of rank {@code i}, 0 for a lowest latency path.
+     *
+     * @param  i the rank of the path
+     * @return the path, its latency and its bandwidth
+     * @throws IllegalArgumentException unless {@code 0 <= i < size()}
+     */
+    public LatencyPath path(int i) {
+        if (i < 0 || i >= paths.length)
+            throw new IllegalArgumentException("path " + i + " is not between 0 and " + (paths.length-1));
+        return paths[i];
+    }
+
+    /**
+     * Returns the paths found, in order of latency.
+     *
+     * @return the paths, their latencies and their bandwidths
+     */
+    public List<LatencyPath> paths() {
+        return Collections.unmodifiableList(Arrays.asList(paths));
+    }
+
+    /**
+     * Returns the number of spur paths looked for.
+     *
+     * @return the number of spur vertices visited
+     */
+    public int spurs() {
+        return spurs;
+    }
+
+    /**
+     * Returns the number of vertices settled by all the spur searches.
+     *
+     * @return the vertices settled
+     */
+    public long settled() {
+        return settled;
+    }
+
+    private static void validateK(int K) {
+        if (K < 1) throw new IllegalArgumentException("K = " + K + " is less than 1");
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V())
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (G.V()-1));
+    }
+
+    /**
+     * Reads a network from the file named by the first argument and prints
+     * the {@code K} lowest latency loopless paths between the vertices named
+     * by the second and third, {@code K} given by the fourth.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        NetworkAnalysis.readGraphFile(args[0]);
+        CSRGraph G = NetworkAnalysis.graph.toCSR();
+        int v = Integer.parseInt(args[1]);
+        int w = Integer.parseInt(args[2]);
+        int K = Integer.parseInt(args[3]);
+        KShortestPaths k = new KShortestPaths(G, v, w, K);
+        for (int i = 0; i < k.size(); i++) {
+            LatencyPath path = k.path(i);
+            System.out.printf("%d: latency %s, bandwidth %d, vertices %s%n", i + 1, path.latency(),
+                              path.bandwidth(), Arrays.toString(path.vertices()));
+        }
+        if (k.size() < K) System.out.println("no more loopless paths from " + v + " to " + w);
+    }
+}
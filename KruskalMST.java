@@ -0,0 +1,141 @@
+//KruskalMST.java
+
+
+/******************************************************************************
+ *  Compilation:  javac KruskalMST.java
+ *  Execution:    java NetworkBenchmark mst V E
+ *
+ *  Compute a minimum spanning forest using Kruskal's algorithm.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/**
+ *  The {@code KruskalMST} class computes a minimum spanning tree (or forest)
+ *  of a {@link CSRGraph} using Kruskal's algorithm: it scans the edges in
+ *  ascending order of latency and keeps every edge that joins two different
+ *  components of a {@link UF} union–find structure.
+ *  <p>
+ *  The edges are put in order up front by a stable LSD radix sort of their
+ *  ids on the bits of their latencies (with the bits of negative latencies
+ *  flipped, the bit patterns sort like the values), so no {@link Edge} objects or priority
+ *  queue are involved. Edges of equal latency keep the order in which they
+ *  were added. The sort takes time proportional to <em>E</em>, and the scan
+ *  stops as soon as <em>V</em> – 1 edges have been taken, so the whole
+ *  algorithm takes time proportional to <em>E</em> α(<em>V</em>).
+ */
+public class KruskalMST implements SpanningTree {
+    private static final int RADIX_BITS = 16;
+    private static final int R = 1 << RADIX_BITS;
+
+    private final CSRGraph G;
+    private final int[] mst;        // edge ids in the order Kruskal took them
+    private final double weight;
+
+    /**
+     * Compute a minimum spanning tree (or forest) of an edge-weighted graph.
+     *
+     * @param  G the edge-weighted graph
+     */
+    public KruskalMST(CSRGraph G) {
+        this.G = G;
+        int V = G.V();
+        int[] sorted = sortByLatency(G);
+        UF uf = new UF(V);
+        int[] tree = new int[Math.max(V - 1, 0)];
+        int count = 0;
+        double total = 0;
+        for (int i = 0; i < sorted.length && count < V - 1; i++) {
+            int e = sorted[i];
+            if (uf.union(G.either(e), G.other(e, G.either(e)))) {   // v-w does not create a cycle
+                tree[count++] = e;
+                total += G.latency(e);
+            }
+        }
+        mst = Arrays.copyOf(tree, count);
+        weight = total;
+    }
+
+    /**
+     * Returns the ids of all edges of {@code G} in ascending order of latency,
+     * ties in ascending order of id.
+     *
+     * @param  G the graph
+     * @return the sorted edge ids
+     */
+    public static int[] sortByLatency(CSRGraph G) {
+        int[] ids = new int[G.E()];
+        for (int e = 0; e < ids.length; e++) ids[e] = e;
+        return sortByLatency(G, ids);
+    }
+
+    /**
+     * Returns the given edge ids in ascending order of latency, ties keeping
+     * their order in {@code ids}.
+     *
+     * @param  G the graph
+     * @param  ids edge ids of {@code G}
+     * @return a new array with the ids in sorted order
+     */
+    public static int[] sortByLatency(CSRGraph G, int[] ids) {
+        int n = ids.length;
+        long[] keys = new long[n];
+        ids = ids.clone();
+        for (int i = 0; i < n; i++) {
+            // flip all the bits of negative latencies and the sign bit of the others,
+            // so the keys compare as unsigned in the order of Double.compare
+            long bits = Double.doubleToLongBits(G.latency(ids[i]));
+            keys[i] = bits ^ ((bits >> 63) | Long.MIN_VALUE);
+        }
+        long[] auxKeys = new long[n];
+        int[] auxIds = new int[n];
+        int[] count = new int[R + 1];
+        for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[(int) ((keys[i] >>> shift) & (R - 1)) + 1]++;
+            }
+            // skip the pass if every key has the same digit
+            if (n == 0 || count[(int) ((keys[0] >>> shift) & (R - 1)) + 1] == n) continue;
+            for (int r = 0; r < R; r++) {
+                count[r + 1] += count[r];
+            }
+            for (int i = 0; i < n; i++) {
+                int d = (int) ((keys[i] >>> shift) & (R - 1));
+                auxKeys[count[d]] = keys[i];
+                auxIds[count[d]++] = ids[i];
+            }
+            long[] swapKeys = keys;
+            keys = auxKeys;
+            auxKeys = swapKeys;
+            int[] swapIds = ids;
+            ids = auxIds;
+            auxIds = swapIds;
+        }
+        return ids;
+    }
+
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the ids of the edges in a minimum spanning tree (or forest),
+     * in ascending order of latency.
+     *
+     * @return the edge ids of a minimum spanning tree (or forest)
+     */
+    public int[] edges() {
+        return mst.clone();
+    }
+
+    /**
+     * Returns the sum of the edge latencies in a minimum spanning tree (or forest).
+     *
+     * @return the sum of the edge latencies in a minimum spanning tree (or forest)
+     */
+    public double weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,265 @@
+//LandmarkIndex.java
+
+
+/******************************************************************************
+ *  Compilation:  javac LandmarkIndex.java
+ *  Execution:    java LandmarkIndex network.txt [landmarks]
+ *
+ *  Latencies from a few landmark vertices to every vertex, giving lower
+ *  bounds on the latency between any two vertices for A* search (ALT).
+ *  Writes the tables next to the network, to network.txt.landmarks.
+ *
+ *  % java LandmarkIndex network_data2.txt 4
+ *  4 landmarks of 9 vertices built in 1.5 ms, written to network_data2.txt.landmarks in 12.7 ms, read in 2.0 ms
+ *  round trip OK
+ *
+ ******************************************************************************/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ *  The {@code LandmarkIndex} class holds the latencies from a few
+ *  <em>landmark</em> vertices of a {@link CSRGraph} to every vertex. By the
+ *  triangle inequality, for every landmark <em>L</em> the latency between
+ *  <em>v</em> and <em>t</em> is at least
+ *  |<em>d</em>(<em>L</em>, <em>t</em>) – <em>d</em>(<em>L</em>, <em>v</em>)|,
+ *  and the largest of these bounds guides the A* search of
+ *  {@link PointToPointSearch#alt} towards the target (the ALT algorithm:
+ *  A*, landmarks and the triangle inequality).
+ *  <p>
+ *  The landmarks are chosen by farthest-point selection: each new landmark
+ *  is the vertex farthest from those already chosen (a vertex that none of
+ *  them reaches first), so they sit on the edges of the network where their
+ *  bounds are tightest. The tables are one {@code double[]} laid out vertex
+ *  by vertex, so the bounds of one vertex are read from consecutive memory.
+ *  Building the index takes one run of Dijkstra's algorithm per landmark,
+ *  time proportional to <em>L</em> <em>E</em> log <em>V</em>, and space
+ *  proportional to <em>L</em> <em>V</em>.
+ *  <p>
+ *  Since building the tables costs far more than reading them, they can be
+ *  saved with {@link #write} and loaded with {@link #read}. The file starts
+ *  with a 40-byte header: the magic number {@code "NETL"}, the format
+ *  version, <em>V</em>, <em>E</em>, the number of landmarks, a reserved
+ *  word, a fingerprint of the graph (a checksum of the endpoints and latency
+ *  of every edge) and the CRC-32C checksum of the rest of the file, followed
+ *  by the landmarks and the tables, little-endian. Tables whose fingerprint
+ *  does not match the graph they are loaded for are rejected.
+ */
+public class LandmarkIndex {
+    private static final int MAGIC = 0x4C54454E;        // "NETL" in little-endian order
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final double SLACK = 1 - 1e-9;      // absorbs rounding in the summed latencies
+
+    private final CSRGraph G;
+    private final int[] landmarks;
+    private final double[] distance;    // distance[v*L + i] = latency from landmarks[i] to v
+
+    /**
+     * Chooses {@code count} landmarks of {@code G} and computes their tables.
+     *
+     * @param  G the graph
+     * @param  count the number of landmarks
+     * @throws IllegalArgumentException unless {@code 1 <= count <= V}
+     */
+    public LandmarkIndex(CSRGraph G, int count) {
+        int V = G.V();
+        if (count < 1 || count > V)
+            throw new IllegalArgumentException("landmarks " + count + " is not between 1 and " + V);
+        if ((long) count * V > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException(count + " landmarks of " + V + " vertices do not fit in one array");
+        this.G = G;
+        landmarks = new int[count];
+        distance = new double[count * V];
+        double[] nearest = new double[V];   // latency from v to the nearest landmark chosen so far
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        double[] from = new ShortestPathTree(G, 0).distanceArray();
+        for (int i = 0; i < count; i++) {
+            // the vertex farthest from vertex 0, then from the landmarks
+            int far = 0;
+            double[] reference = i == 0 ? from : nearest;
+            for (int v = 1; v < V; v++) {
+                if (reference[v] > reference[far]) far = v;
+            }
+            landmarks[i] = far;
+            double[] d = new ShortestPathTree(G, far).distanceArray();
+            for (int v = 0; v < V; v++) {
+                distance[v * count + i] = d[v];
+                nearest[v] = Math.min(nearest[v], d[v]);
+            }
+        }
+    }
+
+    private LandmarkIndex(CSRGraph G, int[] landmarks, double[] distance) {
+        this.G = G;
+        this.landmarks = landmarks;
+        this.distance = distance;
+    }
+
+    /**
+     * Returns the graph this index was built on.
+     *
+     * @return the graph
+     */
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the landmarks, in the order they were chosen.
+     *
+     * @return the landmark vertices
+     */
+    public int[] landmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Returns a lower bound on the latency of any path between {@code v} and
+     * {@code t}. Takes time proportional to the number of landmarks.
+     *
+     * @param  v one vertex
+     * @param  t the other vertex
+     * @return a lower bound on their latency, infinite if some landmark
+     *         reaches one of them but not the other
+     */
+    public double lowerBound(int v, int t) {
+        int L = landmarks.length;
+        double bound = 0;
+        for (int i = 0, a = v * L, b = t * L; i < L; i++) {
+            double dv = distance[a + i];
+            double dt = distance[b + i];
+            if (dv == Double.POSITIVE_INFINITY || dt == Double.POSITIVE_INFINITY) {
+                if (dv != dt) return Double.POSITIVE_INFINITY;   // different components
+                continue;
+            }
+            bound = Math.max(bound, Math.abs(dt - dv));
+        }
+        return bound * SLACK;
+    }
+
+    /**
+     * Writes the landmarks and their tables to a file, replacing the file
+     * only once it is complete.
+     *
+     * @param  path the file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            GraphSnapshot.Output out = new GraphSnapshot.Output(channel, HEADER_BYTES);
+            for (int landmark : landmarks) out.putInt(landmark);
+            for (double d : distance) out.putDouble(d);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(G.V()).putInt(G.E()).putInt(landmarks.length)
+                  .putInt(0).putLong(fingerprint(G)).putLong(out.crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the landmark tables of {@code G} from a file written by {@link #write}.
+     *
+     * @param  path the file
+     * @param  G the graph the tables were built on
+     * @return the index
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid landmark
+     *         file or was built on a different graph
+     */
+    public static LandmarkIndex read(Path path, CSRGraph G) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) { }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC)
+                throw new IllegalArgumentException(path + " is not a landmark file");
+            int version = header.getInt(4);
+            if (version != FORMAT_VERSION)
+                throw new IllegalArgumentException("unsupported landmark file version " + version + " in " + path);
+            int V = header.getInt(8);
+            int E = header.getInt(12);
+            int L = header.getInt(16);
+            if (V != G.V() || E != G.E() || header.getLong(24) != fingerprint(G))
+                throw new IllegalArgumentException("landmark file " + path + " was built on a different graph");
+            if (L < 1 || L > V || (long) L * V > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("corrupt landmark header in " + path);
+            long expected = HEADER_BYTES + 4L * L + 8L * L * V;
+            if (channel.size() != expected)
+                throw new IllegalArgumentException("landmark file " + path + " has " + channel.size()
+                                                   + " bytes, expected " + expected);
+
+            CRC32C crc = new CRC32C();
+            int[] landmarks = new int[L];
+            double[] distance = new double[L * V];
+            long position = GraphSnapshot.readInts(channel, HEADER_BYTES, landmarks, crc);
+            GraphSnapshot.readDoubles(channel, position, distance, crc);
+            if (crc.getValue() != header.getLong(32))
+                throw new IllegalArgumentException("checksum mismatch in landmark file " + path);
+            return new LandmarkIndex(G, landmarks, distance);
+        }
+    }
+
+    // checksum of the endpoints and latency of every edge
+    static long fingerprint(CSRGraph G) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(G.V()).putInt(G.E());
+        for (int e = 0; e < G.E(); e++) {
+            if (buffer.remaining() < 16) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+            buffer.putInt(G.either(e)).putInt(G.other(e, G.either(e))).putDouble(G.latency(e));
+        }
+        buffer.flip();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the network in the file named by the first argument, builds the
+     * landmark tables with the number of landmarks given by the second
+     * (16 by default, at most V), writes them to the network's file name
+     * followed by {@code .landmarks} and checks they read back the same.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        CSRGraph G = MappedTopologyReader.readParallel(args[0]).buildCSR();
+        int count = Math.min(args.length > 1 ? Integer.parseInt(args[1]) : 16, G.V());
+        long start = System.nanoTime();
+        LandmarkIndex index = new LandmarkIndex(G, count);
+        double built = (System.nanoTime() - start) / 1e6;
+        Path path = Paths.get(args[0] + ".landmarks");
+        start = System.nanoTime();
+        index.write(path);
+        double written = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        LandmarkIndex copy = read(path, G);
+        double read = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%d landmarks of %d vertices built in %.1f ms, written to %s in %.1f ms, read in %.1f ms%n",
+                          count, G.V(), built, path, written, read);
+        System.out.println(Arrays.equals(index.distance, copy.distance)
+                           && Arrays.equals(index.landmarks, copy.landmarks)
+                           ? "round trip OK" : "round trip MISMATCH");
+    }
+}
@@ -0,0 +1,174 @@
+//LatencyMatrix.java
+
+
+/******************************************************************************
+ *  Compilation:  javac LatencyMatrix.java
+ *  Execution:    java LatencyMatrix network_data2.txt
+ *
+ *  Lowest latencies from a set of source routers to every router,
+ *  computed with one Dijkstra run per source, in parallel.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  The {@code LatencyMatrix} class holds the lowest latency between each of
+ *  a set of source vertices and every vertex of a {@link CSRGraph}, one row
+ *  per source. With every vertex as a source it is the all-pairs latency
+ *  matrix.
+ *  <p>
+ *  Each row is the distance array of a {@link ShortestPathTree}. The rows
+ *  are independent, so the sources are split into ranges and fanned out over
+ *  a {@link ForkJoinPool}; every worker thread reuses one {@link IndexMinPQ}.
+ *  Construction takes time proportional to
+ *  <em>S</em> <em>E</em> log <em>V</em> divided by the number of cores for
+ *  <em>S</em> sources, and space proportional to <em>S</em> <em>V</em>, so
+ *  the full matrix is only practical for networks of moderate size.
+ *  Queries take constant time.
+ */
+public class LatencyMatrix {
+    private final int V;
+    private final int[] sources;
+    private final int[] rowOf;          // rowOf[v] = row of source v, or -1
+    private final double[][] latency;   // latency[i][v] = latency from sources[i] to v
+
+    /**
+     * Computes the all-pairs latency matrix of {@code G} on the common fork-join pool.
+     *
+     * @param  G the graph
+     */
+    public LatencyMatrix(CSRGraph G) {
+        this(G, allVertices(G.V()), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the latency from each of the given sources to every vertex of
+     * {@code G}, running on the given pool.
+     *
+     * @param  G the graph
+     * @param  sources the distinct source vertices, one row each
+     * @param  pool the pool that runs the Dijkstra searches
+     * @throws IllegalArgumentException if a source is repeated or not between {@code 0} and {@code V-1}
+     */
+    public LatencyMatrix(CSRGraph G, int[] sources, ForkJoinPool pool) {
+        this.V = G.V();
+        this.sources = sources.clone();
+        rowOf = new int[V];
+        Arrays.fill(rowOf, -1);
+        for (int i = 0; i < sources.length; i++) {
+            validateVertex(sources[i]);
+            if (rowOf[sources[i]] != -1) throw new IllegalArgumentException("repeated source " + sources[i]);
+            rowOf[sources[i]] = i;
+        }
+        latency = new double[sources.length][];
+        ThreadLocal<IndexMinPQ> queues = ThreadLocal.withInitial(() -> new IndexMinPQ(V));
+        int grain = Math.max(1, sources.length / (8 * pool.getParallelism()));
+        pool.invoke(new RowTask(G, queues, 0, sources.length, grain));
+    }
+
+    // computes rows lo .. hi-1
+    private class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final CSRGraph G;
+        private final ThreadLocal<IndexMinPQ> queues;
+        private final int lo;
+        private final int hi;
+        private final int grain;
+
+        private RowTask(CSRGraph G, ThreadLocal<IndexMinPQ> queues, int lo, int hi, int grain) {
+            this.G = G;
+            this.queues = queues;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > grain) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RowTask(G, queues, lo, mid, grain), new RowTask(G, queues, mid, hi, grain));
+                return;
+            }
+            IndexMinPQ pq = queues.get();
+            for (int i = lo; i < hi; i++) {
+                latency[i] = new ShortestPathTree(G, sources[i], pq).distanceArray();
+            }
+        }
+    }
+
+    private static int[] allVertices(int V) {
+        int[] all = new int[V];
+        for (int v = 0; v < V; v++) all[v] = v;
+        return all;
+    }
+
+    /**
+     * Returns the source vertices, in row order.
+     *
+     * @return the source vertices
+     */
+    public int[] sources() {
+        return sources.clone();
+    }
+
+    /**
+     * Returns the lowest latency from source {@code s} to vertex {@code v}.
+     *
+     * @param  s a source vertex
+     * @param  v the destination vertex
+     * @return the lowest latency from {@code s} to {@code v};
+     *         {@code Double.POSITIVE_INFINITY} if there is no path
+     * @throws IllegalArgumentException if {@code s} is not a source or {@code v} is not a vertex
+     */
+    public double latency(int s, int v) {
+        validateVertex(v);
+        return latency[rowIndex(s)][v];
+    }
+
+    /**
+     * Returns a copy of the latencies from source {@code s} to every vertex.
+     *
+     * @param  s a source vertex
+     * @return a vertex-indexed array of latencies
+     * @throws IllegalArgumentException if {@code s} is not a source
+     */
+    public double[] row(int s) {
+        return latency[rowIndex(s)].clone();
+    }
+
+    private int rowIndex(int s) {
+        validateVertex(s);
+        if (rowOf[s] == -1) throw new IllegalArgumentException("vertex " + s + " is not a source");
+        return rowOf[s];
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Reads a network from the file named by the first argument and prints
+     * its all-pairs latency matrix.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        NetworkAnalysis.readGraphFile(args[0]);
+        CSRGraph G = NetworkAnalysis.graph.toCSR();
+        LatencyMatrix matrix = new LatencyMatrix(G);
+        for (int s = 0; s < G.V(); s++) {
+            StringBuilder line = new StringBuilder();
+            for (int v = 0; v < G.V(); v++) {
+                if (v > 0) line.append(' ');
+                line.append(String.format("%.3e", matrix.latency(s, v)));
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+//LatencyPath.java
+
+
+/******************************************************************************
+ *  Compilation:  javac LatencyPath.java
+ *  Execution:    none
+ *
+ *  A lowest latency path between two vertices, as returned by the analyses.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *  The {@code LatencyPath} class is the result of a lowest latency path
+ *  query: the edges of the path from the source to the target in order,
+ *  its total latency and its bandwidth, the smallest bandwidth of any of its
+ *  edges. If the target cannot be reached, the path has no edges and
+ *  infinite latency. A path is immutable, so it can be cached, shared
+ *  between threads and rendered any number of times.
+ */
+public final class LatencyPath {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final int source;
+    private final int target;
+    private final Edge[] edges;         // in order from the source, or null if there is no path
+    private final double latency;
+    private final int bandwidth;
+
+    /**
+     * Initializes the path made of the edges of {@code G} with the given ids.
+     *
+     * @param  G the graph
+     * @param  source the source vertex
+     * @param  target the target vertex
+     * @param  ids the edge ids in order from the source, or {@code null} if there is no path
+     * @param  latency the total latency of the path
+     */
+    LatencyPath(CSRGraph G, int source, int target, int[] ids, double latency) {
+        this.source = source;
+        this.target = target;
+        this.latency = ids == null ? Double.POSITIVE_INFINITY : latency;
+        if (ids == null) {
+            edges = null;
+            bandwidth = 0;
+            return;
+        }
+        edges = new Edge[ids.length];
+        int minBand = Integer.MAX_VALUE;
+        for (int i = 0; i < ids.length; i++) {
+            edges[i] = G.edge(ids[i]);
+            minBand = Math.min(minBand, G.bandwidth(ids[i]));
+        }
+        bandwidth = minBand;
+    }
+
+    /**
+     * Returns the source vertex.
+     *
+     * @return the vertex the path starts from
+     */
+    public int source() {
+        return source;
+    }
+
+    /**
+     * Returns the target vertex.
+     *
+     * @return the vertex the path leads to
+     */
+    public int target() {
+        return target;
+    }
+
+    /**
+     * Is the target reachable from the source?
+     *
+     * @return {@code true} if there is a path
+     */
+    public boolean hasPath() {
+        return edges != null;
+    }
+
+    /**
+     * Returns the edges of the path, in order from the source.
+     *
+     * @return the edges of the path; empty if there is no path or the source is the target
+     */
+    public List<Edge> edges() {
+        if (edges == null) return Collections.emptyList();
+        return Collections.unmodifiableList(Arrays.asList(edges));
+    }
+
+    /**
+     * Returns the vertices of the path, in order from the source to the target.
+     *
+     * @return the vertices of the path, or an empty array if there is no path
+     */
+    public int[] vertices() {
+        if (edges == null) return new int[0];
+        int[] vertices = new int[edges.length + 1];
+        vertices[0] = source;
+        for (int i = 0; i < edges.length; i++) {
+            vertices[i + 1] = edges[i].other(vertices[i]);
+        }
+        return vertices;
+    }
+
+    /**
+     * Returns the number of edges on the path.
+     *
+     * @return the number of edges, or 0 if there is no path
+     */
+    public int hops() {
+        return edges == null ? 0 : edges.length;
+    }
+
+    /**
+     * Returns the total latency of the path.
+     *
+     * @return the sum of the latencies of the edges, or {@code Double.POSITIVE_INFINITY} if there is no path
+     */
+    public double latency() {
+        return latency;
+    }
+
+    /**
+     * Returns the bandwidth of the path, the smallest bandwidth of its edges.
+     *
+     * @return the bottleneck bandwidth, {@code Integer.MAX_VALUE} for a path
+     *         with no edges, or 0 if there is no path
+     */
+    public int bandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * Returns the edges of the path, one per line, followed by its bandwidth,
+     * or a line saying there is no path.
+     *
+     * @return a string representation of this path
+     */
+    public String toString() {
+        if (edges == null) return "There is no path between " + source + " and " + target;
+        StringBuilder s = new StringBuilder();
+        for (Edge e : edges) {
+            s.append(e).append(NEWLINE);
+        }
+        s.append("The bandwidth along this path is ").append(bandwidth);
+        return s.toString();
+    }
+}
@@ -0,0 +1,139 @@
+//LatencySpanningTree.java
+
+
+/******************************************************************************
+ *  Compilation:  javac LatencySpanningTree.java
+ *  Execution:    none
+ *
+ *  A lowest latency spanning tree (or forest), as returned by the analyses.
+ *
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *  The {@code LatencySpanningTree} class is the result of a lowest latency
+ *  spanning tree query: the edges of a minimum spanning tree (or forest)
+ *  of a network, its total latency, and the latency of an edge averaged
+ *  over the <em>V</em> – 1 edges of a spanning tree. Unlike a
+ *  {@link SpanningTree}, which names edges by their ids in one
+ *  {@link CSRGraph}, it holds the {@link Edge} objects themselves, so it
+ *  stays meaningful after the graph changes. It is immutable.
+ */
+public final class LatencySpanningTree {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final int V;
+    private final List<Edge> edges;
+    private final double weight;
+    private final double averageLatency;
+
+    /**
+     * Initializes a spanning tree of a graph on {@code V} vertices.
+     *
+     * @param  V the number of vertices of the graph
+     * @param  edges the tree edges
+     * @param  weight the total latency of the tree edges
+     * @param  averageLatency the average latency of a tree edge
+     */
+    LatencySpanningTree(int V, Iterable<Edge> edges, double weight, double averageLatency) {
+        this.V = V;
+        List<Edge> list = new ArrayList<Edge>();
+        for (Edge e : edges) list.add(e);
+        this.edges = Collections.unmodifiableList(list);
+        this.weight = weight;
+        this.averageLatency = averageLatency;
+    }
+
+    /**
+     * Initializes the result of a spanning tree algorithm.
+     *
+     * @param  tree the spanning tree
+     */
+    LatencySpanningTree(SpanningTree tree) {
+        this(tree.graph().V(), edgesOf(tree), tree.weight(), tree.averageLatency());
+    }
+
+    private static List<Edge> edgesOf(SpanningTree tree) {
+        List<Edge> list = new ArrayList<Edge>();
+        for (int e : tree.edges()) list.add(tree.graph().edge(e));
+        return list;
+    }
+
+    /**
+     * Returns the number of vertices of the graph spanned.
+     *
+     * @return the number of vertices
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the edges of the tree.
+     *
+     * @return the tree edges, <em>V</em> – 1 of them if the graph is connected
+     */
+    public List<Edge> edges() {
+        return edges;
+    }
+
+    /**
+     * Returns the sum of the latencies of the edges in the tree.
+     *
+     * @return the total latency of the tree
+     */
+    public double weight() {
+        return weight;
+    }
+
+    /**
+     * Returns the latency of an edge of the tree averaged over the
+     * <em>V</em> – 1 edges of a spanning tree.
+     *
+     * @return the average latency of the tree
+     */
+    public double averageLatency() {
+        return averageLatency;
+    }
+
+    /**
+     * Returns the tree as a graph, in the format of
+     * {@link EdgeWeightedGraph#toString()}, followed by a blank line and its
+     * average latency.
+     * This method takes time proportional to <em>E</em> + <em>V</em>.
+     *
+     * @return a string representation of this tree
+     */
+    public String toString() {
+        // the edges at each vertex, in the order they are listed
+        int[] offset = new int[V + 1];
+        for (Edge e : edges) {
+            int v = e.either();
+            offset[v + 1]++;
+            offset[e.other(v) + 1]++;
+        }
+        for (int v = 0; v < V; v++) offset[v + 1] += offset[v];
+        Edge[] adj = new Edge[2 * edges.size()];
+        int[] next = offset.clone();
+        for (Edge e : edges) {
+            int v = e.either();
+            adj[next[v]++] = e;
+            adj[next[e.other(v)]++] = e;
+        }
+
+        StringBuilder s = new StringBuilder();
+        s.append(V).append(' ').append(edges.size()).append(NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v).append(": ");
+            for (int k = offset[v]; k < offset[v + 1]; k++) {
+                s.append(adj[k]).append("  ");
+            }
+            s.append(NEWLINE);
+        }
+        s.append(NEWLINE).append("There is an average latency of ").append(averageLatency);
+        return s.toString();
+    }
+}
@@ -0,0 +1,265 @@
+//LinkCutTree.java
+
+
+/******************************************************************************
+ *  Compilation:  javac LinkCutTree.java
+ *  Execution:    none
+ *
+ *  Sleator-Tarjan link-cut trees over a forest of nodes with real values,
+ *  supporting path-maximum queries.
+ *
+ ******************************************************************************/
+
+/**
+ *  The {@code LinkCutTree} class represents a forest of unrooted trees on
+ *  the nodes 0 through <em>n</em> – 1, each node carrying a real value.
+ *  It supports the <em>link</em> and <em>cut</em> operations, which add and
+ *  remove an edge between two nodes, along with <em>connected</em> and
+ *  <em>path-max</em>, which returns the node of largest value on the path
+ *  between two nodes of the same tree.
+ *  <p>
+ *  This implementation uses <em>link-cut trees</em>: every tree is split
+ *  into preferred paths, each stored as a splay tree ordered by depth, and
+ *  rerooting is done by reversing a path lazily. All operations take
+ *  logarithmic amortized time. The nodes are held in parallel int arrays,
+ *  so the structure stores no objects; construction takes time proportional
+ *  to <em>n</em>.
+ *  <p>
+ *  For additional documentation, see D. D. Sleator and R. E. Tarjan,
+ *  <i>A data structure for dynamic trees</i>, J. Computer and System Sciences 26 (1983).
+ */
+public class LinkCutTree {
+    private final int n;
+    private final int[] left;       // left[x] = left child of x in its splay tree, or -1
+    private final int[] right;      // right[x] = right child of x in its splay tree, or -1
+    private final int[] parent;     // splay parent, or path-parent if x is a splay root, or -1
+    private final boolean[] flip;   // flip[x] = the children of x are yet to be swapped
+    private final double[] value;   // value[x] = value of node x
+    private final int[] max;        // max[x] = node of largest value in the splay subtree of x
+    private final int[] stack;      // scratch for splay()
+
+    /**
+     * Initializes a forest of {@code n} isolated nodes, each with value
+     * {@code Double.NEGATIVE_INFINITY}.
+     *
+     * @param  n the number of nodes
+     * @throws IllegalArgumentException if {@code n < 0}
+     */
+    public LinkCutTree(int n) {
+        if (n < 0) throw new IllegalArgumentException("Number of nodes must be nonnegative");
+        this.n = n;
+        left = new int[n];
+        right = new int[n];
+        parent = new int[n];
+        flip = new boolean[n];
+        value = new double[n];
+        max = new int[n];
+        stack = new int[n];
+        for (int x = 0; x < n; x++) {
+            left[x] = right[x] = parent[x] = -1;
+            value[x] = Double.NEGATIVE_INFINITY;
+            max[x] = x;
+        }
+    }
+
+    /**
+     * Returns the value of node {@code x}.
+     *
+     * @param  x the node
+     * @return the value of {@code x}
+     * @throws IllegalArgumentException unless {@code 0 <= x < n}
+     */
+    public double value(int x) {
+        validateNode(x);
+        return value[x];
+    }
+
+    /**
+     * Sets the value of node {@code x}.
+     *
+     * @param  x the node
+     * @param  val the new value of {@code x}
+     * @throws IllegalArgumentException unless {@code 0 <= x < n}
+     */
+    public void setValue(int x, double val) {
+        validateNode(x);
+        access(x);
+        value[x] = val;
+        pull(x);
+    }
+
+    /**
+     * Are nodes {@code u} and {@code v} in the same tree?
+     *
+     * @param  u one node
+     * @param  v the other node
+     * @return {@code true} if {@code u} and {@code v} are in the same tree
+     * @throws IllegalArgumentException unless both nodes are between {@code 0} and {@code n-1}
+     */
+    public boolean connected(int u, int v) {
+        validateNode(u);
+        validateNode(v);
+        return u == v || findRoot(u) == findRoot(v);
+    }
+
+    /**
+     * Adds an edge between {@code u} and {@code v}, which must be in different trees.
+     *
+     * @param  u one node
+     * @param  v the other node
+     * @throws IllegalArgumentException unless both nodes are between {@code 0} and {@code n-1}
+     * @throws IllegalArgumentException if {@code u} and {@code v} are already in the same tree
+     */
+    public void link(int u, int v) {
+        validateNode(u);
+        validateNode(v);
+        makeRoot(u);
+        if (findRoot(v) == u) throw new IllegalArgumentException("nodes " + u + " and " + v + " are already connected");
+        parent[u] = v;
+    }
+
+    /**
+     * Removes the edge between {@code u} and {@code v}.
+     *
+     * @param  u one node
+     * @param  v the other node
+     * @throws IllegalArgumentException unless both nodes are between {@code 0} and {@code n-1}
+     * @throws IllegalArgumentException if there is no edge between {@code u} and {@code v}
+     */
+    public void cut(int u, int v) {
+        validateNode(u);
+        validateNode(v);
+        makeRoot(u);
+        access(v);
+        // u and v are adjacent exactly when u is the only node above v on the path
+        if (left[v] != u) throw new IllegalArgumentException("no edge between nodes " + u + " and " + v);
+        push(u);
+        if (right[u] != -1) throw new IllegalArgumentException("no edge between nodes " + u + " and " + v);
+        left[v] = -1;
+        parent[u] = -1;
+        pull(v);
+    }
+
+    /**
+     * Returns the node of largest value on the path between {@code u} and {@code v}.
+     * Ties are broken arbitrarily.
+     *
+     * @param  u one end of the path
+     * @param  v the other end of the path
+     * @return a node of largest value on the path, {@code u} and {@code v} included
+     * @throws IllegalArgumentException unless both nodes are between {@code 0} and {@code n-1}
+     * @throws IllegalArgumentException if {@code u} and {@code v} are in different trees
+     */
+    public int pathMax(int u, int v) {
+        if (!connected(u, v)) throw new IllegalArgumentException("nodes " + u + " and " + v + " are not connected");
+        makeRoot(u);
+        access(v);
+        return max[v];
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= x < n}
+    private void validateNode(int x) {
+        if (x < 0 || x >= n)
+            throw new IllegalArgumentException("node " + x + " is not between 0 and " + (n-1));
+    }
+
+   /***************************************************************************
+    * Preferred-path operations.
+    ***************************************************************************/
+
+    // makes the path from the root of x's tree to x preferred, and x the root of its splay tree
+    private void access(int x) {
+        int last = -1;
+        for (int y = x; y != -1; y = parent[y]) {
+            splay(y);
+            right[y] = last;
+            pull(y);
+            last = y;
+        }
+        splay(x);
+    }
+
+    // makes x the root of its tree by reversing the path from the old root
+    private void makeRoot(int x) {
+        access(x);
+        flip[x] = !flip[x];
+    }
+
+    private int findRoot(int x) {
+        access(x);
+        int y = x;
+        push(y);
+        while (left[y] != -1) {
+            y = left[y];
+            push(y);
+        }
+        splay(y);
+        return y;
+    }
+
+   /***************************************************************************
+    * Splay tree helper functions.
+    ***************************************************************************/
+    private boolean isSplayRoot(int x) {
+        int p = parent[x];
+        return p == -1 || (left[p] != x && right[p] != x);
+    }
+
+    private void pull(int x) {
+        int m = x;
+        if (left[x] != -1 && value[max[left[x]]] > value[m]) m = max[left[x]];
+        if (right[x] != -1 && value[max[right[x]]] > value[m]) m = max[right[x]];
+        max[x] = m;
+    }
+
+    private void push(int x) {
+        if (!flip[x]) return;
+        int swap = left[x];
+        left[x] = right[x];
+        right[x] = swap;
+        if (left[x] != -1) flip[left[x]] = !flip[left[x]];
+        if (right[x] != -1) flip[right[x]] = !flip[right[x]];
+        flip[x] = false;
+    }
+
+    private void rotate(int x) {
+        int p = parent[x];
+        int g = parent[p];
+        if (!isSplayRoot(p)) {
+            if (left[g] == p) left[g] = x;
+            else right[g] = x;
+        }
+        if (left[p] == x) {
+            left[p] = right[x];
+            if (right[x] != -1) parent[right[x]] = p;
+            right[x] = p;
+        }
+        else {
+            right[p] = left[x];
+            if (left[x] != -1) parent[left[x]] = p;
+            left[x] = p;
+        }
+        parent[p] = x;
+        parent[x] = g;
+        pull(p);
+        pull(x);
+    }
+
+    private void splay(int x) {
+        // push the pending reversals down from the root of the splay tree
+        int top = 0;
+        stack[top++] = x;
+        for (int y = x; !isSplayRoot(y); y = parent[y]) stack[top++] = parent[y];
+        while (top > 0) push(stack[--top]);
+
+        while (!isSplayRoot(x)) {
+            int p = parent[x];
+            if (!isSplayRoot(p)) {
+                int g = parent[p];
+                if ((left[g] == p) == (left[p] == x)) rotate(p);    // zig-zig
+                else rotate(x);                                      // zig-zag
+            }
+            rotate(x);
+        }
+    }
+}
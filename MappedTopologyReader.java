@@ -0,0 +1,460 @@
+//MappedTopologyReader.java
+
+
+/******************************************************************************
+ *  Compilation:  javac MappedTopologyReader.java
+ *  Execution:    java MappedTopologyReader network_data2.txt
+ *
+ *  Reads a network in the text format of NetworkAnalysis straight from a
+ *  memory-mapped file, without creating a String per line or per field,
+ *  on one thread or splitting the file into chunks parsed in parallel.
+ *
+ *  % java TopologyGenerator 200000 1000000 42 > topology.txt
+ *  % java MappedTopologyReader topology.txt
+ *  200000 vertices, 1000000 edges read in 635.0 ms (45.4 MB/s)
+ *  200000 vertices, 1000000 edges read in parallel in 512.4 ms (56.3 MB/s)
+ *
+ ******************************************************************************/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  The {@code MappedTopologyReader} class loads a network description into a
+ *  {@link GraphBuilder}. The first line holds the number of vertices and every
+ *  other line one edge, as the fields <em>v w cable bandwidth length</em>
+ *  separated by blanks, where <em>cable</em> is {@code copper} or
+ *  {@code optical}.
+ *  <p>
+ *  The file is mapped into memory through a {@link FileChannel} one window
+ *  of up to 1 GiB at a time, and the fields are parsed directly from the
+ *  mapped bytes: integers digit by digit, and lengths with an exact fast
+ *  path for decimals of at most 15 significant digits, falling back on
+ *  {@link Double#parseDouble} only for other forms. Apart from the builder's
+ *  own arrays, reading allocates nothing per line, and it takes time
+ *  proportional to the size of the file.
+ *  <p>
+ *  The format is line-oriented, so {@link #readParallel} cuts the file after
+ *  the first line into chunks that start just after a newline, parses the
+ *  chunks on a {@link ForkJoinPool} into a primitive edge buffer each, and
+ *  appends the buffers in file order, so it returns the same edges in the
+ *  same order as {@link #read}. If a chunk is malformed, the file is read
+ *  again on one thread to report the line at fault.
+ */
+public class MappedTopologyReader {
+    private static final int WINDOW = 1 << 30;          // bytes mapped at a time
+    private static final int MIN_CHUNK = 1 << 20;       // smallest chunk parsed in parallel
+    private static final int MAX_CHUNK = 1 << 26;       // largest chunk parsed in parallel
+    private static final int BYTES_PER_EDGE = 28;       // typical length of an edge line
+    private static final byte[] COPPER = "copper".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OPTICAL = "optical".getBytes(StandardCharsets.US_ASCII);
+
+    // powers of ten that are exact doubles
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // This class should not be instantiated.
+    private MappedTopologyReader() { }
+
+    /**
+     * Reads the network in the named file.
+     *
+     * @param  fileName the name of the file
+     * @return a builder holding the edges of the network, in file order
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid network description
+     */
+    public static GraphBuilder read(String fileName) throws IOException {
+        return read(Paths.get(fileName));
+    }
+
+    /**
+     * Reads the network in the given file.
+     *
+     * @param  path the file
+     * @return a builder holding the edges of the network, in file order
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid network description
+     */
+    public static GraphBuilder read(Path path) throws IOException {
+        return read(path, WINDOW);
+    }
+
+    // reads the file mapping window bytes at a time; every line must fit in a window
+    static GraphBuilder read(Path path, int window) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Cursor in = new Cursor();
+            GraphBuilder builder = null;
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(size - position, window);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                // parse whole lines only, unless the window reaches the end of the file
+                int end = length;
+                if (position + length < size) {
+                    while (end > 0 && buffer.get(end - 1) != '\n') end--;
+                    if (end == 0) throw new IllegalArgumentException("line " + in.line + " is longer than " + window + " bytes");
+                }
+                in.reset(buffer, end);
+                while (in.skipBlankLine()) { }
+                if (builder == null && in.pos < end) {
+                    int V = in.nextInt();
+                    in.endOfLine();
+                    // the builder grows if the lines are shorter than usual
+                    builder = new GraphBuilder(V, (int) Math.min(size / BYTES_PER_EDGE, Integer.MAX_VALUE - 8));
+                }
+                parseEdges(in, builder);
+                position += end;
+            }
+            if (builder == null) throw new IllegalArgumentException("no number of vertices in " + path);
+            return builder;
+        }
+    }
+
+    // parses edge lines up to the end of the cursor's range
+    private static void parseEdges(Cursor in, GraphBuilder builder) {
+        while (in.pos < in.end) {
+            if (in.skipBlankLine()) continue;
+            int v = in.nextInt();
+            int w = in.nextInt();
+            boolean copper = in.nextCable();
+            int bandwidth = in.nextInt();
+            double len = in.nextDouble();
+            in.endOfLine();
+            builder.addEdge(v, w, copper, bandwidth, len);
+        }
+    }
+
+    /**
+     * Reads the network in the named file, parsing chunks of it in parallel on
+     * the common fork-join pool.
+     *
+     * @param  fileName the name of the file
+     * @return a builder holding the edges of the network, in file order
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid network description
+     */
+    public static GraphBuilder readParallel(String fileName) throws IOException {
+        return readParallel(Paths.get(fileName), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads the network in the given file, parsing chunks of it in parallel on
+     * the given pool.
+     *
+     * @param  path the file
+     * @param  pool the pool that parses the chunks
+     * @return a builder holding the edges of the network, in file order
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid network description
+     */
+    public static GraphBuilder readParallel(Path path, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunk = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (8L * pool.getParallelism())));
+            if (size <= chunk) return read(path);
+
+            // the first line, holding the number of vertices, is read on this thread
+            Cursor in = new Cursor();
+            in.reset(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW)), (int) Math.min(size, WINDOW));
+            while (in.skipBlankLine()) { }
+            if (in.pos == in.end) return read(path);
+            int V = in.nextInt();
+            in.endOfLine();
+
+            long[] start = chunkStarts(channel, in.pos, size, chunk);
+            GraphBuilder[] parts = new GraphBuilder[start.length - 1];
+            try {
+                pool.invoke(new ChunkTask(channel, V, start, parts, 0, parts.length));
+            }
+            catch (IllegalArgumentException e) {
+                return read(path);      // reports the line at fault
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            long edges = 0;
+            for (GraphBuilder part : parts) edges += part.size();
+            if (edges > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("too many edges in " + path);
+            GraphBuilder builder = new GraphBuilder(V, (int) edges);
+            for (int i = 0; i < parts.length; i++) {
+                builder.addAll(parts[i]);
+                parts[i] = null;
+            }
+            return builder;
+        }
+    }
+
+    // offsets of the chunks after the first line, each just after a newline, ending with the size of the file
+    private static long[] chunkStarts(FileChannel channel, long first, long size, long chunk) throws IOException {
+        long[] start = new long[(int) ((size - first + chunk - 1) / chunk) + 1];
+        int count = 0;
+        start[count++] = first;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (long nominal = first + chunk; nominal < size; nominal += chunk) {
+            if (nominal <= start[count - 1]) continue;      // a long line swallowed this chunk
+            long position = nominal - 1;
+            long next = size;
+            while (position < size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0) break;
+                int i = 0;
+                while (i < read && probe.get(i) != '\n') i++;
+                if (i < read) {
+                    next = position + i + 1;
+                    break;
+                }
+                position += read;
+            }
+            if (next - start[count - 1] > WINDOW) throw new IllegalArgumentException("chunk of more than " + WINDOW + " bytes");
+            if (next < size) start[count++] = next;
+        }
+        start[count++] = size;
+        if (size - start[count - 2] > WINDOW) throw new IllegalArgumentException("chunk of more than " + WINDOW + " bytes");
+        return Arrays.copyOf(start, count);
+    }
+
+    // parses chunks lo .. hi-1 into parts
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel channel;
+        private final int V;
+        private final long[] start;
+        private final GraphBuilder[] parts;
+        private final int lo;
+        private final int hi;
+
+        private ChunkTask(FileChannel channel, int V, long[] start, GraphBuilder[] parts, int lo, int hi) {
+            this.channel = channel;
+            this.V = V;
+            this.start = start;
+            this.parts = parts;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ChunkTask(channel, V, start, parts, lo, mid), new ChunkTask(channel, V, start, parts, mid, hi));
+                return;
+            }
+            int length = (int) (start[lo + 1] - start[lo]);
+            Cursor in = new Cursor();
+            try {
+                in.reset(channel.map(FileChannel.MapMode.READ_ONLY, start[lo], length), length);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            GraphBuilder part = new GraphBuilder(V, length / BYTES_PER_EDGE + 1);
+            parseEdges(in, part);
+            parts[lo] = part;
+        }
+    }
+
+    // a position in the mapped bytes, and the current line number for error messages
+    private static class Cursor {
+        private MappedByteBuffer buffer;
+        private int pos;
+        private int end;
+        private long line = 1;
+
+        private void reset(MappedByteBuffer buffer, int end) {
+            this.buffer = buffer;
+            this.end = end;
+            this.pos = 0;
+        }
+
+        private boolean isBlank(int c) {
+            return c == ' ' || c == '\t';
+        }
+
+        private boolean isDelimiter(int c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+
+        private void skipBlanks() {
+            while (pos < end && isBlank(buffer.get(pos))) pos++;
+        }
+
+        // start of the next field, which must be on the current line
+        private int fieldStart() {
+            skipBlanks();
+            if (pos == end || buffer.get(pos) == '\r' || buffer.get(pos) == '\n')
+                throw error("missing field");
+            return pos;
+        }
+
+        // consumes an empty (or all-blank) line, if the cursor is at one
+        private boolean skipBlankLine() {
+            int start = pos;
+            skipBlanks();
+            if (pos < end && (buffer.get(pos) == '\r' || buffer.get(pos) == '\n')) {
+                endOfLine();
+                return true;
+            }
+            if (pos == end && pos > start) return true;     // blanks at the end of the file
+            pos = start;
+            return false;
+        }
+
+        private void endOfLine() {
+            skipBlanks();
+            if (pos == end) return;
+            if (buffer.get(pos) == '\r') pos++;
+            if (pos < end && buffer.get(pos) == '\n') pos++;
+            else if (pos < end) throw error("unexpected characters at the end of the line");
+            line++;
+        }
+
+        private int nextInt() {
+            int start = fieldStart();
+            boolean negative = false;
+            int c = buffer.get(pos);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                pos++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (pos < end && (c = buffer.get(pos)) >= '0' && c <= '9') {
+                value = 10 * value + (c - '0');
+                if (value > Integer.MAX_VALUE + 1L) throw error("integer out of range");
+                digits++;
+                pos++;
+            }
+            if (digits == 0 || (pos < end && !isDelimiter(buffer.get(pos)))) {
+                pos = start;
+                throw error("not an integer");
+            }
+            if (negative) value = -value;
+            if (value > Integer.MAX_VALUE) throw error("integer out of range");
+            return (int) value;
+        }
+
+        private boolean nextCable() {
+            int start = fieldStart();
+            while (pos < end && !isDelimiter(buffer.get(pos))) pos++;
+            if (matches(start, COPPER)) return true;
+            if (matches(start, OPTICAL)) return false;
+            throw error("Invalid cable type");
+        }
+
+        private boolean matches(int start, byte[] word) {
+            if (pos - start != word.length) return false;
+            for (int i = 0; i < word.length; i++) {
+                if (buffer.get(start + i) != word[i]) return false;
+            }
+            return true;
+        }
+
+        private double nextDouble() {
+            int start = fieldStart();
+            boolean negative = false;
+            int c = buffer.get(pos);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                pos++;
+            }
+            long mantissa = 0;
+            int significant = 0;
+            int exponent = 0;
+            int digits = 0;
+            boolean exact = true;
+            boolean fraction = false;
+            for (; pos < end; pos++) {
+                c = buffer.get(pos);
+                if (c >= '0' && c <= '9') {
+                    digits++;
+                    if (significant == 18) exact = false;      // the mantissa would overflow
+                    else {
+                        mantissa = 10 * mantissa + (c - '0');
+                        if (mantissa != 0) significant++;
+                    }
+                    if (fraction) exponent--;
+                }
+                else if (c == '.' && !fraction) fraction = true;
+                else break;
+            }
+            if (digits > 0 && pos < end && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')) {
+                pos++;
+                boolean negativeExponent = false;
+                if (pos < end && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+                    negativeExponent = buffer.get(pos) == '-';
+                    pos++;
+                }
+                int e = 0;
+                int exponentDigits = 0;
+                while (pos < end && (c = buffer.get(pos)) >= '0' && c <= '9') {
+                    if (e < 10000) e = 10 * e + (c - '0');
+                    exponentDigits++;
+                    pos++;
+                }
+                if (exponentDigits == 0) exact = false;
+                exponent += negativeExponent ? -e : e;
+            }
+            if (digits == 0 || (pos < end && !isDelimiter(buffer.get(pos)))) exact = false;
+
+            if (exact && significant <= 15 && exponent >= -22 && exponent <= 22) {
+                // both operands are exact doubles, so the one rounding gives the correct result
+                double value = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+                return negative ? -value : value;
+            }
+
+            // anything else, such as NaN or very long digit strings, goes through the library
+            while (pos < end && !isDelimiter(buffer.get(pos))) pos++;
+            byte[] field = new byte[pos - start];
+            for (int i = 0; i < field.length; i++) field[i] = buffer.get(start + i);
+            try {
+                return Double.parseDouble(new String(field, StandardCharsets.US_ASCII));
+            }
+            catch (NumberFormatException e) {
+                pos = start;
+                throw error("not a number");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("line " + line + ": " + message);
+        }
+    }
+
+    /**
+     * Reads the network in the file named by the first argument, on one
+     * thread and then in parallel, and prints its size and the read throughput.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args[0]);
+        long start = System.nanoTime();
+        GraphBuilder builder = read(path);
+        double ms = (System.nanoTime() - start) / 1e6;
+        double mb = path.toFile().length() / 1e6;
+        System.out.printf("%d vertices, %d edges read in %.1f ms (%.1f MB/s)%n",
+                          builder.V(), builder.size(), ms, mb / (ms / 1e3));
+        start = System.nanoTime();
+        builder = readParallel(args[0]);
+        ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%d vertices, %d edges read in parallel in %.1f ms (%.1f MB/s)%n",
+                          builder.V(), builder.size(), ms, mb / (ms / 1e3));
+    }
+}
@@ -0,0 +1,269 @@
+//MaxBandwidthTree.java
+
+
+/******************************************************************************
+ *  Compilation:  javac MaxBandwidthTree.java
+ *  Execution:    java MaxBandwidthTree network_data2.txt v w
+ *
+ *  A maximum bandwidth spanning forest with binary lifting, answering the
+ *  bottleneck bandwidth between any two vertices in logarithmic time.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/**
+ *  The {@code MaxBandwidthTree} class is an index of a {@link CSRGraph} that
+ *  answers widest-path queries: the largest bandwidth <em>b</em> such that
+ *  two vertices are joined by a path whose edges all have bandwidth at least
+ *  <em>b</em>, and such a path.
+ *  <p>
+ *  It keeps a maximum spanning forest by bandwidth, built by Kruskal's
+ *  algorithm taking the edges in descending order of bandwidth. Between any
+ *  two vertices of one tree, the path through the tree is a widest path of
+ *  the whole graph, so the bottleneck of a pair is the least bandwidth on
+ *  its tree path. Each tree is rooted, and every vertex records its
+ *  ancestors 2<sup><em>j</em></sup> levels up together with the least
+ *  bandwidth on the way (<em>binary lifting</em>), so a query climbs from
+ *  both vertices to their lowest common ancestor in jumps of decreasing
+ *  powers of two.
+ *  <p>
+ *  Construction takes time proportional to <em>E</em> log <em>E</em> for the
+ *  sort plus <em>V</em> log <em>d</em>, where <em>d</em> is the depth of the
+ *  deepest tree, and the index uses space proportional to
+ *  <em>V</em> log <em>d</em>. The {@code bandwidth} query takes time
+ *  proportional to log <em>d</em>, and the {@code path} query time
+ *  proportional to the length of the path. The index is immutable, so any
+ *  number of threads can query it.
+ */
+public class MaxBandwidthTree {
+    private final CSRGraph G;
+    private final int V;
+    private final int[] tree;           // ids of the tree edges, in descending order of bandwidth
+    private final int[] root;           // root[v] = root of the tree containing v
+    private final int[] depth;          // depth[v] = number of edges from v to its root
+    private final int[] parentEdge;     // parentEdge[v] = id of the edge from v to its parent, or -1 at a root
+    private final int[][] up;           // up[j][v] = ancestor 2^j levels above v, or its root
+    private final int[][] narrowest;    // narrowest[j][v] = least bandwidth on the way to up[j][v]
+
+    /**
+     * Builds the index of the graph {@code G}.
+     *
+     * @param  G the graph
+     */
+    public MaxBandwidthTree(CSRGraph G) {
+        this.G = G;
+        this.V = G.V();
+        int E = G.E();
+
+        // descending bandwidth, ties in ascending order of id
+        long[] order = new long[E];
+        for (int e = 0; e < E; e++) {
+            order[e] = (-(long) G.bandwidth(e) << 32) | e;
+        }
+        Arrays.sort(order);
+        UF uf = new UF(V);
+        int[] taken = new int[Math.max(V - 1, 0)];
+        int count = 0;
+        for (int i = 0; i < E && count < V - 1; i++) {
+            int e = (int) order[i];
+            if (uf.union(G.either(e), G.other(e, G.either(e)))) taken[count++] = e;
+        }
+        tree = Arrays.copyOf(taken, count);
+
+        // the forest in compressed-sparse-row form
+        int[] offset = new int[V + 1];
+        for (int e : tree) {
+            offset[G.either(e) + 1]++;
+            offset[G.other(e, G.either(e)) + 1]++;
+        }
+        for (int v = 0; v < V; v++) offset[v + 1] += offset[v];
+        int[] adjEdge = new int[2 * count];
+        int[] next = Arrays.copyOf(offset, V);
+        for (int e : tree) {
+            adjEdge[next[G.either(e)]++] = e;
+            adjEdge[next[G.other(e, G.either(e))]++] = e;
+        }
+
+        // root every tree by breadth-first search
+        root = new int[V];
+        depth = new int[V];
+        parentEdge = new int[V];
+        Arrays.fill(root, -1);
+        int[] queue = new int[V];
+        int maxDepth = 0;
+        for (int s = 0; s < V; s++) {
+            if (root[s] != -1) continue;
+            root[s] = s;
+            parentEdge[s] = -1;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = s;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int k = offset[v]; k < offset[v + 1]; k++) {
+                    int e = adjEdge[k];
+                    if (e == parentEdge[v]) continue;
+                    int w = G.other(e, v);
+                    root[w] = s;
+                    depth[w] = depth[v] + 1;
+                    parentEdge[w] = e;
+                    maxDepth = Math.max(maxDepth, depth[w]);
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        // ancestors and bottlenecks 1, 2, 4, ... levels up
+        int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxDepth));
+        up = new int[levels][V];
+        narrowest = new int[levels][V];
+        for (int v = 0; v < V; v++) {
+            int e = parentEdge[v];
+            up[0][v] = e == -1 ? v : G.other(e, v);
+            narrowest[0][v] = e == -1 ? Integer.MAX_VALUE : G.bandwidth(e);
+        }
+        for (int j = 1; j < levels; j++) {
+            int[] half = up[j - 1];
+            int[] halfNarrowest = narrowest[j - 1];
+            for (int v = 0; v < V; v++) {
+                int middle = half[v];
+                up[j][v] = half[middle];
+                narrowest[j][v] = Math.min(halfNarrowest[v], halfNarrowest[middle]);
+            }
+        }
+    }
+
+    /**
+     * Returns the graph this index was built on.
+     *
+     * @return the graph
+     */
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the ids of the edges of the maximum bandwidth spanning forest.
+     *
+     * @return the tree edge ids, in descending order of bandwidth
+     */
+    public int[] edges() {
+        return tree.clone();
+    }
+
+    /**
+     * Are vertices {@code v} and {@code w} connected?
+     *
+     * @param  v one vertex
+     * @param  w the other vertex
+     * @return {@code true} if there is a path between {@code v} and {@code w}
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1}
+     */
+    public boolean connected(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return root[v] == root[w];
+    }
+
+    /**
+     * Returns the bandwidth of a widest path between {@code v} and {@code w},
+     * the largest bottleneck bandwidth of any path between them.
+     * Takes time proportional to log <em>d</em>.
+     *
+     * @param  v one vertex
+     * @param  w the other vertex
+     * @return the bottleneck bandwidth, {@code Integer.MAX_VALUE} if
+     *         {@code v == w}, or 0 if there is no path
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1}
+     */
+    public int bandwidth(int v, int w) {
+        if (!connected(v, w)) return 0;
+        if (depth[v] < depth[w]) {
+            int swap = v;
+            v = w;
+            w = swap;
+        }
+        int min = Integer.MAX_VALUE;
+        for (int j = 0, climb = depth[v] - depth[w]; climb > 0; j++, climb >>>= 1) {
+            if ((climb & 1) != 0) {
+                min = Math.min(min, narrowest[j][v]);
+                v = up[j][v];
+            }
+        }
+        if (v == w) return min;
+        for (int j = up.length - 1; j >= 0; j--) {
+            if (up[j][v] != up[j][w]) {
+                min = Math.min(min, Math.min(narrowest[j][v], narrowest[j][w]));
+                v = up[j][v];
+                w = up[j][w];
+            }
+        }
+        return Math.min(min, Math.min(narrowest[0][v], narrowest[0][w]));
+    }
+
+    /**
+     * Returns a widest path between {@code v} and {@code w}: the path
+     * between them in the maximum bandwidth spanning forest.
+     * Takes time proportional to the length of the path.
+     *
+     * @param  v the source vertex
+     * @param  w the target vertex
+     * @return the path, its latency and its bandwidth
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1}
+     */
+    public LatencyPath path(int v, int w) {
+        if (!connected(v, w)) return new LatencyPath(G, v, w, null, Double.POSITIVE_INFINITY);
+        int[] ids = new int[depth[v] + depth[w]];
+        int front = 0;
+        int back = ids.length;
+        double latency = 0;
+        int x = v;
+        int y = w;
+        while (x != y) {
+            int e;
+            if (depth[x] >= depth[y]) {
+                e = parentEdge[x];
+                ids[front++] = e;
+                x = G.other(e, x);
+            }
+            else {
+                e = parentEdge[y];
+                ids[--back] = e;
+                y = G.other(e, y);
+            }
+            latency += G.latency(e);
+        }
+        int[] path = new int[front + ids.length - back];
+        System.arraycopy(ids, 0, path, 0, front);
+        System.arraycopy(ids, back, path, front, ids.length - back);
+        return new LatencyPath(G, v, w, path, latency);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Reads a network from the file named by the first argument, prints a
+     * widest path between the vertices named by the next two, and checks
+     * the bottleneck of every pair against {@link CSRGraph#widestPath}.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        NetworkAnalysis.readGraphFile(args[0]);
+        CSRGraph G = NetworkAnalysis.graph.toCSR();
+        MaxBandwidthTree index = new MaxBandwidthTree(G);
+        System.out.println(index.path(Integer.parseInt(args[1]), Integer.parseInt(args[2])));
+        int mismatches = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (int w = 0; w < G.V(); w++) {
+                if (index.bandwidth(v, w) != G.widestPath(v, w).bandwidth()) mismatches++;
+            }
+        }
+        System.out.println(G.V() * G.V() + " pairs checked, " + mismatches + " mismatches");
+    }
+}
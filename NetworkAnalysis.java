@@ -4,17 +4,52 @@ import java.util.Scanner;
 public class NetworkAnalysis{
 	
 	public static EdgeWeightedGraph graph; 
+	//Shortest-path trees of the most recently queried starting vertices
+	public static ShortestPathCache paths;
+	public static final int PATH_CACHE_SIZE = 16;
+	//The spanning tree algorithm used by option 3, "kruskal", "prim" or "boruvka"
+	public static String mstAlgorithm = "kruskal";
+	//Follows the change log given on the command line, if any
+	public static ChangeLogTailer changes;
 	public static boolean done = false;
+	//One Scanner for all of standard input, so input piped in by a script is not lost between reads
+	public static Scanner in = new Scanner(System.in);
 	public static void main(String[] args){
 		//create an empty graph
 
 		//Read the file and insert it into the graph
 		readGraphFile(args[0]);
+		//-batch names a file of queries to answer without the menu, -out where the answers go
+		String batch = null;
+		String out = null;
+		String changeLog = null;
+		int positional = 0;
+		for(int i = 1; i < args.length; i++){
+			if(args[i].equals("-batch") && i + 1 < args.length) batch = args[++i];
+			else if(args[i].equals("-out") && i + 1 < args.length) out = args[++i];
+			else if(positional++ == 0) mstAlgorithm = args[i];
+			else changeLog = args[i];
+		}
+		if(batch != null){
+			//The change log is polled before each query, with nothing printed in between the answers
+			if(changeLog != null){
+				try{
+					graph.maintainSpanningTree();
+					changes = new ChangeLogTailer(graph, java.nio.file.Paths.get(changeLog));
+				}catch(IOException er){
+					er.printStackTrace();
+				}
+			}
+			runBatch(batch, out);
+			return;
+		}
+		if(changeLog != null) followChangeLog(changeLog);
 		//System.out.println(graph);
 		while(!done){
 			printInterface();
 			int input = acceptInput();
-			if(input > 0 && input < 6) handleInput(input);
+			applyChanges();
+			if(input > 0 && input < 7) handleInput(input);
 			else System.out.println("Invalid input, try again");
 		}
 	}
@@ -22,62 +57,99 @@ public class NetworkAnalysis{
 
 	public static void readGraphFile(String fileName){
 		
-		//Create a buffer to read in the graph
 		try{
-			FileReader reader = new FileReader(fileName);
-			BufferedReader fileReader = new BufferedReader(reader);	
-			String entry = fileReader.readLine();
-			//Read the first line to find the number of vertices
-			int vertices = Integer.parseInt(entry);
-			
-			graph = new EdgeWeightedGraph(vertices);
-
-			entry= fileReader.readLine();
-			while(entry != null){
-				//Each data element is separated by a space so I just need to read in the space
-
-					//Get v
-					int oldSubstring = entry.indexOf(' ');
-					String vString = entry.substring(0, oldSubstring);
-					int v = Integer.parseInt(vString);
-					
-					//Get w
-					int nextSubstring = entry.indexOf(' ', oldSubstring + 1);
-					String wString = entry.substring(oldSubstring + 1, nextSubstring);
-					int w = Integer.parseInt(wString);
-					
-					//Get the type of cable
-					oldSubstring = nextSubstring;
-					nextSubstring = entry.indexOf(' ', oldSubstring + 1);
-					String cableType = entry.substring(oldSubstring + 1, nextSubstring);
-					
-					//Get the Bandwidth
-					oldSubstring = nextSubstring;
-					nextSubstring = entry.indexOf(' ', oldSubstring + 1);
-					String bandwidthString = entry.substring(oldSubstring + 1, nextSubstring);
-					int bandwidth = Integer.parseInt(bandwidthString);
-					
-					//Get the length
-					oldSubstring = nextSubstring;
-					String lengthString = entry.substring(oldSubstring + 1, entry.length());
-					double length = Double.parseDouble(lengthString);
-					
-					//create the edge and add it to the graph
-					Edge newEdge = new Edge(v, w, length, cableType, bandwidth);
-					graph.addEdge(newEdge);
-
-				entry = fileReader.readLine();
+			if(GraphSnapshot.isSnapshot(java.nio.file.Paths.get(fileName))){
+				//A binary snapshot is mapped straight into memory, with nothing to parse
+				graph = EdgeWeightedGraph.readSnapshot(fileName);
+			}else{
+				//Parse chunks of the file in parallel straight from a memory mapping, without a String per line
+				GraphBuilder builder = MappedTopologyReader.readParallel(fileName);
+				graph = builder.buildGraph();
 			}
-			fileReader.close();
+			paths = new ShortestPathCache(graph, PATH_CACHE_SIZE);
 
-		}catch( FileNotFoundException e){
-			e.printStackTrace();
 		}catch(IOException er){
 			er.printStackTrace();
 		}
 
 	}
 
+	//Starts following an append-only change log, applying what it already holds
+	//The spanning tree is kept up to date from then on, instead of being rebuilt after every change
+	public static void followChangeLog(String fileName){
+		graph.maintainSpanningTree();
+		try{
+			changes = new ChangeLogTailer(graph, java.nio.file.Paths.get(fileName));
+		}catch(IOException er){
+			er.printStackTrace();
+			return;
+		}
+		applyChanges();
+	}
+
+	//Answers every query in the file, one line of JSON per query, then prints how long they took
+	public static void runBatch(String queryFile, String outFile){
+		QueryBatch batch = new QueryBatch(graph, paths, mstAlgorithm);
+		try(BufferedReader queries = new BufferedReader(new FileReader(queryFile));
+			Writer out = outFile == null ? new BufferedWriter(new OutputStreamWriter(System.out))
+			                             : new BufferedWriter(new FileWriter(outFile))){
+			batch.run(queries, out, changes);
+		}catch(IOException er){
+			er.printStackTrace();
+		}
+		System.err.println(batch.summary());
+	}
+
+	//Applies the changes logged since the last command as one batch, so each command sees a consistent graph
+	public static void applyChanges(){
+		if(changes == null) return;
+		long rejected = changes.rejected();
+		try{
+			int applied = changes.poll();
+			if(applied > 0) System.out.println("Applied " + applied + " changes, graph version " + changes.version());
+		}catch(IOException er){
+			er.printStackTrace();
+		}
+		if(changes.rejected() > rejected){
+			System.out.println("Skipped " + (changes.rejected() - rejected) + " changes, last: " + changes.lastError());
+		}
+	}
+
+	//Prints the edges of a lowest latency path, and its bandwidth
+	public static void printPath(LatencyPath path){
+		System.out.println(path);
+	}
+
+	public static void printCopperOnly(boolean copper){
+		if(copper) System.out.println("The graph is copper only connected");
+		else System.out.println("The graph is not copper only connected");
+	}
+
+	//Prints the tree as a graph, followed by its average latency
+	public static void printSpanningTree(LatencySpanningTree tree){
+		System.out.println(tree);
+	}
+
+	//Prints whether the network survives any two failures, and if not, which vertices break it
+	public static void printSurvivability(Survivability survivability){
+		if(survivability.survivesTwoFailures()){
+			System.out.println("The network survived the failures of any two vertices");
+			return;
+		}
+		System.out.println("The network would not remain connected");
+		if(!survivability.isConnected()){
+			System.out.println("The network is already disconnected");
+			return;
+		}
+		int[] articulation = survivability.articulationPoints();
+		if(articulation.length > 0){
+			System.out.println("Articulation points: " + java.util.Arrays.toString(articulation));
+		}
+		for(int[] pair : survivability.separationPairs()){
+			System.out.println("Separation pair: " + pair[0] + " " + pair[1]);
+		}
+	}
+
 	public static void printInterface(){
 		System.out.println();
 		for(int i = 0; i < 20; i++)System.out.print("-");
@@ -93,6 +165,8 @@ public class NetworkAnalysis{
 		
 		System.out.println("Enter 4 to determine whether or not the network will remain connected if any two points fail");
 		
+		System.out.println("Enter 6 to find the highest bandwidth path between two vertices in the graph");
+		
 		System.out.println("Enter 5 to quit the program");
 		System.out.println();
 		System.out.println();
@@ -104,7 +178,11 @@ public class NetworkAnalysis{
 	}
 
 	public static int acceptInput(){
-		Scanner in = new Scanner(System.in);
+		if(!in.hasNextLine()){
+			//End of input quits, like option 5
+			done = true;
+			return 5;
+		}
 		String input = in.nextLine();
 			try{
 				int option = Integer.parseInt(input);
@@ -118,19 +196,21 @@ public class NetworkAnalysis{
 	}
 
 	public static void handleInput(int input){
-		Scanner in = new Scanner(System.in);
 		int v;
 		int w;
 		switch(input){
 			case 1 : 
+			case 6 :
 				try{
 					System.out.println("Please enter the starting vertex");
-					v = in.nextInt();
+					v = Integer.parseInt(in.nextLine().trim());
 					System.out.println("Please enter the target vertex");
-					w = in.nextInt();
+					w = Integer.parseInt(in.nextLine().trim());
 					System.out.println();
 
-					graph.lowestLatencyPath(v, w);
+					//Option 6 wants the highest bandwidth instead, and the lowest latency only among those paths
+					if(input == 1) printPath(paths.tree(v).path(w));
+					else printPath(graph.widestPath(v, w));
 
 				}catch(Exception e){
 					e.printStackTrace();
@@ -139,14 +219,16 @@ public class NetworkAnalysis{
 
 				break;
 			case 2:
-				graph.copperOnly();
+				printCopperOnly(graph.copperOnly());
 				break;	
 			case 3:
-				graph.lowestLatencySpanningTree();
+				//The tree kept up to date through the change log, or one computed with the chosen algorithm
+				if(graph.spanningTree() != null) printSpanningTree(graph.lowestLatencySpanningTree());
+				else printSpanningTree(graph.lowestLatencySpanningTree(mstAlgorithm));
 				break;
 			case 4 :
 
-				graph.remainConnected();
+				printSurvivability(graph.remainConnected());
 				break;
 			case 5 : 
 				done = true;
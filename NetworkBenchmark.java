@@ -0,0 +1,910 @@
+//NetworkBenchmark.java
+
+
+/******************************************************************************
+ *  Compilation:  javac NetworkBenchmark.java
+ *  Execution:    java -Xmx4g NetworkBenchmark mode [arguments]
+ *
+ *  Micro-benchmarks for the graph representations and analyses.
+ *
+ *  % java NetworkBenchmark csr 1000000 4000000
+ *  % java NetworkBenchmark load 100000 1000000 10000000
+ *  % java NetworkBenchmark failures 2000 6000
+ *  % java NetworkBenchmark paths 1000000 3000000 20
+ *  % java NetworkBenchmark matrix 5000 15000
+ *  % java NetworkBenchmark mst 1000000 3000000
+ *  % java NetworkBenchmark boruvka 1000000 3000000
+ *  % java NetworkBenchmark parse 1000000 10000000
+ *  % java NetworkBenchmark server 100000 300000 8 20000
+ *  % java NetworkBenchmark readers 100000 300000 200
+ *  % java NetworkBenchmark heap 1000000
+ *  % java NetworkBenchmark p2p 1000000 3000000 200 16
+ *  % java NetworkBenchmark ch 1000000 100
+ *  % java NetworkBenchmark ksp 200000 1000000 20 10
+ *
+ ******************************************************************************/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  The {@code NetworkBenchmark} class is a command-line driver that times the
+ *  graph representations and analyses on synthetic topologies from
+ *  {@link TopologyGenerator}. The first argument selects the benchmark:
+ *  <ul>
+ *  <li>{@code csr V E} compares the memory used by, and the time to traverse,
+ *      an {@link EdgeWeightedGraph} and the equivalent {@link CSRGraph}.
+ *  <li>{@code load E...} times streaming <em>E</em> edges through a
+ *      {@link GraphBuilder} into each representation, on uniform graphs and
+ *      on graphs where half the links attach to a few hub routers.
+ *  <li>{@code failures V E} times the pairwise {@link FailureSimulator} on
+ *      1, 2, 4, ... cores, up to the number of available processors.
+ *  <li>{@code paths V E Q} runs <em>Q</em> random point-to-point Dijkstra
+ *      queries with a lazy {@link MinPQ} of (distance, vertex) entries, with
+ *      a lazy {@link DoubleMinPQ} and with an {@link IndexMinPQ}, reporting
+ *      query time and peak heap size.
+ *  <li>{@code matrix V E} times the all-pairs {@link LatencyMatrix} on
+ *      1, 2, 4, ... cores, against <em>V</em> separate point-to-point queries
+ *      from one source.
+ *  <li>{@code mst V E} times {@link KruskalMST} and {@link PrimMST} on a
+ *      sparse graph with <em>V</em> vertices and <em>E</em> edges and on a
+ *      dense graph with the same number of edges.
+ *  <li>{@code boruvka V E} times the parallel {@link BoruvkaMST} on 1, 2,
+ *      4, ... cores against {@link KruskalMST}, checking the trees match.
+ *  <li>{@code parse V E} writes a random topology to a temporary file and
+ *      compares the read throughput, in MB/s, of the {@link BufferedReader}
+ *      line reader with that of the {@link MappedTopologyReader}, then times
+ *      the parallel chunked reader on 1, 2, 4, ... cores.
+ *  <li>{@code server V E C Q} starts a {@link QueryServer} on a loopback
+ *      port and has <em>C</em> concurrent clients send <em>Q</em> path
+ *      queries each, one at a time and then pipelined 64 deep, reporting
+ *      the throughput and the server's latency percentiles.
+ *  <li>{@code readers V E Q} runs <em>Q</em> shortest-path trees on the
+ *      graph's {@link EdgeWeightedGraph#snapshot() snapshots} from 1, 2, 4,
+ *      ... threads, first on a quiet graph and then while another thread
+ *      keeps changing edges, reporting the query throughput and the number
+ *      of versions the readers saw.
+ *  <li>{@code heap N} pushes <em>N</em> random (latency, edge id) entries
+ *      through a {@link MinPQ} of {@link Edge} objects, a
+ *      {@link DoubleMinPQ} filled by inserts and by bulk construction, and
+ *      an {@link IndexMinPQ}, reporting the time per entry, and compares
+ *      Kruskal's algorithm on a radix sort and on a {@link DoubleMinPQ}.
+ *  <li>{@code p2p V E Q L} builds a {@link LandmarkIndex} of <em>L</em>
+ *      landmarks, saves and reloads it, then runs <em>Q</em> random
+ *      {@link PointToPointSearch} queries by Dijkstra's algorithm,
+ *      bidirectional Dijkstra and ALT, on a random topology with
+ *      <em>V</em> vertices and <em>E</em> edges and on a tiered backbone
+ *      of <em>V</em> routers, reporting the vertices settled and the time
+ *      per query.
+ *  <li>{@code ch V Q} builds the {@link ContractionHierarchy} of a
+ *      geometric network, a grid and a tiered backbone of about <em>V</em>
+ *      routers, saves and reloads it, then runs <em>Q</em> random queries
+ *      by {@link CSRGraph#lowestLatencyPath(int, int)} and by the
+ *      hierarchy, for the latency alone and for the path, reporting the
+ *      queries per second and the vertices settled.
+ *  <li>{@code ksp V E Q K} finds the <em>K</em> lowest latency loopless
+ *      paths between <em>Q</em> random pairs of a random topology with
+ *      <em>V</em> vertices and <em>E</em> edges with {@link KShortestPaths}
+ *      on 1, 2, 4, ... cores, reporting the time per query, the spur
+ *      searches run and the vertices they settled.
+ *  </ul>
+ *  Timings are wall-clock and include a warm-up round; run with a large heap.
+ */
+public class NetworkBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    // This class should not be instantiated.
+    private NetworkBenchmark() { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: java NetworkBenchmark mode [arguments]");
+            return;
+        }
+        switch (args[0]) {
+            case "csr":
+                csr(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "load":
+                for (int i = 1; i < args.length; i++) load(Integer.parseInt(args[i]));
+                break;
+            case "failures":
+                failures(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "paths":
+                paths(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+                break;
+            case "matrix":
+                matrix(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "mst":
+                mst(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "boruvka":
+                boruvka(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "parse":
+                parse(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "server":
+                server(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                       Integer.parseInt(args[4]));
+                break;
+            case "readers":
+                readers(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+                break;
+            case "heap":
+                heap(Integer.parseInt(args[1]));
+                break;
+            case "p2p":
+                p2p(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]));
+                break;
+            case "ch":
+                hierarchy(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "ksp":
+                kShortestPaths(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                               Integer.parseInt(args[4]));
+                break;
+            default:
+                System.out.println("Unknown benchmark " + args[0]);
+        }
+    }
+
+    // memory footprint and full-traversal time of both representations
+    private static void csr(int V, int E) {
+        long before = usedMemory();
+        EdgeWeightedGraph G = TopologyGenerator.random(V, E, 42);
+        long linkedBytes = usedMemory() - before;
+
+        before = usedMemory();
+        CSRGraph csr = G.toCSR();
+        long csrBytes = usedMemory() - before;
+
+        System.out.printf("V = %d, E = %d%n", V, E);
+        System.out.printf("linked lists: %,d bytes on the heap%n", linkedBytes);
+        System.out.printf("CSR:          %,d bytes on the heap (%,d in arrays)%n", csrBytes, csr.memoryBytes());
+
+        double sum = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            sum += traverse(G);
+            long linked = System.nanoTime() - start;
+            start = System.nanoTime();
+            sum += traverse(csr);
+            long flat = System.nanoTime() - start;
+            if (round == 0) continue;
+            System.out.printf("round %d: linked %.1f ms, CSR %.1f ms%n", round, linked / 1e6, flat / 1e6);
+        }
+        System.out.println("(checksum " + sum + ")");
+    }
+
+    // bulk-load time for E edges on uniform and hub-heavy graphs
+    private static void load(int E) {
+        int V = Math.max(E / 4, 2);
+        for (int hubs : new int[] { 0, 16 }) {
+            int[] from = new int[E];
+            int[] to = new int[E];
+            SplittableRandom random = new SplittableRandom(E);
+            for (int e = 0; e < E; e++) {
+                boolean hub = hubs > 0 && random.nextBoolean();
+                from[e] = hub ? random.nextInt(hubs) : random.nextInt(V);
+                to[e] = random.nextInt(V);
+            }
+            String shape = hubs == 0 ? "uniform" : "hubs";
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                EdgeWeightedGraph G = fill(V, from, to).buildGraph();
+                long linked = System.nanoTime() - start;
+                start = System.nanoTime();
+                CSRGraph csr = fill(V, from, to).buildCSR();
+                long flat = System.nanoTime() - start;
+                if (round == 0) continue;
+                System.out.printf("E = %d %s, round %d: graph %.1f ms, CSR %.1f ms (%d edges kept, degree of vertex 0 is %d)%n",
+                                  E, shape, round, linked / 1e6, flat / 1e6, csr.E(), csr.degree(0));
+            }
+        }
+    }
+
+    private static GraphBuilder fill(int V, int[] from, int[] to) {
+        GraphBuilder builder = new GraphBuilder(V);
+        for (int e = 0; e < from.length; e++) {
+            builder.addEdge(from[e], to[e], (e & 1) == 0, 1000, 1 + (e & 1023));
+        }
+        return builder;
+    }
+
+    // scaling of the pairwise failure simulation with the number of cores
+    private static void failures(int V, int E) {
+        CSRGraph G = TopologyGenerator.randomBuilder(V, E, 42).buildCSR();
+        int cores = Runtime.getRuntime().availableProcessors();
+        double serial = 0;
+        for (int p = 1; p <= cores; p = (p == cores || 2 * p <= cores) ? 2 * p : cores) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            FailureSimulator simulator = new FailureSimulator(G, pool);
+            simulator.partitioningPairs();
+            long start = System.nanoTime();
+            int found = simulator.partitioningPairs().size();
+            double ms = (System.nanoTime() - start) / 1e6;
+            pool.shutdown();
+            if (p == 1) serial = ms;
+            System.out.printf("%d cores: %.1f ms, speedup %.2f (%d partitioning pairs)%n", p, ms, serial / ms, found);
+        }
+    }
+
+    // lazy versus indexed Dijkstra on random point-to-point queries
+    private static void paths(int V, int E, int queries) {
+        CSRGraph G = TopologyGenerator.randomBuilder(V, E, 42).buildCSR();
+        SplittableRandom random = new SplittableRandom(7);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            sources[q] = random.nextInt(V);
+            targets[q] = random.nextInt(V);
+        }
+        double[] distances = new double[queries];
+        for (int round = 0; round <= ROUNDS; round++) {
+            long lazyPeak = 0;
+            long primitivePeak = 0;
+            long indexedPeak = 0;
+            int mismatches = 0;
+            long start = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                double[] result = lazyDijkstra(G, sources[q], targets[q]);
+                lazyPeak = Math.max(lazyPeak, (long) result[1]);
+                distances[q] = result[0];
+            }
+            long lazy = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                double[] result = primitiveDijkstra(G, sources[q], targets[q]);
+                primitivePeak = Math.max(primitivePeak, (long) result[1]);
+                if (result[0] != distances[q]) mismatches++;
+            }
+            long primitive = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                double[] result = indexedDijkstra(G, sources[q], targets[q]);
+                indexedPeak = Math.max(indexedPeak, (long) result[1]);
+                if (result[0] != distances[q]) mismatches++;
+            }
+            long indexed = System.nanoTime() - start;
+            if (round == 0) continue;
+            System.out.printf("round %d: lazy %.3f ms/query (peak heap %d), primitive lazy %.3f ms/query (peak heap %d), "
+                              + "indexed %.3f ms/query (peak heap %d)%s%n",
+                              round, lazy / 1e6 / queries, lazyPeak, primitive / 1e6 / queries, primitivePeak,
+                              indexed / 1e6 / queries, indexedPeak,
+                              mismatches == 0 ? "" : " " + mismatches + " MISMATCHES");
+        }
+    }
+
+    // distance to t and peak heap size of a lazy-deletion Dijkstra
+    private static double[] lazyDijkstra(CSRGraph G, int s, int t) {
+        double[] dist = new double[G.V()];
+        boolean[] done = new boolean[G.V()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        MinPQ<double[]> pq = new MinPQ<double[]>((a, b) -> Double.compare(a[0], b[0]));
+        dist[s] = 0;
+        pq.insert(new double[] { 0, s });
+        long peak = 1;
+        while (!pq.isEmpty()) {
+            int v = (int) pq.delMin()[1];
+            if (done[v]) continue;
+            done[v] = true;
+            if (v == t) break;
+            for (int k = G.begin(v); k < G.end(v); k++) {
+                int w = G.neighbor(k);
+                double d = dist[v] + G.slotLatency(k);
+                if (d < dist[w]) {
+                    dist[w] = d;
+                    pq.insert(new double[] { d, w });
+                    peak = Math.max(peak, pq.size());
+                }
+            }
+        }
+        return new double[] { dist[t], peak };
+    }
+
+    // distance to t and peak heap size of a lazy-deletion Dijkstra on a primitive heap
+    private static double[] primitiveDijkstra(CSRGraph G, int s, int t) {
+        double[] dist = new double[G.V()];
+        boolean[] done = new boolean[G.V()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        DoubleMinPQ pq = new DoubleMinPQ();
+        dist[s] = 0;
+        pq.insert(s, 0);
+        long peak = 1;
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            if (done[v]) continue;
+            done[v] = true;
+            if (v == t) break;
+            for (int k = G.begin(v); k < G.end(v); k++) {
+                int w = G.neighbor(k);
+                double d = dist[v] + G.slotLatency(k);
+                if (d < dist[w]) {
+                    dist[w] = d;
+                    pq.insert(w, d);
+                    peak = Math.max(peak, pq.size());
+                }
+            }
+        }
+        return new double[] { dist[t], peak };
+    }
+
+    // distance to t and peak heap size of Dijkstra with decrease-key
+    private static double[] indexedDijkstra(CSRGraph G, int s, int t) {
+        double[] dist = new double[G.V()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        IndexMinPQ pq = new IndexMinPQ(G.V());
+        dist[s] = 0;
+        pq.insert(s, 0);
+        long peak = 1;
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            if (v == t) break;
+            for (int k = G.begin(v); k < G.end(v); k++) {
+                int w = G.neighbor(k);
+                double d = dist[v] + G.slotLatency(k);
+                if (d < dist[w]) {
+                    dist[w] = d;
+                    pq.insertOrDecrease(w, d);
+                    peak = Math.max(peak, pq.size());
+                }
+            }
+        }
+        return new double[] { dist[t], peak };
+    }
+
+    // time per entry of each priority queue, and Kruskal on a sort versus on a heap
+    private static void heap(int n) {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] keys = new double[n];
+        int[] ids = new int[n];
+        Edge[] edges = new Edge[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            edges[i] = new Edge(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(100000), "optical", 100);
+            keys[i] = edges[i].latency();
+        }
+        for (int round = 0; round <= ROUNDS; round++) {
+            double[] sums = new double[4];
+            long start = System.nanoTime();
+            MinPQ<Edge> objects = new MinPQ<Edge>((a, b) -> Double.compare(a.latency(), b.latency()));
+            for (Edge e : edges) objects.insert(e);
+            while (!objects.isEmpty()) sums[0] += objects.delMin().latency();
+            long generic = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            DoubleMinPQ inserted = new DoubleMinPQ();
+            for (int i = 0; i < n; i++) inserted.insert(ids[i], keys[i]);
+            while (!inserted.isEmpty()) sums[1] += keys[inserted.delMin()];
+            long insert = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            DoubleMinPQ built = new DoubleMinPQ(keys, ids);
+            while (!built.isEmpty()) sums[2] += keys[built.delMin()];
+            long heapify = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            IndexMinPQ indexed = new IndexMinPQ(n);
+            for (int i = 0; i < n; i++) indexed.insert(ids[i], keys[i]);
+            while (!indexed.isEmpty()) sums[3] += keys[indexed.delMin()];
+            long index = System.nanoTime() - start;
+
+            if (round == 0) continue;
+            System.out.printf("round %d: MinPQ<Edge> %.1f ns, DoubleMinPQ %.1f ns (bulk %.1f ns), IndexMinPQ %.1f ns per entry%s%n",
+                              round, (double) generic / n, (double) insert / n, (double) heapify / n,
+                              (double) index / n,
+                              sums[0] == sums[1] && sums[0] == sums[2] && sums[0] == sums[3] ? "" : " MISMATCH");
+        }
+
+        CSRGraph G = TopologyGenerator.randomBuilder(n / 3, n, 42).buildCSR();
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            double sorted = new KruskalMST(G).weight();
+            long sort = System.nanoTime() - start;
+            start = System.nanoTime();
+            double heaped = heapKruskal(G);
+            long heap = System.nanoTime() - start;
+            if (round == 0) continue;
+            System.out.printf("round %d: Kruskal on V = %d, E = %d: radix sort %.1f ms, heap %.1f ms%s%n",
+                              round, G.V(), G.E(), sort / 1e6, heap / 1e6, sorted == heaped ? "" : " MISMATCH");
+        }
+    }
+
+    // weight of a minimum spanning forest by Kruskal's algorithm, taking edges off a heap built in one step
+    private static double heapKruskal(CSRGraph G) {
+        int V = G.V();
+        double[] keys = new double[G.E()];
+        int[] ids = new int[G.E()];
+        for (int e = 0; e < keys.length; e++) {
+            keys[e] = G.latency(e);
+            ids[e] = e;
+        }
+        DoubleMinPQ pq = new DoubleMinPQ(keys, ids);
+        UF uf = new UF(V);
+        double weight = 0;
+        for (int count = 0; count < V - 1 && !pq.isEmpty(); ) {
+            int e = pq.delMin();
+            if (uf.union(G.either(e), G.other(e, G.either(e)))) {
+                weight += G.latency(e);
+                count++;
+            }
+        }
+        return weight;
+    }
+
+    // settled vertices and time per query of the three point-to-point searches
+    private static void p2p(int V, int E, int queries, int landmarks) throws IOException {
+        String[] names = { "random", "backbone" };
+        for (String name : names) {
+            CSRGraph G = name.equals("random") ? TopologyGenerator.randomBuilder(V, E, 42).buildCSR()
+                                               : TopologyGenerator.tiered(V, 42).toCSR();
+            long start = System.nanoTime();
+            LandmarkIndex index = new LandmarkIndex(G, landmarks);
+            double built = (System.nanoTime() - start) / 1e6;
+            File file = File.createTempFile("p2p", ".landmarks");
+            file.deleteOnExit();
+            index.write(file.toPath());
+            start = System.nanoTime();
+            index = LandmarkIndex.read(file.toPath(), G);
+            double read = (System.nanoTime() - start) / 1e6;
+            file.delete();
+            System.out.printf("%s, V = %d, E = %d: %d landmarks built in %.1f ms, reloaded in %.1f ms%n",
+                              name, G.V(), G.E(), landmarks, built, read);
+
+            SplittableRandom random = new SplittableRandom(7);
+            int[] sources = new int[queries];
+            int[] targets = new int[queries];
+            for (int q = 0; q < queries; q++) {
+                sources[q] = random.nextInt(G.V());
+                targets[q] = random.nextInt(G.V());
+            }
+            PointToPointSearch search = new PointToPointSearch(index);
+            String[] methods = { "dijkstra", "bidirectional", "alt" };
+            double[] latency = new double[queries];
+            for (int round = 0; round <= ROUNDS; round++) {
+                StringBuilder line = new StringBuilder(String.format("round %d:", round));
+                int mismatches = 0;
+                for (String method : methods) {
+                    long settled = 0;
+                    start = System.nanoTime();
+                    for (int q = 0; q < queries; q++) {
+                        LatencyPath path;
+                        if (method.equals("dijkstra")) path = search.dijkstra(sources[q], targets[q]);
+                        else if (method.equals("bidirectional")) path = search.bidirectional(sources[q], targets[q]);
+                        else path = search.alt(sources[q], targets[q]);
+                        settled += search.settled();
+                        if (method.equals("dijkstra")) latency[q] = path.latency();
+                        else if (Math.abs(path.latency() - latency[q]) > 1e-9 * latency[q]) mismatches++;
+                    }
+                    line.append(String.format(" %s %.3f ms/query (%,d settled)", method,
+                                              (System.nanoTime() - start) / 1e6 / queries, settled / queries));
+                }
+                if (round == 0) continue;
+                System.out.println(line + (mismatches == 0 ? "" : " " + mismatches + " MISMATCHES"));
+            }
+        }
+    }
+
+    // preprocessing, and queries per second of Dijkstra's algorithm and of the contraction hierarchy
+    private static void hierarchy(int V, int queries) throws IOException {
+        String[] names = { "geometric", "grid", "tiered" };
+        for (String name : names) {
+            CSRGraph G = AnalysisBenchmark.topology(name, V, 42).toCSR();
+            long start = System.nanoTime();
+            ContractionHierarchy index = new ContractionHierarchy(G);
+            double built = (System.nanoTime() - start) / 1e9;
+            File file = File.createTempFile("hierarchy", ".ch");
+            file.deleteOnExit();
+            index.write(file.toPath());
+            start = System.nanoTime();
+            index = ContractionHierarchy.read(file.toPath(), G);
+            double read = (System.nanoTime() - start) / 1e6;
+            file.delete();
+            System.out.printf("%s, V = %d, E = %d: %,d shortcuts built in %.1f s, reloaded in %.1f ms%n",
+                              name, G.V(), G.E(), index.shortcuts(), built, read);
+
+            SplittableRandom random = new SplittableRandom(7);
+            int[] sources = new int[queries];
+            int[] targets = new int[queries];
+            for (int q = 0; q < queries; q++) {
+                sources[q] = random.nextInt(G.V());
+                targets[q] = random.nextInt(G.V());
+            }
+            String[] methods = { "dijkstra", "latency", "path" };
+            double[] latency = new double[queries];
+            for (int round = 0; round <= ROUNDS; round++) {
+                StringBuilder line = new StringBuilder(String.format("round %d:", round));
+                int mismatches = 0;
+                long settled = 0;
+                for (String method : methods) {
+                    start = System.nanoTime();
+                    for (int q = 0; q < queries; q++) {
+                        double found;
+                        if (method.equals("dijkstra")) found = latency[q] = G.lowestLatencyPath(sources[q], targets[q]).latency();
+                        else if (method.equals("latency")) {
+                            found = index.latency(sources[q], targets[q]);
+                            settled += index.settled();
+                        }
+                        else found = index.path(sources[q], targets[q]).latency();
+                        if (Math.abs(found - latency[q]) > 1e-9 * latency[q]) mismatches++;
+                    }
+                    line.append(String.format(" %s %,.0f queries/s", method,
+                                              queries / ((System.nanoTime() - start) / 1e9)));
+                }
+                if (round == 0) continue;
+                System.out.println(line + String.format(" (%,d settled)", settled / queries)
+                                   + (mismatches == 0 ? "" : " " + mismatches + " MISMATCHES"));
+            }
+        }
+    }
+
+    // K shortest loopless paths on 1..N cores
+    private static void kShortestPaths(int V, int E, int queries, int K) {
+        CSRGraph G = TopologyGenerator.randomBuilder(V, E, 42).buildCSR();
+        SplittableRandom random = new SplittableRandom(7);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            sources[q] = random.nextInt(V);
+            targets[q] = random.nextInt(V);
+        }
+        double[][] latency = new double[queries][];
+        int cores = Runtime.getRuntime().availableProcessors();
+        double serial = 0;
+        for (int p = 1; p <= cores; p = (p == cores || 2 * p <= cores) ? 2 * p : cores) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            for (int round = 0; round <= 1; round++) {
+                long spurs = 0, settled = 0, paths = 0;
+                int mismatches = 0;
+                long start = System.nanoTime();
+                for (int q = 0; q < queries; q++) {
+                    KShortestPaths k = new KShortestPaths(G, sources[q], targets[q], K, pool);
+                    spurs += k.spurs();
+                    settled += k.settled();
+                    paths += k.size();
+                    double[] found = new double[k.size()];
+                    for (int i = 0; i < found.length; i++) found[i] = k.path(i).latency();
+                    if (latency[q] == null) latency[q] = found;
+                    else if (!Arrays.equals(latency[q], found)) mismatches++;
+                }
+                double ms = (System.nanoTime() - start) / 1e6 / queries;
+                if (round == 0) continue;
+                if (p == 1) serial = ms;
+                System.out.printf("V = %d, E = %d, K = %d on %d cores: %.1f ms/query, speedup %.2f, %.1f paths, "
+                                  + "%,d spur searches settling %,d vertices per query%s%n",
+                                  G.V(), G.E(), K, p, ms, serial / ms, (double) paths / queries,
+                                  spurs / queries, settled / queries,
+                                  mismatches == 0 ? "" : " " + mismatches + " MISMATCHES");
+            }
+            pool.shutdown();
+        }
+    }
+
+    // all-pairs latencies on 1..N cores, and one tree versus V single-pair searches
+    private static void matrix(int V, int E) {
+        CSRGraph G = TopologyGenerator.randomBuilder(V, E, 42).buildCSR();
+        int cores = Runtime.getRuntime().availableProcessors();
+        double serial = 0;
+        for (int p = 1; p <= cores; p = (p == cores || 2 * p <= cores) ? 2 * p : cores) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            int[] all = new int[V];
+            for (int v = 0; v < V; v++) all[v] = v;
+            new LatencyMatrix(G, all, pool);
+            long start = System.nanoTime();
+            new LatencyMatrix(G, all, pool);
+            double ms = (System.nanoTime() - start) / 1e6;
+            pool.shutdown();
+            if (p == 1) serial = ms;
+            System.out.printf("all pairs on %d cores: %.1f ms, speedup %.2f%n", p, ms, serial / ms);
+        }
+
+        long start = System.nanoTime();
+        ShortestPathTree tree = new ShortestPathTree(G, 0);
+        double treeMs = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        int mismatches = 0;
+        for (int v = 0; v < V; v++) {
+            if (indexedDijkstra(G, 0, v)[0] != tree.distTo(v)) mismatches++;
+        }
+        double pairMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("one source to all: one tree %.1f ms, %d point-to-point searches %.1f ms%s%n",
+                          treeMs, V, pairMs, mismatches == 0 ? "" : " " + mismatches + " MISMATCHES");
+    }
+
+    // Kruskal versus Prim on a sparse and a dense graph with E edges
+    private static void mst(int V, int E) {
+        int denseV = (int) Math.ceil(Math.sqrt(4.0 * E));
+        String[] algorithms = { "kruskal", "prim" };
+        for (int n : new int[] { V, denseV }) {
+            CSRGraph G = TopologyGenerator.randomBuilder(n, E, 42).buildCSR();
+            for (int round = 0; round <= ROUNDS; round++) {
+                StringBuilder line = new StringBuilder();
+                line.append(String.format("V = %d, E = %d, round %d:", n, E, round));
+                for (String algorithm : algorithms) {
+                    long start = System.nanoTime();
+                    SpanningTree tree = SpanningTree.of(G, algorithm);
+                    line.append(String.format(" %s %.1f ms (weight %.9e)", algorithm,
+                                              (System.nanoTime() - start) / 1e6, tree.weight()));
+                }
+                if (round > 0) System.out.println(line);
+            }
+        }
+    }
+
+    // scaling of parallel Boruvka with the number of cores, against Kruskal
+    private static void boruvka(int V, int E) {
+        CSRGraph G = TopologyGenerator.randomBuilder(V, E, 42).buildCSR();
+        new KruskalMST(G);
+        long start = System.nanoTime();
+        KruskalMST kruskal = new KruskalMST(G);
+        System.out.printf("kruskal: %.1f ms (weight %.9e)%n", (System.nanoTime() - start) / 1e6, kruskal.weight());
+        int cores = Runtime.getRuntime().availableProcessors();
+        double serial = 0;
+        for (int p = 1; p <= cores; p = (p == cores || 2 * p <= cores) ? 2 * p : cores) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            new BoruvkaMST(G, pool);
+            start = System.nanoTime();
+            BoruvkaMST tree = new BoruvkaMST(G, pool);
+            double ms = (System.nanoTime() - start) / 1e6;
+            pool.shutdown();
+            if (p == 1) serial = ms;
+            boolean same = Arrays.equals(tree.edges(), kruskal.edges()) && tree.weight() == kruskal.weight();
+            System.out.printf("boruvka on %d cores: %.1f ms, speedup %.2f%s%n", p, ms, serial / ms,
+                              same ? "" : " TREE MISMATCH");
+        }
+    }
+
+    // read throughput of the line reader and the memory-mapped reader on the same file
+    private static void parse(int V, int E) throws IOException {
+        File file = File.createTempFile("topology", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            TopologyGenerator.write(TopologyGenerator.random(V, E, 42), out);
+        }
+        double mb = file.length() / 1e6;
+        System.out.printf("V = %d, E = %d, %.1f MB%n", V, E, mb);
+        GraphBuilder lines = null;
+        GraphBuilder mapped = null;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            lines = readLines(file.getPath());
+            double linesSeconds = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            mapped = MappedTopologyReader.read(file.getPath());
+            double mappedSeconds = (System.nanoTime() - start) / 1e9;
+            if (round == 0) continue;
+            System.out.printf("round %d: lines %.1f MB/s, mapped %.1f MB/s%n", round, mb / linesSeconds, mb / mappedSeconds);
+        }
+        CSRGraph expected = lines.buildCSR();
+        if (!sameEdges(expected, mapped.buildCSR())) System.out.println("EDGE MISMATCH");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double serial = 0;
+        for (int p = 1; p <= cores; p = (p == cores || 2 * p <= cores) ? 2 * p : cores) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            MappedTopologyReader.readParallel(file.toPath(), pool);
+            long start = System.nanoTime();
+            GraphBuilder parallel = MappedTopologyReader.readParallel(file.toPath(), pool);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            if (p == 1) serial = seconds;
+            System.out.printf("parallel on %d cores: %.1f MB/s, speedup %.2f%s%n", p, mb / seconds, serial / seconds,
+                              sameEdges(expected, parallel.buildCSR()) ? "" : " EDGE MISMATCH");
+        }
+    }
+
+    // throughput of concurrent clients of a query server, unpipelined and pipelined
+    private static void server(int V, int E, int clients, int queries) throws IOException {
+        EdgeWeightedGraph G = TopologyGenerator.random(V, E, 42);
+        try (QueryServer server = new QueryServer(G, "kruskal", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    server.serve();
+                }
+                catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            InetSocketAddress address = (InetSocketAddress) server.address();
+            System.out.printf("V = %d, E = %d, %d clients on port %d%n", V, E, clients, address.getPort());
+
+            // the clients warm their path caches, then run each pipeline depth in step
+            int[] depths = { 1, 64 };
+            CyclicBarrier phase = new CyclicBarrier(clients + 1);
+            for (int c = 0; c < clients; c++) {
+                int seed = c;
+                Thread client = new Thread(() -> queryServer(address, V, queries, depths, phase, seed));
+                client.setDaemon(true);
+                client.start();
+            }
+            try {
+                phase.await();
+                for (int depth : depths) {
+                    long start = System.nanoTime();
+                    phase.await();
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("pipeline depth %d: %d queries in %.1f ms, %.0f queries/s%n",
+                                      depth, (long) clients * queries, seconds * 1e3, clients * queries / seconds);
+                }
+            }
+            catch (InterruptedException | BrokenBarrierException e) {
+                System.out.println("a client failed");
+                return;
+            }
+            System.out.println(server.stats());
+        }
+    }
+
+    // one client sending path queries from a few sources of its own, depth at a time
+    private static void queryServer(InetSocketAddress address, int V, int queries, int[] depths,
+                                    CyclicBarrier phase, int seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] sources = new int[4];
+        for (int i = 0; i < sources.length; i++) sources[i] = random.nextInt(V);
+        try (SocketChannel channel = SocketChannel.open(address);
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            for (int s : sources) {
+                out.write("path " + s + " " + s + "\n");
+                out.flush();
+                in.readLine();
+            }
+            phase.await();
+            for (int depth : depths) {
+                for (int sent = 0; sent < queries; sent += depth) {
+                    int n = Math.min(depth, queries - sent);
+                    for (int i = 0; i < n; i++) {
+                        out.write("path " + sources[random.nextInt(sources.length)] + " " + random.nextInt(V) + "\n");
+                    }
+                    out.flush();
+                    for (int i = 0; i < n; i++) in.readLine();
+                }
+                phase.await();
+            }
+        }
+        catch (IOException | InterruptedException | BrokenBarrierException e) {
+            e.printStackTrace();
+            phase.reset();
+        }
+    }
+
+    // query throughput on snapshots from several reader threads, with and without a writer
+    private static void readers(int V, int E, int queries) {
+        EdgeWeightedGraph G = TopologyGenerator.random(V, E, 42);
+        System.out.printf("V = %d, E = %d, %d queries%n", V, E, queries);
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (boolean writing : new boolean[] { false, true }) {
+            for (int p = 1; p <= cores; p = (p == cores || 2 * p <= cores) ? 2 * p : cores) {
+                AtomicBoolean done = new AtomicBoolean();
+                AtomicLong changes = new AtomicLong();
+                Thread writer = new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(7);
+                    while (!done.get()) {
+                        int v = random.nextInt(V);
+                        int w = random.nextInt(V);
+                        G.addEdge(new Edge(v, w, 1 + random.nextInt(1000), "optical", 1000));
+                        G.removeEdge(v, w);
+                        changes.addAndGet(2);
+                    }
+                });
+                if (writing) writer.start();
+                Set<Long> versions = ConcurrentHashMap.newKeySet();
+                AtomicInteger next = new AtomicInteger();
+                Thread[] readers = new Thread[p];
+                long start = System.nanoTime();
+                for (int t = 0; t < p; t++) {
+                    int seed = t;
+                    readers[t] = new Thread(() -> {
+                        SplittableRandom random = new SplittableRandom(seed);
+                        while (next.getAndIncrement() < queries) {
+                            CSRGraph snapshot = G.snapshot();
+                            versions.add(snapshot.version());
+                            new ShortestPathTree(snapshot, random.nextInt(V));
+                        }
+                    });
+                    readers[t].start();
+                }
+                try {
+                    for (Thread reader : readers) reader.join();
+                    done.set(true);
+                    if (writing) writer.join();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d readers%s: %.0f queries/s%s%n", p, writing ? " with a writer" : "",
+                                  queries / seconds,
+                                  writing ? String.format(", %d changes, %d versions seen", changes.get(), versions.size()) : "");
+            }
+        }
+    }
+
+    // the line-by-line reader NetworkAnalysis used before the memory-mapped one
+    private static GraphBuilder readLines(String fileName) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(fileName))) {
+            GraphBuilder builder = new GraphBuilder(Integer.parseInt(in.readLine()));
+            for (String entry = in.readLine(); entry != null; entry = in.readLine()) {
+                int a = entry.indexOf(' ');
+                int b = entry.indexOf(' ', a + 1);
+                int c = entry.indexOf(' ', b + 1);
+                int d = entry.indexOf(' ', c + 1);
+                builder.addEdge(Integer.parseInt(entry.substring(0, a)), Integer.parseInt(entry.substring(a + 1, b)),
+                                entry.substring(b + 1, c), Integer.parseInt(entry.substring(c + 1, d)),
+                                Double.parseDouble(entry.substring(d + 1)));
+            }
+            return builder;
+        }
+    }
+
+    private static boolean sameEdges(CSRGraph G, CSRGraph H) {
+        if (G.V() != H.V() || G.E() != H.E()) return false;
+        for (int e = 0; e < G.E(); e++) {
+            int v = G.either(e);
+            if (v != H.either(e) || G.other(e, v) != H.other(e, v) || G.length(e) != H.length(e)
+                || G.bandwidth(e) != H.bandwidth(e) || G.isCopper(e) != H.isCopper(e)) return false;
+        }
+        return true;
+    }
+
+    // visits every adjacency entry of every vertex
+    private static double traverse(EdgeWeightedGraph G) {
+        double sum = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (Edge e : G.adj(v)) {
+                sum += e.latency();
+            }
+        }
+        return sum;
+    }
+
+    private static double traverse(CSRGraph G) {
+        double sum = 0;
+        for (int v = 0; v < G.V(); v++) {
+            for (int k = G.begin(v); k < G.end(v); k++) {
+                sum += G.slotLatency(k);
+            }
+        }
+        return sum;
+    }
+
+    // bytes in use on the heap after a best-effort garbage collection
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
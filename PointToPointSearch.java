@@ -0,0 +1,266 @@
+//PointToPointSearch.java
+
+
+/******************************************************************************
+ *  Compilation:  javac PointToPointSearch.java
+ *  Execution:    java NetworkBenchmark p2p V E Q L
+ *
+ *  Lowest latency paths between one pair of vertices at a time, by
+ *  Dijkstra's algorithm, bidirectional Dijkstra, or A* with landmarks (ALT),
+ *  reusing its arrays from query to query.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/**
+ *  The {@code PointToPointSearch} class answers lowest latency path queries
+ *  between two vertices of a {@link CSRGraph}, counting the vertices each
+ *  query settles. Three searches find the same latency:
+ *  <ul>
+ *  <li>{@link #dijkstra} grows one ball around the source until it settles
+ *      the target, like {@link CSRGraph#lowestLatencyPath(int, int)};
+ *  <li>{@link #bidirectional} grows one ball around each end, always
+ *      advancing the one with the smaller frontier, and stops once the two
+ *      frontiers are together at least as far as the best path found
+ *      through an edge between the balls. Two balls of half the radius
+ *      cover far fewer vertices than one of the full radius;
+ *  <li>{@link #alt} is A* search ordered by the latency from the source plus
+ *      the {@link LandmarkIndex} lower bound on the latency to the target,
+ *      so it settles mostly the vertices towards the target.
+ *  </ul>
+ *  <p>
+ *  A search object owns its distance and priority queue arrays, sized for
+ *  the graph once, and reuses them: every entry is stamped with the query
+ *  that wrote it, so nothing is cleared between queries and a query takes
+ *  time proportional to the part of the graph it explores, not to
+ *  <em>V</em>. For that reason a search object is not thread-safe; use one
+ *  per thread.
+ */
+public class PointToPointSearch {
+    private static final double ROUNDING = 1e-9;    // relative error of a landmark bound
+    private final CSRGraph G;
+    private final LandmarkIndex landmarks;  // or null
+
+    private int query;                      // stamp of the current query
+    private final Side forward;
+    private final Side backward;
+    private int settled;                    // vertices settled by the last query
+    private final int[] closed;             // closed[v] == query if a one-directional search settled v
+    private final int[] reopened;           // reopened[v] == query if it has put v back on the frontier
+
+    // one direction of a search: tentative latencies, the edge each was reached by, and the frontier
+    private static final class Side {
+        private final double[] distance;
+        private final int[] via;
+        private final int[] reached;        // reached[v] == query if distance[v] and via[v] are current
+        private final IndexMinPQ pq;
+
+        private Side(int V) {
+            distance = new double[V];
+            via = new int[V];
+            reached = new int[V];
+            pq = new IndexMinPQ(V);
+        }
+
+        private double distanceTo(int v, int query) {
+            return reached[v] == query ? distance[v] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Initializes a search of {@code G} without landmarks.
+     *
+     * @param  G the graph
+     */
+    public PointToPointSearch(CSRGraph G) {
+        this(G, null);
+    }
+
+    /**
+     * Initializes a search of the graph of the given landmark index.
+     *
+     * @param  landmarks the landmark tables
+     */
+    public PointToPointSearch(LandmarkIndex landmarks) {
+        this(landmarks.graph(), landmarks);
+    }
+
+    private PointToPointSearch(CSRGraph G, LandmarkIndex landmarks) {
+        this.G = G;
+        this.landmarks = landmarks;
+        forward = new Side(G.V());
+        backward = new Side(G.V());
+        closed = new int[G.V()];
+        reopened = new int[G.V()];
+    }
+
+    /**
+     * Returns the graph this search runs on.
+     *
+     * @return the graph
+     */
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the number of vertices settled by the last query, counting
+     * both directions of a bidirectional search.
+     *
+     * @return the vertices settled
+     */
+    public int settled() {
+        return settled;
+    }
+
+    /**
+     * Finds a lowest latency path from {@code v} to {@code w} with Dijkstra's
+     * algorithm, stopping as soon as {@code w} is settled.
+     *
+     * @param  v the source vertex
+     * @param  w the target vertex
+     * @return the path, its latency and its bandwidth
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1}
+     */
+    public LatencyPath dijkstra(int v, int w) {
+        return guided(v, w, false);
+    }
+
+    /**
+     * Finds a lowest latency path from {@code v} to {@code w} with A* search
+     * guided by the landmark lower bounds, stopping as soon as {@code w} is
+     * settled.
+     *
+     * @param  v the source vertex
+     * @param  w the target vertex
+     * @return the path, its latency and its bandwidth
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1}
+     * @throws IllegalStateException if this search has no landmarks
+     */
+    public LatencyPath alt(int v, int w) {
+        if (landmarks == null) throw new IllegalStateException("the search has no landmark index");
+        return guided(v, w, true);
+    }
+
+    // Dijkstra's algorithm, or A* if guided, from v until w is settled
+    private LatencyPath guided(int v, int w, boolean guided) {
+        validateVertex(v);
+        validateVertex(w);
+        start();
+        Side side = forward;
+        reach(side, v, 0, -1, guided ? landmarks.lowerBound(v, w) : 0);
+        while (!side.pq.isEmpty()) {
+            int x = side.pq.delMin();
+            settled++;
+            if (x == w) break;
+            closed[x] = query;
+            for (int k = G.begin(x); k < G.end(x); k++) {
+                int y = G.neighbor(k);
+                double d = side.distance[x] + G.slotLatency(k);
+                if (d < side.distanceTo(y, query)) {
+                    if (closed[y] == query) {
+                        // a bound off by rounding settled y too early, so A* puts it back on the
+                        // frontier; but only once, and only for an improvement of rounding size,
+                        // as a link of negative length would otherwise do it forever
+                        if (!guided || reopened[y] == query
+                            || side.distance[y] - d > ROUNDING * Math.abs(side.distance[y])) continue;
+                        reopened[y] = query;
+                    }
+                    double bound = guided ? landmarks.lowerBound(y, w) : 0;
+                    if (bound == Double.POSITIVE_INFINITY) continue;     // y cannot reach w
+                    reach(side, y, d, G.edgeAt(k), d + bound);
+                }
+            }
+        }
+        return path(v, w, side.distanceTo(w, query));
+    }
+
+    /**
+     * Finds a lowest latency path from {@code v} to {@code w} with
+     * bidirectional Dijkstra.
+     *
+     * @param  v the source vertex
+     * @param  w the target vertex
+     * @return the path, its latency and its bandwidth
+     * @throws IllegalArgumentException unless both vertices are between 0 and {@code V - 1}
+     */
+    public LatencyPath bidirectional(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        start();
+        reach(forward, v, 0, -1, 0);
+        reach(backward, w, 0, -1, 0);
+        double best = v == w ? 0 : Double.POSITIVE_INFINITY;   // latency of the best path found
+        int meet = v;                                           // the vertex it passes through
+        while (!forward.pq.isEmpty() && !backward.pq.isEmpty()) {
+            if (forward.pq.minKey() + backward.pq.minKey() >= best) break;
+            boolean ahead = forward.pq.size() <= backward.pq.size();
+            Side side = ahead ? forward : backward;
+            Side opposite = ahead ? backward : forward;
+            int x = side.pq.delMin();
+            settled++;
+            for (int k = G.begin(x); k < G.end(x); k++) {
+                int y = G.neighbor(k);
+                double d = side.distance[x] + G.slotLatency(k);
+                if (d < side.distanceTo(y, query)) reach(side, y, d, G.edgeAt(k), d);
+                double through = d + opposite.distanceTo(y, query);
+                if (through < best) {
+                    best = through;
+                    meet = y;
+                }
+            }
+        }
+        if (best == Double.POSITIVE_INFINITY) return new LatencyPath(G, v, w, null, best);
+
+        // the forward half from v to meet, then the backward half from meet to w
+        int count = 0;
+        for (int x = meet; x != v; x = G.other(forward.via[x], x)) count++;
+        int half = count;
+        for (int x = meet; x != w; x = G.other(backward.via[x], x)) count++;
+        int[] ids = new int[count];
+        int i = half;
+        for (int x = meet; x != v; x = G.other(forward.via[x], x)) ids[--i] = forward.via[x];
+        i = half;
+        for (int x = meet; x != w; x = G.other(backward.via[x], x)) ids[i++] = backward.via[x];
+        return new LatencyPath(G, v, w, ids, best);
+    }
+
+    // begins a query: new stamps and empty queues
+    private void start() {
+        if (++query == Integer.MAX_VALUE) {
+            query = 1;
+            Arrays.fill(forward.reached, 0);
+            Arrays.fill(backward.reached, 0);
+            Arrays.fill(closed, 0);
+            Arrays.fill(reopened, 0);
+        }
+        forward.pq.clear();
+        backward.pq.clear();
+        settled = 0;
+    }
+
+    // records that y is d away, reached by edge e, and puts it on the frontier with the given key
+    private void reach(Side side, int y, double d, int e, double key) {
+        side.distance[y] = d;
+        side.via[y] = e;
+        side.reached[y] = query;
+        side.pq.insertOrDecrease(y, key);
+    }
+
+    // the path to w found by a one-directional search
+    private LatencyPath path(int v, int w, double latency) {
+        if (latency == Double.POSITIVE_INFINITY) return new LatencyPath(G, v, w, null, latency);
+        int count = 0;
+        for (int x = w; x != v; x = G.other(forward.via[x], x)) count++;
+        int[] ids = new int[count];
+        for (int x = w; x != v; x = G.other(forward.via[x], x)) ids[--count] = forward.via[x];
+        return new LatencyPath(G, v, w, ids, latency);
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V())
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (G.V()-1));
+    }
+}
@@ -0,0 +1,104 @@
+//PrimMST.java
+
+
+/******************************************************************************
+ *  Compilation:  javac PrimMST.java
+ *  Execution:    java NetworkBenchmark mst V E
+ *
+ *  Compute a minimum spanning forest using the eager version of Prim's
+ *  algorithm with an indexed priority queue.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/**
+ *  The {@code PrimMST} class computes a minimum spanning tree (or forest) of
+ *  a {@link CSRGraph} using the eager version of Prim's algorithm. It grows
+ *  the tree one vertex at a time, keeping every vertex not yet in the tree on
+ *  an {@link IndexMinPQ} keyed by the latency of its cheapest edge to the
+ *  tree, and lowering that key when a cheaper edge turns up.
+ *  <p>
+ *  The queue never holds more than <em>V</em> entries, so the algorithm
+ *  takes time proportional to <em>E</em> log <em>V</em> and extra space
+ *  proportional to <em>V</em>, which makes it a good fit for dense graphs.
+ */
+public class PrimMST implements SpanningTree {
+    private final CSRGraph G;
+    private final int[] edgeTo;         // edgeTo[v] = id of cheapest edge from tree vertex to non-tree vertex, or -1
+    private final double[] distTo;      // distTo[v] = latency of that edge
+    private final boolean[] marked;     // marked[v] = true if v on tree, false otherwise
+    private final IndexMinPQ pq;
+    private double weight;
+
+    /**
+     * Compute a minimum spanning tree (or forest) of an edge-weighted graph.
+     *
+     * @param  G the edge-weighted graph
+     */
+    public PrimMST(CSRGraph G) {
+        this.G = G;
+        int V = G.V();
+        edgeTo = new int[V];
+        distTo = new double[V];
+        marked = new boolean[V];
+        pq = new IndexMinPQ(V);
+        Arrays.fill(edgeTo, -1);
+        Arrays.fill(distTo, Double.POSITIVE_INFINITY);
+
+        for (int v = 0; v < V; v++)      // run from each vertex to find
+            if (!marked[v]) prim(v);     // minimum spanning forest
+    }
+
+    // run Prim's algorithm in graph G, starting from vertex s
+    private void prim(int s) {
+        distTo[s] = 0.0;
+        pq.insert(s, distTo[s]);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            marked[v] = true;
+            if (edgeTo[v] != -1) weight += G.latency(edgeTo[v]);
+            for (int k = G.begin(v); k < G.end(v); k++) {
+                int w = G.neighbor(k);
+                if (marked[w]) continue;         // v-w is obsolete edge
+                if (G.slotLatency(k) < distTo[w]) {
+                    distTo[w] = G.slotLatency(k);
+                    edgeTo[w] = G.edgeAt(k);
+                    pq.insertOrDecrease(w, distTo[w]);
+                }
+            }
+        }
+    }
+
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the ids of the edges in a minimum spanning tree (or forest),
+     * in order of the vertex each edge connects to the tree.
+     *
+     * @return the edge ids of a minimum spanning tree (or forest)
+     */
+    public int[] edges() {
+        int count = 0;
+        for (int v = 0; v < edgeTo.length; v++) {
+            if (edgeTo[v] != -1) count++;
+        }
+        int[] mst = new int[count];
+        count = 0;
+        for (int v = 0; v < edgeTo.length; v++) {
+            if (edgeTo[v] != -1) mst[count++] = edgeTo[v];
+        }
+        return mst;
+    }
+
+    /**
+     * Returns the sum of the edge latencies in a minimum spanning tree (or forest).
+     *
+     * @return the sum of the edge latencies in a minimum spanning tree (or forest)
+     */
+    public double weight() {
+        return weight;
+    }
+}
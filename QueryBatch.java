@@ -0,0 +1,393 @@
+//QueryBatch.java
+
+
+/******************************************************************************
+ *  Compilation:  javac QueryBatch.java
+ *  Execution:    java NetworkAnalysis network_data2.txt -batch queries.txt [-out results.jsonl]
+ *
+ *  Runs a file of analysis queries against one loaded network and writes one
+ *  JSON object per query, with its running time.
+ *
+ *  % cat queries.txt
+ *  path 0 8
+ *  copper
+ *  mst prim
+ *  survivability
+ *
+ *  % java NetworkAnalysis network_data2.txt -batch queries.txt
+ *  {"query":1,"command":"path 0 8","micros":7329.9,"reachable":true,"latency":4.782608695652174E-7,"bandwidth":100,"vertices":[0,2,5,8]}
+ *  {"query":2,"command":"copper","micros":141.4,"copperOnly":false}
+ *  {"query":3,"command":"mst prim","micros":2542.2,"algorithm":"prim","edges":8,"weight":1.3934782608695653E-6,"averageLatency":1.7418478260869566E-7}
+ *  {"query":4,"command":"survivability","micros":1720.1,"survives":false,"connected":true,"articulationPoints":[],"separationPairs":[[0,5],[1,6],[5,6],[5,7]]}
+ *  4 queries in 11.7 ms: mean 2933.4 us, median 1720.1 us, p99 7329.9 us, max 7329.9 us
+ *
+ ******************************************************************************/
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *  The {@code QueryBatch} class answers analysis queries, one per line, on an
+ *  {@link EdgeWeightedGraph} without any interaction, for scripts and for
+ *  replaying query logs. The queries are
+ *  <ul>
+ *  <li>{@code path v w [constraints]}, the lowest latency path from
+ *      <em>v</em> to <em>w</em>;
+ *  <li>{@code widest v w [constraints]}, the path from <em>v</em> to
+ *      <em>w</em> with the highest bottleneck bandwidth, of those the lowest
+ *      latency one;
+ *  <li>{@code bottleneck v w}, just that bandwidth, from the graph's
+ *      {@link MaxBandwidthTree};
+ *  <li>{@code paths v w K}, the <em>K</em> lowest latency loopless paths
+ *      from <em>v</em> to <em>w</em>, from {@link KShortestPaths};
+ *  <li>{@code copper}, whether the network is copper only connected;
+ *  <li>{@code mst [algorithm]}, the lowest latency spanning tree, computed
+ *      with {@code kruskal}, {@code prim} or {@code boruvka}, or without an
+ *      algorithm the tree the graph keeps up to date, if
+ *      {@link EdgeWeightedGraph#maintainSpanningTree} was called;
+ *  <li>{@code survivability}, whether the network survives the failure of
+ *      any two vertices, and if not, the articulation points and separation
+ *      pairs.
+ *  </ul>
+ *  The constraints of a path are any of {@code bandwidth b}, to use only
+ *  links carrying at least <em>b</em>, {@code copper} or {@code optical}, to
+ *  use only that type of cable, and {@code avoid u ...}, to stay away from
+ *  the vertices listed to the end of the line; for example
+ *  {@code path 0 8 bandwidth 1000 avoid 5}. They become an
+ *  {@link EdgeFilter}, which consecutive queries with the same constraints
+ *  share. Blank lines and lines starting with {@code #} are skipped.
+ *  <p>
+ *  Each answer is one line of JSON holding the query number, the query, its
+ *  running time in microseconds and its result, or an {@code "error"} member
+ *  if the query is not valid. Paths come from a {@link ShortestPathCache},
+ *  so queries from the same source share one Dijkstra run, and the
+ *  whole-network answers are computed once per
+ *  {@link EdgeWeightedGraph#version() version} of the graph. Every query
+ *  runs on the graph's latest {@link EdgeWeightedGraph#snapshot() snapshot},
+ *  so a batch can run while another thread changes the graph. The running
+ *  times are also kept, for the summary returned by {@link #summary}, unless
+ *  the batch serves a {@link QueryServer} connection, which keeps its own.
+ */
+public class QueryBatch {
+    private final EdgeWeightedGraph G;
+    private final ShortestPathCache paths;
+    private final String mstAlgorithm;
+    private final Map<String, String> answers;  // whole-network results
+    private long version;           // newest version of G this batch has evicted older answers for
+    private String constraints;     // the constraints of the last filtered path query
+    private EdgeFilter filter;      // and their filter
+    private int count;
+    private long[] nanos;           // running time of every query, or null if not kept
+
+    /**
+     * Initializes a batch of queries against {@code G}.
+     *
+     * @param  G the graph
+     * @param  paths the shortest-path cache of {@code G}
+     * @param  mstAlgorithm the spanning tree algorithm of an {@code mst} query that names none
+     */
+    public QueryBatch(EdgeWeightedGraph G, ShortestPathCache paths, String mstAlgorithm) {
+        this(G, paths, mstAlgorithm, new HashMap<String, String>(), true);
+    }
+
+    /**
+     * Initializes a batch of queries that shares its whole-network answers
+     * with other batches through {@code answers}, which must be safe for
+     * concurrent use if the batches run concurrently. A batch that runs for
+     * as long as a server connection need not keep the running time of every
+     * query, which would take memory proportional to the number of queries.
+     *
+     * @param  G the graph
+     * @param  paths the shortest-path cache of {@code G}
+     * @param  mstAlgorithm the spanning tree algorithm of an {@code mst} query that names none
+     * @param  answers the cache of whole-network answers, keyed by query
+     * @param  keepTimes whether to keep the running times for {@link #summary}
+     */
+    QueryBatch(EdgeWeightedGraph G, ShortestPathCache paths, String mstAlgorithm, Map<String, String> answers,
+               boolean keepTimes) {
+        this.G = G;
+        this.paths = paths;
+        this.mstAlgorithm = mstAlgorithm;
+        this.answers = answers;
+        if (keepTimes) nanos = new long[16];
+    }
+
+    /**
+     * Answers every query read from {@code queries}, writing one line per
+     * query to {@code out} as soon as it is answered.
+     *
+     * @param  queries the queries, one per line
+     * @param  out the destination of the answers
+     * @param  changes a change log to apply before each query, or {@code null}
+     * @throws IOException if the queries cannot be read or the answers written
+     */
+    public void run(BufferedReader queries, Writer out, ChangeLogTailer changes) throws IOException {
+        for (String line = queries.readLine(); line != null; line = queries.readLine()) {
+            if (changes != null) changes.poll();
+            String answer = execute(line);
+            if (answer == null) continue;
+            out.write(answer);
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Answers one query.
+     *
+     * @param  query the query
+     * @return the answer as one line of JSON, or {@code null} for a blank line or comment
+     */
+    public String execute(String query) {
+        query = query.trim();
+        if (query.isEmpty() || query.startsWith("#")) return null;
+        long start = System.nanoTime();
+        StringBuilder result = new StringBuilder();
+        try {
+            answer(query.split("\\s+"), result);
+        }
+        catch (RuntimeException e) {
+            result.setLength(0);
+            result.append(",\"error\":");
+            quote(e.getMessage() == null ? e.toString() : e.getMessage(), result);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (nanos != null) {
+            if (count == nanos.length) nanos = Arrays.copyOf(nanos, 2 * count);
+            nanos[count] = elapsed;
+        }
+        count++;
+
+        StringBuilder line = new StringBuilder(64 + result.length());
+        line.append("{\"query\":").append(count).append(",\"command\":");
+        quote(query, line);
+        line.append(",\"micros\":").append(Math.round(elapsed / 100.0) / 10.0);
+        line.append(result).append('}');
+        return line.toString();
+    }
+
+    // appends the members of the result of one query
+    private void answer(String[] field, StringBuilder out) {
+        switch (field[0]) {
+            case "path":
+            case "widest":
+            case "bottleneck":
+                if (field.length < 3 || (field.length > 3 && field[0].equals("bottleneck")))
+                    throw new IllegalArgumentException("usage: " + field[0] + " v w"
+                                                       + (field[0].equals("bottleneck") ? "" : " [constraints]"));
+                int v = Integer.parseInt(field[1]);
+                int w = Integer.parseInt(field[2]);
+                EdgeFilter filter = field.length > 3 ? filter(field) : null;
+                if (field[0].equals("bottleneck")) bottleneck(v, w, out);
+                else if (field[0].equals("widest")) path(filter == null ? G.widestPath(v, w) : G.widestPath(v, w, filter), out);
+                else path(filter == null ? paths.tree(v).path(w) : G.lowestLatencyPath(v, w, filter), out);
+                return;
+            case "paths":
+                if (field.length != 4) throw new IllegalArgumentException("usage: paths v w K");
+                // the cached tree from w serves as the tree towards w, the graph being undirected
+                KShortestPaths ranked = new KShortestPaths(paths.tree(Integer.parseInt(field[2])),
+                                                           Integer.parseInt(field[1]), Integer.parseInt(field[3]),
+                                                           ForkJoinPool.commonPool());
+                out.append(",\"paths\":[");
+                for (int i = 0; i < ranked.size(); i++) {
+                    if (i > 0) out.append(',');
+                    StringBuilder members = new StringBuilder();
+                    route(ranked.path(i), members);
+                    out.append('{').append(members, 1, members.length()).append('}');
+                }
+                out.append(']');
+                return;
+            case "copper":
+            case "mst":
+            case "survivability":
+                if (field.length > (field[0].equals("mst") ? 2 : 1))
+                    throw new IllegalArgumentException("too many arguments to " + field[0]);
+                if (field[0].equals("mst") && field.length == 1 && G.spanningTree() != null) {
+                    // kept up to date with every change, so read rather than recomputed or cached
+                    maintainedMst(out);
+                    return;
+                }
+                // the answers are keyed by the version they were computed on, which may
+                // lag behind the graph while it is being changed; only answers for the
+                // graph's own version are kept, so a lagging batch cannot leave stale ones
+                CSRGraph csr = G.snapshot();
+                long newest = G.version();
+                if (newest > version) {
+                    String current = newest + " ";
+                    answers.keySet().removeIf(k -> !k.startsWith(current));
+                    version = newest;
+                }
+                String key = csr.version() + " " + String.join(" ", field);
+                String answer = csr.version() == newest ? answers.computeIfAbsent(key, k -> wholeNetwork(csr, field))
+                                                        : wholeNetwork(csr, field);
+                // the graph may have changed, and the others evicted, while this was computed
+                if (G.version() != csr.version()) answers.remove(key);
+                out.append(answer);
+                return;
+            default:
+                throw new IllegalArgumentException("unknown query " + field[0]);
+        }
+    }
+
+    // the members of the answer to a copper, mst or survivability query on csr
+    private String wholeNetwork(CSRGraph csr, String[] field) {
+        StringBuilder members = new StringBuilder();
+        if (field[0].equals("copper")) copper(csr, members);
+        else if (field[0].equals("mst")) mst(csr, field.length > 1 ? field[1] : mstAlgorithm, members);
+        else survivability(csr, members);
+        return members.toString();
+    }
+
+    // the filter of the constraints after "v w", reused while they and the snapshot stay the same
+    private EdgeFilter filter(String[] field) {
+        String[] rest = Arrays.copyOfRange(field, 3, field.length);
+        String key = String.join(" ", rest);
+        CSRGraph csr = G.snapshot();
+        if (filter != null && filter.graph() == csr && key.equals(constraints)) return filter;
+
+        EdgeFilter f = new EdgeFilter(csr);
+        for (int i = 0; i < rest.length; i++) {
+            switch (rest[i]) {
+                case "bandwidth":
+                    if (i + 1 == rest.length) throw new IllegalArgumentException("bandwidth needs a value");
+                    f = f.minBandwidth(Integer.parseInt(rest[++i]));
+                    break;
+                case "copper":
+                    f = f.copperOnly();
+                    break;
+                case "optical":
+                    f = f.opticalOnly();
+                    break;
+                case "avoid":
+                    int[] excluded = new int[rest.length - i - 1];
+                    for (int k = 0; k < excluded.length; k++) excluded[k] = Integer.parseInt(rest[i + 1 + k]);
+                    f = f.excluding(excluded);
+                    i = rest.length;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown constraint " + rest[i]);
+            }
+        }
+        constraints = key;
+        filter = f;
+        return f;
+    }
+
+    private void path(LatencyPath path, StringBuilder out) {
+        if (!path.hasPath()) {
+            out.append(",\"reachable\":false");
+            return;
+        }
+        out.append(",\"reachable\":true");
+        route(path, out);
+    }
+
+    // the latency, bandwidth and vertices of a path that exists
+    private void route(LatencyPath path, StringBuilder out) {
+        out.append(",\"latency\":").append(path.latency());
+        out.append(",\"bandwidth\":").append(path.bandwidth());
+        out.append(",\"vertices\":[");
+        int[] vertices = path.vertices();
+        for (int i = 0; i < vertices.length; i++) {
+            if (i > 0) out.append(',');
+            out.append(vertices[i]);
+        }
+        out.append(']');
+    }
+
+    private void bottleneck(int v, int w, StringBuilder out) {
+        MaxBandwidthTree index = G.maxBandwidthTree();
+        out.append(",\"reachable\":").append(index.connected(v, w));
+        out.append(",\"bandwidth\":").append(index.bandwidth(v, w));
+    }
+
+    private void copper(CSRGraph csr, StringBuilder out) {
+        out.append(",\"copperOnly\":").append(csr.copperOnly());
+    }
+
+    private void mst(CSRGraph csr, String algorithm, StringBuilder out) {
+        SpanningTree tree = SpanningTree.of(csr, algorithm);
+        out.append(",\"algorithm\":");
+        quote(algorithm, out);
+        out.append(",\"edges\":").append(tree.edges().length);
+        out.append(",\"weight\":").append(tree.weight());
+        out.append(",\"averageLatency\":").append(number(tree.averageLatency()));
+    }
+
+    private void maintainedMst(StringBuilder out) {
+        LatencySpanningTree tree = G.lowestLatencySpanningTree();
+        out.append(",\"algorithm\":\"maintained\"");
+        out.append(",\"edges\":").append(tree.edges().size());
+        out.append(",\"weight\":").append(tree.weight());
+        out.append(",\"averageLatency\":").append(number(tree.averageLatency()));
+    }
+
+    private void survivability(CSRGraph csr, StringBuilder out) {
+        Survivability survivability = new Survivability(csr);
+        boolean survives = survivability.survivesTwoFailures();
+        out.append(",\"survives\":").append(survives);
+        out.append(",\"connected\":").append(survivability.isConnected());
+        if (survives || !survivability.isConnected()) return;
+        out.append(",\"articulationPoints\":[");
+        int[] articulation = survivability.articulationPoints();
+        for (int i = 0; i < articulation.length; i++) {
+            if (i > 0) out.append(',');
+            out.append(articulation[i]);
+        }
+        out.append("],\"separationPairs\":[");
+        List<int[]> pairs = survivability.separationPairs();
+        for (int i = 0; i < pairs.size(); i++) {
+            if (i > 0) out.append(',');
+            out.append('[').append(pairs.get(i)[0]).append(',').append(pairs.get(i)[1]).append(']');
+        }
+        out.append(']');
+    }
+
+    // JSON has no infinities or NaN
+    private static String number(double x) {
+        return Double.isNaN(x) || Double.isInfinite(x) ? "null" : Double.toString(x);
+    }
+
+    private static void quote(String s, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+            else out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Returns the number of queries answered so far.
+     *
+     * @return the number of queries answered
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns a one-line summary of the running times of the queries answered so far.
+     *
+     * @return the number of queries with their total, mean, median, 99th percentile
+     *         and maximum running times; only the number if the times are not kept
+     */
+    public String summary() {
+        if (count == 0 || nanos == null) return count + " queries";
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long t : sorted) total += t;
+        return String.format("%d queries in %.1f ms: mean %.1f us, median %.1f us, p99 %.1f us, max %.1f us",
+                             count, total / 1e6, total / 1e3 / count, sorted[(count - 1) / 2] / 1e3,
+                             sorted[(int) Math.ceil(0.99 * count) - 1] / 1e3, sorted[count - 1] / 1e3);
+    }
+}
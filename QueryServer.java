@@ -0,0 +1,286 @@
+//QueryServer.java
+
+
+/******************************************************************************
+ *  Compilation:  javac QueryServer.java
+ *  Execution:    java QueryServer network.txt [port | socket-path] [algorithm] [changes.log]
+ *
+ *  Keeps one network loaded and answers analysis queries from any number of
+ *  clients over a local TCP or Unix domain socket.
+ *
+ *  % java QueryServer network_data2.txt 7411
+ *  serving 9 vertices and 13 edges on /127.0.0.1:7411
+ *
+ *  % printf 'path 0 8\nstats\n' | nc 127.0.0.1 7411
+ *  {"query":1,"command":"path 0 8","micros":4825.5,"reachable":true,"latency":4.782608695652174E-7,"bandwidth":100,"vertices":[0,2,5,8]}
+ *  {"stats":{"queries":1,"clients":1,"p50":4908.1,"p90":4908.1,"p99":4908.1,"p999":4908.1,"max":4908.1}}
+ *
+ ******************************************************************************/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  The {@code QueryServer} class serves the queries of {@link QueryBatch}
+ *  over a socket, so that tools can share one loaded network instead of
+ *  each paying the cost of reading it. It listens on a loopback TCP port or
+ *  on a Unix domain socket; a client writes queries one per line and reads
+ *  one line of JSON per query, in the same order. Two more commands are
+ *  understood: {@code stats} answers with the latency percentiles, in
+ *  microseconds, of the most recent queries of all clients, and
+ *  {@code quit} closes the connection.
+ *  <p>
+ *  Every query runs on the network's latest immutable
+ *  {@link EdgeWeightedGraph#snapshot() snapshot}, so the analyses are
+ *  read-only and clients never wait for each other, or for a writer
+ *  changing the network at the same time; a client moves to a new version
+ *  of the network with its first query after it is published. Each client
+ *  is handled by its own thread: a
+ *  virtual thread on Java 21 and later, a pooled platform thread before.
+ *  Each client has a small {@link ShortestPathCache} of its own, while the
+ *  whole-network answers ({@code copper}, {@code mst}, {@code survivability})
+ *  are computed once and shared by all clients.
+ *  <p>
+ *  A client may pipeline its queries, writing many before reading any
+ *  answers. All the queries that have arrived together are answered as one
+ *  batch, with a single write of their answers, so a pipelining client pays
+ *  for one system call per batch rather than per query.
+ */
+public class QueryServer implements Closeable {
+    private static final int DEFAULT_PORT = 7411;
+    private static final int CLIENT_PATH_CACHE_SIZE = 4;
+    private static final int BUFFER_CHARS = 1 << 16;
+    private static final int LATENCY_WINDOW = 1 << 16;     // queries the percentiles are taken over
+
+    private final EdgeWeightedGraph G;
+    private final String mstAlgorithm;
+    private final Map<String, String> answers = new ConcurrentHashMap<String, String>();
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final ExecutorService clients = newClientExecutor();
+    private final AtomicInteger connected = new AtomicInteger();
+
+    // running times of the most recent queries, in a ring
+    private final long[] latency = new long[LATENCY_WINDOW];
+    private long queries;
+
+    /**
+     * Opens a server for {@code G}, bound to {@code address}.
+     * Call {@link #serve} to start accepting clients.
+     *
+     * @param  G the graph, which another thread may keep changing
+     * @param  mstAlgorithm the spanning tree algorithm of an {@code mst} query that names none
+     * @param  address a loopback {@link InetSocketAddress} or a {@link UnixDomainSocketAddress}
+     * @throws IOException if the socket cannot be bound
+     */
+    public QueryServer(EdgeWeightedGraph G, String mstAlgorithm, SocketAddress address) throws IOException {
+        this.G = G;
+        G.snapshot();
+        this.mstAlgorithm = mstAlgorithm;
+        if (address instanceof UnixDomainSocketAddress) {
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+        else server = ServerSocketChannel.open();
+        server.bind(address);
+        this.address = server.getLocalAddress();
+    }
+
+    // a virtual thread per client where the runtime has them, otherwise a cached pool
+    private static ExecutorService newClientExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "query-client");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Returns the address the server is bound to, with the actual port if it
+     * was opened on port 0.
+     *
+     * @return the address of the server
+     */
+    public SocketAddress address() {
+        return address;
+    }
+
+    /**
+     * Accepts clients until the server is closed, handing each to its own thread.
+     *
+     * @throws IOException if a connection cannot be accepted
+     */
+    public void serve() throws IOException {
+        while (true) {
+            SocketChannel client;
+            try {
+                client = server.accept();
+            }
+            catch (ClosedChannelException e) {
+                return;
+            }
+            clients.execute(() -> handle(client));
+        }
+    }
+
+    // answers the queries of one client until it quits or disconnects
+    private void handle(SocketChannel client) {
+        connected.incrementAndGet();
+        ShortestPathCache paths = new ShortestPathCache(G, CLIENT_PATH_CACHE_SIZE);
+        QueryBatch batch = new QueryBatch(G, paths, mstAlgorithm, answers, false);
+        try (SocketChannel channel = client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8), BUFFER_CHARS);
+             Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), BUFFER_CHARS)) {
+            // the answers are written in whole batches, so there is nothing to gain from Nagle's algorithm
+            if (!(address instanceof UnixDomainSocketAddress)) channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                // answer everything already received before writing anything back
+                do {
+                    String query = line.trim();
+                    if (query.equals("quit")) return;
+                    String answer;
+                    if (query.equals("stats")) answer = stats();
+                    else {
+                        long start = System.nanoTime();
+                        answer = batch.execute(query);
+                        if (answer != null) record(System.nanoTime() - start);
+                    }
+                    if (answer == null) continue;
+                    out.write(answer);
+                    out.write('\n');
+                } while (in.ready() && (line = in.readLine()) != null);
+                out.flush();
+            }
+        }
+        catch (IOException e) {
+            // the client went away; nothing to answer
+        }
+        finally {
+            connected.decrementAndGet();
+        }
+    }
+
+    private synchronized void record(long nanos) {
+        latency[(int) (queries++ % LATENCY_WINDOW)] = nanos;
+    }
+
+    /**
+     * Returns the latency percentiles of the most recent queries, up to
+     * 65536 of them, as one line of JSON.
+     *
+     * @return the number of queries answered, the number of clients
+     *         connected, and the 50th, 90th, 99th and 99.9th percentiles and
+     *         maximum of the query latency in microseconds
+     */
+    public String stats() {
+        long[] sorted;
+        long count;
+        synchronized (this) {
+            count = queries;
+            sorted = Arrays.copyOf(latency, (int) Math.min(count, LATENCY_WINDOW));
+        }
+        Arrays.sort(sorted);
+        StringBuilder s = new StringBuilder("{\"stats\":{\"queries\":").append(count);
+        s.append(",\"clients\":").append(connected.get());
+        if (sorted.length > 0) {
+            s.append(",\"p50\":").append(percentile(sorted, 0.50));
+            s.append(",\"p90\":").append(percentile(sorted, 0.90));
+            s.append(",\"p99\":").append(percentile(sorted, 0.99));
+            s.append(",\"p999\":").append(percentile(sorted, 0.999));
+            s.append(",\"max\":").append(percentile(sorted, 1.0));
+        }
+        return s.append("}}").toString();
+    }
+
+    // the p-th quantile of sorted nanoseconds, in microseconds to one decimal
+    private static double percentile(long[] sorted, double p) {
+        int i = Math.max(0, (int) Math.ceil(p * sorted.length) - 1);
+        return Math.round(sorted[i] / 100.0) / 10.0;
+    }
+
+    /**
+     * Stops accepting clients and disconnects the connected ones.
+     *
+     * @throws IOException if the socket cannot be closed
+     */
+    public void close() throws IOException {
+        server.close();
+        clients.shutdownNow();
+        if (address instanceof UnixDomainSocketAddress)
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+    }
+
+    /**
+     * Reads the network in the file named by the first argument and serves
+     * it on the loopback port, or the Unix domain socket path, given by the
+     * second (port 7411 if omitted), computing spanning trees with the
+     * algorithm given by the third. If a fourth argument is given, the
+     * change log it names is followed while serving. Runs until killed.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the network or change log cannot be read or the socket bound
+     */
+    public static void main(String[] args) throws IOException {
+        NetworkAnalysis.readGraphFile(args[0]);
+        EdgeWeightedGraph G = NetworkAnalysis.graph;
+        String where = args.length > 1 ? args[1] : String.valueOf(DEFAULT_PORT);
+        String algorithm = args.length > 2 ? args[2] : NetworkAnalysis.mstAlgorithm;
+        SocketAddress address = where.matches("\\d+")
+                                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(where))
+                                : UnixDomainSocketAddress.of(Paths.get(where));
+        try (QueryServer server = new QueryServer(G, algorithm, address)) {
+            System.out.println("serving " + G.V() + " vertices and " + G.E() + " edges on " + server.address());
+            if (args.length > 3) {
+                G.maintainSpanningTree();
+                follow(new ChangeLogTailer(G, Paths.get(args[3])));
+            }
+            server.serve();
+        }
+    }
+
+    // applies the change log every 200 ms on a thread of its own, the graph's single writer
+    private static void follow(ChangeLogTailer tailer) {
+        Thread writer = new Thread(() -> {
+            try (ChangeLogTailer log = tailer) {
+                while (true) {
+                    if (log.poll() > 0) System.out.println("version " + log.version());
+                    Thread.sleep(200);
+                }
+            }
+            catch (IOException | InterruptedException e) {
+                System.out.println("stopped following the change log: " + e);
+            }
+        }, "change-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+}
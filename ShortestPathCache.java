@@ -0,0 +1,111 @@
+//ShortestPathCache.java
+
+
+/******************************************************************************
+ *  Compilation:  javac ShortestPathCache.java
+ *  Execution:    none
+ *
+ *  Size-bounded LRU cache of shortest-path trees, invalidated whenever the
+ *  graph changes.
+ *
+ ******************************************************************************/
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *  The {@code ShortestPathCache} class sits in front of the shortest-path
+ *  computation of an {@link EdgeWeightedGraph}. It keeps the
+ *  {@link ShortestPathTree} of the most recently used source vertices, so a
+ *  repeated query from a hot source costs time proportional to the length of
+ *  the path instead of a new run of Dijkstra's algorithm.
+ *  <p>
+ *  At most {@code capacity} trees are kept; asking for a tree that is not
+ *  cached evicts the least recently used one. The trees are computed on the
+ *  graph's {@link EdgeWeightedGraph#snapshot() snapshot}, and the whole cache
+ *  is dropped as soon as a newer snapshot is published, so a stale tree is
+ *  never returned after a change to the topology has been published.
+ *  <p>
+ *  A cache is not safe for concurrent use; give each reading thread its own.
+ */
+public class ShortestPathCache {
+    private final EdgeWeightedGraph G;
+    private final int capacity;
+    private final LinkedHashMap<Integer, ShortestPathTree> trees;
+    private CSRGraph snapshot;      // snapshot of G the cached trees were computed on
+    private long hits;
+    private long misses;
+
+    /**
+     * Initializes an empty cache for {@code G} holding at most {@code capacity} trees.
+     *
+     * @param  G the graph
+     * @param  capacity the maximum number of cached trees
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public ShortestPathCache(EdgeWeightedGraph G, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive");
+        this.G = G;
+        this.capacity = capacity;
+        this.snapshot = G.snapshot();
+        // access-ordered, so the eldest entry is the least recently used
+        this.trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+                return size() > ShortestPathCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the shortest-path tree rooted at {@code s} for the latest
+     * snapshot of the graph, computing it if it is not cached.
+     *
+     * @param  s the source vertex
+     * @return the shortest-path tree rooted at {@code s}
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public ShortestPathTree tree(int s) {
+        CSRGraph current = G.snapshot();
+        if (current != snapshot) {
+            trees.clear();
+            snapshot = current;
+        }
+        ShortestPathTree tree = trees.get(s);
+        if (tree != null) {
+            hits++;
+            return tree;
+        }
+        misses++;
+        tree = new ShortestPathTree(current, s);
+        trees.put(s, tree);
+        return tree;
+    }
+
+    /**
+     * Returns the number of trees currently cached.
+     *
+     * @return the number of cached trees
+     */
+    public int size() {
+        return trees.size();
+    }
+
+    /**
+     * Returns the number of calls to {@link #tree} answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of calls to {@link #tree} that computed a new tree.
+     *
+     * @return the number of cache misses
+     */
+    public long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,258 @@
+//ShortestPathTree.java
+
+
+/******************************************************************************
+ *  Compilation:  javac ShortestPathTree.java
+ *  Execution:    java ShortestPathTree network_data2.txt s
+ *                java ShortestPathTree
+ *
+ *  % java ShortestPathTree
+ *  negative link: [-2.173913043478261E-8, -2.173913043478261E-8, -2.173913043478261E-8, -2.173913043478261E-8] as expected
+ *
+ *  Dijkstra's algorithm. Computes the lowest latency path from a source
+ *  router to every other router, and the bandwidth along each path.
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/**
+ *  The {@code ShortestPathTree} class represents the tree of lowest latency
+ *  paths from a source vertex <em>s</em> to every other vertex of a
+ *  {@link CSRGraph}. It is computed by one run of Dijkstra's algorithm with an
+ *  {@link IndexMinPQ}, which takes time proportional to
+ *  <em>E</em> log <em>V</em>, and can then answer any number of queries:
+ *  the latency to a vertex and the bandwidth of the path to it take constant
+ *  time, and the path itself takes time proportional to its length.
+ *  <p>
+ *  The tree is stored in three vertex-indexed arrays: the distance (total
+ *  latency) from <em>s</em>, the id of the last edge on the path from
+ *  <em>s</em>, and the <em>bottleneck</em> bandwidth of that path, the
+ *  smallest bandwidth of any of its edges.
+ */
+public class ShortestPathTree {
+    private final CSRGraph G;
+    private final int s;
+    private final double[] distTo;      // distTo[v] = latency of shortest s->v path
+    private final int[] edgeTo;         // edgeTo[v] = id of last edge on shortest s->v path, or -1
+    private final int[] bottleneck;     // bottleneck[v] = smallest bandwidth on that path
+
+    /**
+     * Computes the lowest latency path from {@code s} to every other vertex of {@code G}.
+     *
+     * @param  G the graph
+     * @param  s the source vertex
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public ShortestPathTree(CSRGraph G, int s) {
+        this(G, s, new IndexMinPQ(G.V()));
+    }
+
+    // reuses the given (empty) priority queue, so repeated runs allocate only the result arrays
+    ShortestPathTree(CSRGraph G, int s, IndexMinPQ pq) {
+        int V = G.V();
+        if (s < 0 || s >= V)
+            throw new IllegalArgumentException("vertex " + s + " is not between 0 and " + (V-1));
+        this.G = G;
+        this.s = s;
+        distTo = new double[V];
+        edgeTo = new int[V];
+        bottleneck = new int[V];
+        boolean[] settled = new boolean[V];     // never reached again, so a negative link cannot loop
+        Arrays.fill(distTo, Double.POSITIVE_INFINITY);
+        Arrays.fill(edgeTo, -1);
+
+        distTo[s] = 0;
+        bottleneck[s] = Integer.MAX_VALUE;
+        pq.insert(s, 0);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            settled[v] = true;
+            for (int k = G.begin(v); k < G.end(v); k++) {
+                int w = G.neighbor(k);
+                if (settled[w]) continue;
+                double d = distTo[v] + G.slotLatency(k);
+                if (d < distTo[w]) {
+                    int e = G.edgeAt(k);
+                    distTo[w] = d;
+                    edgeTo[w] = e;
+                    bottleneck[w] = Math.min(bottleneck[v], G.bandwidth(e));
+                    pq.insertOrDecrease(w, d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the graph this tree was computed on.
+     *
+     * @return the graph
+     */
+    public CSRGraph graph() {
+        return G;
+    }
+
+    /**
+     * Returns the source vertex.
+     *
+     * @return the source vertex
+     */
+    public int source() {
+        return s;
+    }
+
+    /**
+     * Returns the latency of a lowest latency path from the source to {@code v}.
+     *
+     * @param  v the destination vertex
+     * @return the latency of a lowest latency path from the source to {@code v};
+     *         {@code Double.POSITIVE_INFINITY} if there is no such path
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public double distTo(int v) {
+        validateVertex(v);
+        return distTo[v];
+    }
+
+    /**
+     * Returns true if there is a path from the source to {@code v}.
+     *
+     * @param  v the destination vertex
+     * @return {@code true} if there is a path from the source to {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public boolean hasPathTo(int v) {
+        validateVertex(v);
+        return distTo[v] < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the id of the last edge on the path from the source to {@code v}.
+     *
+     * @param  v the destination vertex
+     * @return the id of the last edge on the path, or -1 for the source or an unreachable vertex
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int edgeTo(int v) {
+        validateVertex(v);
+        return edgeTo[v];
+    }
+
+    /**
+     * Returns the smallest bandwidth of any edge on the path from the source to {@code v}.
+     *
+     * @param  v the destination vertex
+     * @return the bottleneck bandwidth of the path; {@code Integer.MAX_VALUE}
+     *         for the source, and 0 if there is no path
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int bottleneck(int v) {
+        validateVertex(v);
+        return bottleneck[v];
+    }
+
+    /**
+     * Returns the ids of the edges on a lowest latency path from the source to {@code v}.
+     *
+     * @param  v the destination vertex
+     * @return the edge ids in order from the source to {@code v};
+     *         {@code null} if there is no such path
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int[] pathTo(int v) {
+        if (!hasPathTo(v)) return null;
+        int count = 0;
+        for (int x = v; x != s; x = G.other(edgeTo[x], x)) count++;
+        int[] path = new int[count];
+        for (int x = v; x != s; x = G.other(edgeTo[x], x)) path[--count] = edgeTo[x];
+        return path;
+    }
+
+    /**
+     * Returns the lowest latency path from the source to {@code v}, with its
+     * latency and bandwidth.
+     *
+     * @param  v the destination vertex
+     * @return the path from the source to {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public LatencyPath path(int v) {
+        return new LatencyPath(G, s, v, pathTo(v), distTo(v));
+    }
+
+    /**
+     * Returns a copy of the distances from the source to every vertex.
+     *
+     * @return a vertex-indexed array of latencies
+     */
+    public double[] distances() {
+        return distTo.clone();
+    }
+
+    // the distance array itself, for callers that take ownership of it
+    double[] distanceArray() {
+        return distTo;
+    }
+
+    // the edge array itself, read by searches that walk the tree
+    int[] edgeArray() {
+        return edgeTo;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = distTo.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Reads a network from the file named by the first argument and prints the
+     * lowest latency path from the source given by the second argument to every
+     * other vertex. Without arguments, checks that the searches finish on a
+     * network with a link of negative length, and exits with status 1 if
+     * they do not agree on its latency.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            negativeLink();
+            return;
+        }
+        NetworkAnalysis.readGraphFile(args[0]);
+        CSRGraph G = NetworkAnalysis.graph.toCSR();
+        ShortestPathTree tree = new ShortestPathTree(G, Integer.parseInt(args[1]));
+        for (int v = 0; v < G.V(); v++) {
+            if (!tree.hasPathTo(v)) {
+                System.out.println(tree.source() + " to " + v + ": no path");
+                continue;
+            }
+            StringBuilder line = new StringBuilder();
+            line.append(tree.source()).append(" to ").append(v).append(": ").append(tree.distTo(v))
+                .append(" (bandwidth ").append(tree.bottleneck(v)).append(")");
+            for (int e : tree.pathTo(v)) line.append("  ").append(G.edge(e));
+            System.out.println(line);
+        }
+    }
+
+    // the path 0-1-2 whose first link has a negative length, which once made the searches loop forever
+    private static void negativeLink() {
+        EdgeWeightedGraph network = new EdgeWeightedGraph(3);
+        network.addEdge(new Edge(0, 1, -10, "copper", 100));
+        network.addEdge(new Edge(1, 2, 5, "copper", 100));
+        CSRGraph G = network.toCSR();
+        PointToPointSearch search = new PointToPointSearch(new LandmarkIndex(G, 1));
+        double[] found = {
+            G.lowestLatencyPath(0, 2).latency(),
+            new ShortestPathTree(G, 0).distTo(2),
+            search.dijkstra(0, 2).latency(),
+            search.alt(0, 2).latency()
+        };
+        double expected = G.latency(0) + G.latency(1);
+        boolean same = true;
+        for (double latency : found) same = same && latency == expected;
+        System.out.println("negative link: " + Arrays.toString(found) + (same ? " as expected" : " EXPECTED " + expected));
+        if (!same) System.exit(1);
+    }
+}
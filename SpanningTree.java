@@ -0,0 +1,69 @@
+//SpanningTree.java
+
+
+/******************************************************************************
+ *  Compilation:  javac SpanningTree.java
+ *  Execution:    none
+ *
+ *  A minimum spanning tree (or forest) of a network, whatever algorithm
+ *  computed it.
+ *
+ ******************************************************************************/
+
+/**
+ *  The {@code SpanningTree} interface is the result of a minimum spanning
+ *  tree algorithm run on a {@link CSRGraph}: the ids of the tree edges and
+ *  their total latency. If the graph is not connected, it is a minimum
+ *  spanning forest. Implementations are interchangeable, so a client picks
+ *  one at runtime with {@link #of}.
+ */
+public interface SpanningTree {
+
+    /**
+     * Returns the graph this tree spans.
+     *
+     * @return the graph
+     */
+    CSRGraph graph();
+
+    /**
+     * Returns the ids of the edges in this minimum spanning tree (or forest).
+     *
+     * @return the edge ids of the tree
+     */
+    int[] edges();
+
+    /**
+     * Returns the sum of the latencies of the edges in this tree.
+     *
+     * @return the total latency of the tree
+     */
+    double weight();
+
+    /**
+     * Returns the latency of an edge of the tree averaged over the
+     * <em>V</em> – 1 edges of a spanning tree.
+     *
+     * @return the average latency of the tree
+     */
+    default double averageLatency() {
+        return weight() / (double) (graph().V() - 1);
+    }
+
+    /**
+     * Computes a minimum spanning tree of {@code G} with the named algorithm.
+     *
+     * @param  G the graph
+     * @param  algorithm {@code "kruskal"}, {@code "prim"} or {@code "boruvka"}
+     * @return a minimum spanning tree (or forest) of {@code G}
+     * @throws IllegalArgumentException if the algorithm is unknown
+     */
+    static SpanningTree of(CSRGraph G, String algorithm) {
+        switch (algorithm) {
+            case "kruskal": return new KruskalMST(G);
+            case "prim":    return new PrimMST(G);
+            case "boruvka": return new BoruvkaMST(G);
+            default: throw new IllegalArgumentException("Unknown spanning tree algorithm " + algorithm);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+//Survivability.java
+
+
+/******************************************************************************
+ *  Compilation:  javac Survivability.java
+ *  Execution:    java Survivability network_data1.txt
+ *
+ *  Determines whether a network stays connected after any two routers fail,
+ *  using depth-first search with low-link values.
+ *
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *  The {@code Survivability} class answers whether a network survives the
+ *  failure of any two of its vertices, that is, whether the vertices left
+ *  after removing any two of them are still connected. It also reports
+ *  what breaks the network:
+ *  <ul>
+ *  <li>the <em>articulation points</em>, single vertices whose failure
+ *      already disconnects the network, and
+ *  <li>the <em>separation pairs</em>, pairs of vertices {<em>u</em>, <em>w</em>},
+ *      neither of them an articulation point, whose joint failure
+ *      disconnects the network.
+ *  </ul>
+ *  <p>
+ *  The articulation points come from one iterative depth-first search with
+ *  low-link values (Hopcroft–Tarjan), which takes time proportional to
+ *  <em>E</em> + <em>V</em>. A connected network with an articulation point
+ *  (or a disconnected network) and at least four vertices cannot survive two
+ *  failures, so in the common failing case the answer is found in linear
+ *  time. Otherwise {@code w} forms a separation pair with {@code u} exactly
+ *  when {@code w} is an articulation point of the network without {@code u},
+ *  so the same search is repeated once per vertex with that vertex removed:
+ *  time proportional to <em>V</em>(<em>E</em> + <em>V</em>) in the worst case,
+ *  stopping at the first pair when only the yes/no answer is needed.
+ *  The search uses explicit stacks, so deep networks do not overflow the
+ *  call stack.
+ */
+public class Survivability {
+
+    private final CSRGraph G;
+    private final int V;
+
+    // scratch space for one depth-first search, reused across searches
+    private final int[] pre;
+    private final int[] low;
+    private final int[] parentEdge;
+    private final int[] nextSlot;
+    private final int[] stack;
+    private final boolean[] cut;
+
+    private int components;          // components found by the last search
+
+    private final int[] articulation;
+    private final int componentCount;
+    private List<int[]> pairs;       // separation pairs, computed on demand
+    private Boolean survives;        // answer, computed on demand
+
+    /**
+     * Analyzes the graph {@code G}.
+     *
+     * @param  G the graph
+     */
+    public Survivability(CSRGraph G) {
+        this.G = G;
+        this.V = G.V();
+        pre = new int[V];
+        low = new int[V];
+        parentEdge = new int[V];
+        nextSlot = new int[V];
+        stack = new int[V];
+        cut = new boolean[V];
+
+        search(-1);
+        componentCount = components;
+        articulation = cutVertices();
+    }
+
+    /**
+     * Returns true if the network is connected.
+     *
+     * @return {@code true} if the network is connected
+     */
+    public boolean isConnected() {
+        return componentCount <= 1;
+    }
+
+    /**
+     * Returns the articulation points of the network, in ascending order.
+     *
+     * @return the vertices whose failure alone disconnects the network
+     */
+    public int[] articulationPoints() {
+        return articulation.clone();
+    }
+
+    /**
+     * Returns true if the network stays connected after any two of its
+     * vertices fail.
+     *
+     * @return {@code true} if no two vertex failures disconnect the network
+     */
+    public boolean survivesTwoFailures() {
+        if (survives == null) {
+            // a disconnected network fails already; a connected one of at most three vertices
+            // has at most one vertex left after two failures
+            if (!isConnected()) survives = false;
+            else if (V <= 3) survives = true;
+            else if (articulation.length > 0) survives = false;
+            else if (pairs != null) survives = pairs.isEmpty();
+            else survives = !hasSeparationPair();
+        }
+        return survives;
+    }
+
+    /**
+     * Returns the separation pairs of a connected network: the pairs
+     * {@code {u, w}}, {@code u < w}, of vertices that are not articulation
+     * points but whose joint failure disconnects the network.
+     * Returns an empty list if the network is not connected.
+     *
+     * @return the separation pairs, ordered by first and then second vertex
+     */
+    public List<int[]> separationPairs() {
+        if (pairs == null) {
+            pairs = new ArrayList<int[]>();
+            if (V > 3 && isConnected()) {
+                boolean[] isArticulation = new boolean[V];
+                for (int a : articulation) isArticulation[a] = true;
+                for (int u = 0; u < V; u++) {
+                    if (isArticulation[u]) continue;
+                    search(u);
+                    for (int w = u + 1; w < V; w++) {
+                        if (cut[w] && !isArticulation[w]) pairs.add(new int[] { u, w });
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    // does some vertex u have an articulation point in G - u? stops at the first one found
+    private boolean hasSeparationPair() {
+        for (int u = 0; u < V; u++) {
+            search(u);
+            if (components > 1 || cutVertices().length > 0) return true;
+        }
+        return false;
+    }
+
+    // the articulation points found by the last search, in ascending order
+    private int[] cutVertices() {
+        int n = 0;
+        for (int v = 0; v < V; v++) {
+            if (cut[v]) n++;
+        }
+        int[] result = new int[n];
+        n = 0;
+        for (int v = 0; v < V; v++) {
+            if (cut[v]) result[n++] = v;
+        }
+        return result;
+    }
+
+    // depth-first search of G - skip (skip = -1 for all of G), marking articulation points in cut[]
+    private void search(int skip) {
+        Arrays.fill(pre, -1);
+        Arrays.fill(cut, false);
+        components = 0;
+        int count = 0;
+        for (int root = 0; root < V; root++) {
+            if (root == skip || pre[root] != -1) continue;
+            components++;
+            int rootChildren = 0;
+            int top = 0;
+            stack[top++] = root;
+            pre[root] = low[root] = count++;
+            parentEdge[root] = -1;
+            nextSlot[root] = G.begin(root);
+            while (top > 0) {
+                int v = stack[top - 1];
+                if (nextSlot[v] < G.end(v)) {
+                    int k = nextSlot[v]++;
+                    int w = G.neighbor(k);
+                    int e = G.edgeAt(k);
+                    if (w == skip || e == parentEdge[v]) continue;
+                    if (pre[w] == -1) {
+                        if (v == root) rootChildren++;
+                        pre[w] = low[w] = count++;
+                        parentEdge[w] = e;
+                        nextSlot[w] = G.begin(w);
+                        stack[top++] = w;
+                    }
+                    else low[v] = Math.min(low[v], pre[w]);
+                }
+                else {
+                    top--;
+                    if (top == 0) break;
+                    int parent = stack[top - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                    if (parent != root && low[v] >= pre[parent]) cut[parent] = true;
+                }
+            }
+            if (rootChildren > 1) cut[root] = true;
+        }
+    }
+
+    /**
+     * Reads a network from the file named by the first argument and prints
+     * whether it survives any two failures, with the offending vertices.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        NetworkAnalysis.readGraphFile(args[0]);
+        Survivability s = new Survivability(NetworkAnalysis.graph.toCSR());
+        System.out.println("survives two failures: " + s.survivesTwoFailures());
+        System.out.println("articulation points:   " + Arrays.toString(s.articulationPoints()));
+        for (int[] pair : s.separationPairs()) {
+            System.out.println("separation pair:       " + pair[0] + " " + pair[1]);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+//TopologyGenerator.java
+
+
+/******************************************************************************
+ *  Compilation:  javac TopologyGenerator.java
+ *  Execution:    java TopologyGenerator V E seed > topology.txt
+ *
+ *  Generates synthetic network topologies for benchmarking.
+ *
+ ******************************************************************************/
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *  The {@code TopologyGenerator} class generates random, connected network
+ *  topologies in the same shape as the files read by {@link NetworkAnalysis}.
+ *  In a {@link #random} topology a random spanning tree guarantees
+ *  connectivity; the remaining links join uniformly random pairs of distinct
+ *  routers. No two links join the same pair; duplicates are dropped by
+ *  {@link GraphBuilder#removeParallelEdges()}.
+ *  About a third of the links are copper; lengths are between 1 and 1000 meters.
+ *  <p>
+ *  The other families have the structure of real networks:
+ *  <ul>
+ *  <li>{@link #geometric} links routers placed at random in a square to
+ *      those within a fixed distance, with lengths proportional to the
+ *      distance, as in a metropolitan network;
+ *  <li>{@link #scaleFree} grows the network by preferential attachment, so
+ *      a few hubs carry most of the links (Barabási–Albert);
+ *  <li>{@link #grid} is a rectangular mesh;
+ *  <li>{@link #tiered} is an optical core mesh with copper access links
+ *      hanging off it, the usual mix of copper and optical cable.
+ *  </ul>
+ */
+public class TopologyGenerator {
+
+    private static final int[] BANDWIDTHS = { 10, 100, 1000, 10000 };
+
+    // This class should not be instantiated.
+    private TopologyGenerator() { }
+
+    /**
+     * Returns a random connected graph with {@code V} vertices and {@code E} edges.
+     *
+     * @param  V the number of vertices
+     * @param  E the number of edges
+     * @param  seed the seed for the random number generator
+     * @return a random connected graph
+     * @throws IllegalArgumentException if {@code E < V - 1} or there are too many edges
+     */
+    public static EdgeWeightedGraph random(int V, int E, long seed) {
+        return randomBuilder(V, E, seed).buildGraph();
+    }
+
+    /**
+     * Returns a {@link GraphBuilder} holding the edges of a random connected
+     * graph with {@code V} vertices and {@code E} edges.
+     *
+     * @param  V the number of vertices
+     * @param  E the number of edges
+     * @param  seed the seed for the random number generator
+     * @return a builder holding a random connected graph
+     * @throws IllegalArgumentException if {@code E < V - 1} or there are too many edges
+     */
+    public static GraphBuilder randomBuilder(int V, int E, long seed) {
+        if (E < V - 1) throw new IllegalArgumentException("Too few edges to connect the graph");
+        if (E > (long) V * (V - 1) / 2) throw new IllegalArgumentException("Too many edges");
+        Random random = new Random(seed);
+        GraphBuilder builder = new GraphBuilder(V, E);
+        for (int v = 1; v < V; v++) {
+            addRandomEdge(builder, random, v, random.nextInt(v));
+        }
+        // top up with random pairs until E distinct links remain
+        while (builder.size() < E) {
+            while (builder.size() < E) {
+                int v = random.nextInt(V);
+                int w = random.nextInt(V);
+                if (v != w) addRandomEdge(builder, random, v, w);
+            }
+            builder.removeParallelEdges();
+        }
+        return builder;
+    }
+
+    private static void addRandomEdge(GraphBuilder builder, Random random, int v, int w) {
+        boolean copper = random.nextInt(3) == 0;
+        int bandwidth = BANDWIDTHS[random.nextInt(BANDWIDTHS.length)];
+        double length = 1 + random.nextInt(1000);
+        builder.addEdge(v, w, copper, bandwidth, length);
+    }
+
+    /**
+     * Returns a random geometric graph: {@code V} routers placed uniformly at
+     * random in a square 10 km on a side, each linked to every router within
+     * the distance that gives an average degree of {@code degree}. Links are
+     * as long as the distance they span. Components left apart are joined by
+     * linking routers that are next to each other from left to right, so the
+     * graph is connected.
+     *
+     * @param  V the number of vertices
+     * @param  degree the expected average degree
+     * @param  seed the seed for the random number generator
+     * @return a random connected geometric graph
+     * @throws IllegalArgumentException unless {@code V > 0} and {@code degree > 0}
+     */
+    public static EdgeWeightedGraph geometric(int V, double degree, long seed) {
+        if (V <= 0 || !(degree > 0)) throw new IllegalArgumentException("Need positive V and degree");
+        final double side = 10000;
+        Random random = new Random(seed);
+        double[] x = new double[V];
+        double[] y = new double[V];
+        for (int v = 0; v < V; v++) {
+            x[v] = side * random.nextDouble();
+            y[v] = side * random.nextDouble();
+        }
+        double radius = side * Math.sqrt(degree / (Math.PI * V));
+
+        // bucket the routers into cells one radius wide, so only neighboring cells are compared
+        int cells = Math.max(1, Math.min((int) (side / radius), (int) Math.sqrt(V) + 1));
+        double cellSize = side / cells;
+        int[] cellStart = new int[cells * cells + 1];
+        int[] cellOf = new int[V];
+        for (int v = 0; v < V; v++) {
+            int cx = Math.min(cells - 1, (int) (x[v] / cellSize));
+            int cy = Math.min(cells - 1, (int) (y[v] / cellSize));
+            cellOf[v] = cy * cells + cx;
+            cellStart[cellOf[v] + 1]++;
+        }
+        for (int c = 0; c < cells * cells; c++) cellStart[c + 1] += cellStart[c];
+        int[] byCell = new int[V];
+        int[] next = cellStart.clone();
+        for (int v = 0; v < V; v++) byCell[next[cellOf[v]]++] = v;
+
+        GraphBuilder builder = new GraphBuilder(V, (int) Math.min(Integer.MAX_VALUE - 8, (long) (degree * V / 2) + V));
+        UF uf = new UF(V);
+        for (int v = 0; v < V; v++) {
+            int cx = cellOf[v] % cells;
+            int cy = cellOf[v] / cells;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = cx + dx;
+                    int ny = cy + dy;
+                    if (nx < 0 || ny < 0 || nx >= cells || ny >= cells) continue;
+                    int c = ny * cells + nx;
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                        int w = byCell[k];
+                        if (w <= v) continue;
+                        double d = Math.hypot(x[v] - x[w], y[v] - y[w]);
+                        if (d > radius) continue;
+                        addLink(builder, random, v, w, Math.max(1, Math.round(d)));
+                        uf.union(v, w);
+                    }
+                }
+            }
+        }
+
+        // join the components, walking the routers from left to right
+        Integer[] order = new Integer[V];
+        for (int v = 0; v < V; v++) order[v] = v;
+        Arrays.sort(order, (a, b) -> Double.compare(x[a], x[b]));
+        for (int i = 1; i < V && uf.count() > 1; i++) {
+            int v = order[i - 1];
+            int w = order[i];
+            if (uf.union(v, w)) addLink(builder, random, v, w, Math.max(1, Math.round(Math.hypot(x[v] - x[w], y[v] - y[w]))));
+        }
+        return builder.buildGraph();
+    }
+
+    /**
+     * Returns a scale-free graph grown by preferential attachment: starting
+     * from a clique of {@code m} + 1 routers, each new router links to
+     * {@code m} distinct routers chosen with probability proportional to
+     * their degree (the Barabási–Albert model).
+     *
+     * @param  V the number of vertices
+     * @param  m the number of links of each new router
+     * @param  seed the seed for the random number generator
+     * @return a random connected scale-free graph with about {@code m V} edges
+     * @throws IllegalArgumentException unless {@code 1 <= m < V}
+     */
+    public static EdgeWeightedGraph scaleFree(int V, int m, long seed) {
+        if (m < 1 || m >= V) throw new IllegalArgumentException("Need 1 <= m < V");
+        Random random = new Random(seed);
+        GraphBuilder builder = new GraphBuilder(V, m * V);
+        // every link adds both endpoints, so a uniform pick from this list is proportional to degree
+        int[] endpoints = new int[2 * m * V];
+        int n = 0;
+        for (int v = 0; v <= m; v++) {
+            for (int w = 0; w < v; w++) {
+                addRandomEdge(builder, random, v, w);
+                endpoints[n++] = v;
+                endpoints[n++] = w;
+            }
+        }
+        int[] targets = new int[m];
+        for (int v = m + 1; v < V; v++) {
+            int count = 0;
+            while (count < m) {
+                int w = endpoints[random.nextInt(n)];
+                boolean seen = false;
+                for (int i = 0; i < count && !seen; i++) seen = targets[i] == w;
+                if (!seen) targets[count++] = w;
+            }
+            for (int i = 0; i < m; i++) {
+                addRandomEdge(builder, random, v, targets[i]);
+                endpoints[n++] = v;
+                endpoints[n++] = targets[i];
+            }
+        }
+        return builder.buildGraph();
+    }
+
+    /**
+     * Returns a {@code rows}-by-{@code cols} grid, router <em>r</em> {@code cols}
+     * + <em>c</em> linked to its neighbors in the same row and column.
+     *
+     * @param  rows the number of rows
+     * @param  cols the number of columns
+     * @param  seed the seed for the random number generator
+     * @return a grid with {@code rows * cols} vertices
+     * @throws IllegalArgumentException unless {@code rows} and {@code cols} are positive
+     */
+    public static EdgeWeightedGraph grid(int rows, int cols, long seed) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("Need positive rows and cols");
+        Random random = new Random(seed);
+        GraphBuilder builder = new GraphBuilder(rows * cols, 2 * rows * cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int v = r * cols + c;
+                if (c + 1 < cols) addRandomEdge(builder, random, v, v + 1);
+                if (r + 1 < rows) addRandomEdge(builder, random, v, v + cols);
+            }
+        }
+        return builder.buildGraph();
+    }
+
+    /**
+     * Returns a two-tier network: a core of about &radic;<em>V</em> routers
+     * joined by a random connected mesh of long, fast optical links, with the
+     * remaining routers attached by short copper access links, each to one
+     * or two routers added before it.
+     *
+     * @param  V the number of vertices
+     * @param  seed the seed for the random number generator
+     * @return a random connected network of optical core and copper access links
+     * @throws IllegalArgumentException unless {@code V >= 2}
+     */
+    public static EdgeWeightedGraph tiered(int V, long seed) {
+        if (V < 2) throw new IllegalArgumentException("Need at least two vertices");
+        Random random = new Random(seed);
+        int core = Math.max(2, (int) Math.sqrt(V));
+        GraphBuilder builder = new GraphBuilder(V, 2 * V + 2 * core);
+        for (int v = 1; v < core; v++) {
+            builder.addEdge(v, random.nextInt(v), false, 10000, 1000 + random.nextInt(50000));
+        }
+        for (int i = 0; i < core; i++) {
+            int v = random.nextInt(core);
+            int w = random.nextInt(core);
+            if (v != w) builder.addEdge(v, w, false, 10000, 1000 + random.nextInt(50000));
+        }
+        for (int v = core; v < V; v++) {
+            builder.addEdge(v, random.nextInt(v), true, 100, 1 + random.nextInt(500));
+            if (random.nextInt(4) == 0) builder.addEdge(v, random.nextInt(v), true, 100, 1 + random.nextInt(500));
+        }
+        builder.removeParallelEdges();
+        return builder.buildGraph();
+    }
+
+    // a link of the given length with a random cable type and bandwidth
+    private static void addLink(GraphBuilder builder, Random random, int v, int w, double length) {
+        boolean copper = random.nextInt(3) == 0;
+        builder.addEdge(v, w, copper, BANDWIDTHS[random.nextInt(BANDWIDTHS.length)], length);
+    }
+
+    /**
+     * Writes {@code G} to {@code out} in the text format read by {@link NetworkAnalysis}.
+     *
+     * @param  G the graph to write
+     * @param  out the destination
+     */
+    public static void write(EdgeWeightedGraph G, PrintWriter out) {
+        out.println(G.V());
+        for (Edge e : G.edges()) {
+            int v = e.either();
+            out.println(v + " " + e.other(v) + " " + (e.isCopper() ? "copper" : "optical")
+                        + " " + e.bandwidth() + " " + (long) e.length());
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a random topology to standard output.
+     *
+     * @param args the number of vertices, the number of edges and a seed
+     */
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        write(random(V, E, seed), new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out))));
+    }
+}
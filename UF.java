@@ -0,0 +1,126 @@
+//UF.java
+
+
+/******************************************************************************
+ *  Compilation:  javac UF.java
+ *  Execution:    none
+ *
+ *  Weighted quick-union (union-by-rank) with path compression (halving).
+ *
+ ******************************************************************************/
+
+/**
+ *  The {@code UF} class represents a <em>union–find data type</em>
+ *  (also known as the <em>disjoint-sets data type</em>).
+ *  It supports the classic <em>union</em> and <em>find</em> operations,
+ *  along with a <em>count</em> operation that returns the total number
+ *  of sets.
+ *  <p>
+ *  This implementation uses <em>weighted quick union by rank</em>
+ *  with <em>path compression by halving</em>.
+ *  The constructor takes time proportional to <em>n</em>, where <em>n</em>
+ *  is the number of elements. The <em>union</em> and <em>find</em>
+ *  operations take logarithmic time in the worst case and very nearly
+ *  constant amortized time (inverse Ackermann).
+ *  The <em>count</em> operation takes constant time.
+ *  <p>
+ *  For additional documentation, see <a href="https://algs4.cs.princeton.edu/15uf">Section 1.5</a> of
+ *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ */
+public class UF {
+
+    private final int[] parent;  // parent[i] = parent of i
+    private final byte[] rank;   // rank[i] = rank of subtree rooted at i (never more than 31)
+    private int count;           // number of components
+
+    /**
+     * Initializes an empty union–find data structure with {@code n} elements
+     * {@code 0} through {@code n-1}. Initially, each element is in its own set.
+     *
+     * @param  n the number of elements
+     * @throws IllegalArgumentException if {@code n < 0}
+     */
+    public UF(int n) {
+        if (n < 0) throw new IllegalArgumentException();
+        count = n;
+        parent = new int[n];
+        rank = new byte[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+    }
+
+    /**
+     * Returns the canonical element of the set containing element {@code p}.
+     *
+     * @param  p an element
+     * @return the canonical element of the set containing {@code p}
+     * @throws IllegalArgumentException unless {@code 0 <= p < n}
+     */
+    public int find(int p) {
+        validate(p);
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]];    // path compression by halving
+            p = parent[p];
+        }
+        return p;
+    }
+
+    /**
+     * Returns the number of sets.
+     *
+     * @return the number of sets (between {@code 1} and {@code n})
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns true if the two elements are in the same set.
+     *
+     * @param  p one element
+     * @param  q the other element
+     * @return {@code true} if {@code p} and {@code q} are in the same set;
+     *         {@code false} otherwise
+     * @throws IllegalArgumentException unless
+     *         both {@code 0 <= p < n} and {@code 0 <= q < n}
+     */
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     * Merges the set containing element {@code p} with the set
+     * containing element {@code q}.
+     *
+     * @param  p one element
+     * @param  q the other element
+     * @return {@code true} if the sets were merged, {@code false} if
+     *         {@code p} and {@code q} were already in the same set
+     * @throws IllegalArgumentException unless
+     *         both {@code 0 <= p < n} and {@code 0 <= q < n}
+     */
+    public boolean union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return false;
+
+        // make root of smaller rank point to root of larger rank
+        if      (rank[rootP] < rank[rootQ]) parent[rootP] = rootQ;
+        else if (rank[rootP] > rank[rootQ]) parent[rootQ] = rootP;
+        else {
+            parent[rootQ] = rootP;
+            rank[rootP]++;
+        }
+        count--;
+        return true;
+    }
+
+    // validate that p is a valid index
+    private void validate(int p) {
+        int n = parent.length;
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException("index " + p + " is not between 0 and " + (n-1));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+//AnalysisBenchmarks.java
+
+
+/******************************************************************************
+ *  Compilation:  mvn -B package
+ *  Execution:    java -jar jmh/target/benchmarks.jar [JMH options]
+ *
+ *  JMH benchmarks of loading a network and of every analysis of
+ *  EdgeWeightedGraph, on synthetic topologies of several families and sizes.
+ *
+ *  % java -jar jmh/target/benchmarks.jar -p family=grid -p V=10000 lowestLatencyPath
+ *
+ ******************************************************************************/
+
+package network.jmh;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  The {@code AnalysisBenchmarks} class holds the JMH benchmarks of the
+ *  operations of {@code EdgeWeightedGraph}: loading a topology file,
+ *  {@code addEdge}, {@code lowestLatencyPath},
+ *  {@code lowestLatencySpanningTree}, {@code remainConnected} and
+ *  {@code copperOnly}. Each runs on a topology of every
+ *  {@code TopologyGenerator} family ({@code random}, {@code geometric},
+ *  {@code scale-free}, {@code grid} and the copper and optical
+ *  {@code tiered} network) with 1,000, 10,000 and 100,000 vertices; pick
+ *  others with JMH's {@code -p family=...} and {@code -p V=...}.
+ *  {@link BenchmarkMain} runs them with JMH's allocation profiler, so the
+ *  report gives the bytes allocated per operation
+ *  ({@code gc.alloc.rate.norm}) next to the time.
+ *  <p>
+ *  For {@code load} an operation is reading the whole file and building the
+ *  graph, and for {@code addEdge} it is adding every edge of the topology
+ *  to an empty graph. The path queries cycle through 1,024 random pairs of
+ *  vertices. The standalone {@code AnalysisBenchmark} driver measures the
+ *  same operations without JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AnalysisBenchmarks {
+    private static final int PAIRS = 1024;
+
+    @Param({ "random", "geometric", "scale-free", "grid", "tiered" })
+    public String family;
+
+    @Param({ "1000", "10000", "100000" })
+    public int V;
+
+    private Object graph;               // the EdgeWeightedGraph
+    private int vertices;
+    private Object[] edges;
+    private final int[] from = new int[PAIRS];
+    private final int[] to = new int[PAIRS];
+    private int next;                   // the next pair of a path query
+    private File file;                  // the topology, written out for load
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        graph = (Object) Network.TOPOLOGY.invokeExact(family, V, 42L);
+        vertices = (int) Network.V.invokeExact(graph);
+        List<Object> list = new ArrayList<Object>();
+        for (Object e : (Iterable<?>) Network.EDGES.invokeExact(graph)) list.add(e);
+        edges = list.toArray();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = random.nextInt(vertices);
+            to[i] = random.nextInt(vertices);
+        }
+        file = File.createTempFile("topology", ".txt");
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            Network.WRITE.invokeExact(graph, out);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Object load() throws Throwable {
+        return (Object) Network.READ.invokeExact(file.getPath());
+    }
+
+    @Benchmark
+    public Object addEdge() throws Throwable {
+        Object H = (Object) Network.NEW_GRAPH.invokeExact(vertices);
+        for (Object e : edges) Network.ADD_EDGE.invokeExact(H, e);
+        return H;
+    }
+
+    @Benchmark
+    public Object lowestLatencyPath() throws Throwable {
+        int k = next++ & (PAIRS - 1);
+        return (Object) Network.LOWEST_LATENCY_PATH.invokeExact(graph, from[k], to[k]);
+    }
+
+    @Benchmark
+    public Object lowestLatencySpanningTree() throws Throwable {
+        return (Object) Network.LOWEST_LATENCY_SPANNING_TREE.invokeExact(graph);
+    }
+
+    @Benchmark
+    public Object remainConnected() throws Throwable {
+        return (Object) Network.REMAIN_CONNECTED.invokeExact(graph);
+    }
+
+    @Benchmark
+    public boolean copperOnly() throws Throwable {
+        return (boolean) Network.COPPER_ONLY.invokeExact(graph);
+    }
+}
@@ -0,0 +1,47 @@
+//BenchmarkMain.java
+
+
+/******************************************************************************
+ *  Compilation:  mvn -B package
+ *  Execution:    java -jar jmh/target/benchmarks.jar [JMH options]
+ *
+ *  Runs the JMH benchmarks with the allocation profiler enabled.
+ *
+ ******************************************************************************/
+
+package network.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *  The {@code BenchmarkMain} class is the entry point of the benchmark jar.
+ *  It takes JMH's usual command-line options and always adds JMH's
+ *  {@link GCProfiler}, so every result reports the bytes allocated per
+ *  operation.
+ */
+public final class BenchmarkMain {
+
+    // This class should not be instantiated.
+    private BenchmarkMain() { }
+
+    /**
+     * Runs the benchmarks selected by the command-line arguments.
+     *
+     * @param args the JMH command-line options
+     * @throws CommandLineOptionException if the options are not valid
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,108 @@
+//Network.java
+
+
+/******************************************************************************
+ *  Compilation:  mvn -B package
+ *  Execution:    none
+ *
+ *  Method handles on the classes of the analyzer, for the benchmarks.
+ *
+ ******************************************************************************/
+
+package network.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ *  The {@code Network} class gives the JMH benchmarks access to the analyzer.
+ *  Its classes live in the unnamed package, which code in a named package
+ *  cannot name, while JMH refuses benchmarks in the unnamed package. So every
+ *  operation a benchmark needs is looked up once, by name, as a
+ *  {@link MethodHandle} whose analyzer types are erased to {@code Object}.
+ *  The handles are {@code static final}, so the JIT compiler treats them as
+ *  constants and inlines the call: invoking one costs no more than calling
+ *  the method directly.
+ */
+final class Network {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    static final Class<?> EDGE_WEIGHTED_GRAPH = type("EdgeWeightedGraph");
+    static final Class<?> EDGE = type("Edge");
+
+    // AnalysisBenchmark.topology(family, V, seed)
+    static final MethodHandle TOPOLOGY = handle("AnalysisBenchmark", true, "topology",
+                                                EDGE_WEIGHTED_GRAPH, String.class, int.class, long.class);
+    // TopologyGenerator.write(G, out)
+    static final MethodHandle WRITE = handle("TopologyGenerator", true, "write",
+                                             void.class, EDGE_WEIGHTED_GRAPH, java.io.PrintWriter.class);
+    // MappedTopologyReader.read(fileName).buildGraph()
+    static final MethodHandle READ = MethodHandles.filterReturnValue(
+            handle("MappedTopologyReader", true, "read", type("GraphBuilder"), String.class),
+            handle("GraphBuilder", false, "buildGraph", EDGE_WEIGHTED_GRAPH))
+            .asType(MethodType.methodType(Object.class, String.class));
+    static final MethodHandle NEW_GRAPH = constructor("EdgeWeightedGraph", int.class);
+
+    // the methods of EdgeWeightedGraph
+    static final MethodHandle V = handle("EdgeWeightedGraph", false, "V", int.class);
+    static final MethodHandle EDGES = handle("EdgeWeightedGraph", false, "edges", Iterable.class);
+    static final MethodHandle ADD_EDGE = handle("EdgeWeightedGraph", false, "addEdge", void.class, EDGE);
+    static final MethodHandle LOWEST_LATENCY_PATH = handle("EdgeWeightedGraph", false, "lowestLatencyPath",
+                                                           type("LatencyPath"), int.class, int.class);
+    static final MethodHandle LOWEST_LATENCY_SPANNING_TREE = handle("EdgeWeightedGraph", false,
+                                                                    "lowestLatencySpanningTree",
+                                                                    type("LatencySpanningTree"));
+    static final MethodHandle REMAIN_CONNECTED = handle("EdgeWeightedGraph", false, "remainConnected",
+                                                        type("Survivability"));
+    static final MethodHandle COPPER_ONLY = handle("EdgeWeightedGraph", false, "copperOnly", boolean.class);
+
+    // This class should not be instantiated.
+    private Network() { }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        }
+        catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // the named method, with every analyzer type in its signature erased to Object
+    private static MethodHandle handle(String owner, boolean isStatic, String name, Class<?> returns,
+                                       Class<?>... parameters) {
+        try {
+            MethodType type = MethodType.methodType(returns, parameters);
+            MethodHandle handle = isStatic ? LOOKUP.findStatic(type(owner), name, type)
+                                           : LOOKUP.findVirtual(type(owner), name, type);
+            return handle.asType(erase(handle.type()));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor(String owner, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(type(owner), MethodType.methodType(void.class, parameters));
+            return handle.asType(erase(handle.type()));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Object in place of every class of the unnamed package
+    private static MethodType erase(MethodType type) {
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isAnalyzerType(type.parameterType(i))) type = type.changeParameterType(i, Object.class);
+        }
+        if (isAnalyzerType(type.returnType())) type = type.changeReturnType(Object.class);
+        return type;
+    }
+
+    private static boolean isAnalyzerType(Class<?> c) {
+        return !c.isPrimitive() && !c.isArray() && c.getPackageName().isEmpty();
+    }
+}